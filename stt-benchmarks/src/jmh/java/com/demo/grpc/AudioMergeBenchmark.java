@@ -0,0 +1,66 @@
+package com.demo.grpc;
+
+import com.google.protobuf.ByteString;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// 서버 onCompleted: 스트림으로 받은 청크를 발화 하나로 합치는 비용
+// rope 연결(mergeAudioChunks)과 예전 방식(ByteArrayOutputStream에 복사), 그리고 합친 뒤 HTTP로 내보낼 때의 소비 방식까지 비교
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AudioMergeBenchmark {
+
+    @Param({"3200"}) // 16kHz 16비트 mono 100ms
+    private int chunkBytes;
+
+    @Param({"10", "100"}) // 1초, 10초 발화
+    private int chunkCount;
+
+    private List<ByteString> chunks;
+
+    @Setup
+    public void setUp() {
+        chunks = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            byte[] pcm = new byte[chunkBytes];
+            ThreadLocalRandom.current().nextBytes(pcm);
+            chunks.add(ByteString.copyFrom(pcm)); // gRPC가 넘겨주는 청크처럼 각자 독립된 ByteString
+        }
+    }
+
+    @Benchmark
+    public ByteString ropeMerge() {
+        return GrpcServer.SpeechToTextServiceImpl.mergeAudioChunks(chunks);
+    }
+
+    @Benchmark
+    public byte[] copyMerge() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (ByteString chunk : chunks) {
+            out.writeBytes(chunk.toByteArray());
+        }
+        return out.toByteArray();
+    }
+
+    // 합친 음성을 조각 버퍼 그대로 내보내는 경우 (gathering write)
+    @Benchmark
+    public void ropeMergeThenGather(Blackhole blackhole) {
+        for (ByteBuffer buffer : GrpcServer.SpeechToTextServiceImpl.mergeAudioChunks(chunks).asReadOnlyByteBufferList()) {
+            blackhole.consume(buffer.remaining());
+        }
+    }
+
+    // 합친 음성을 연속된 byte[]로 다시 펼치는 경우 (한 번은 복사)
+    @Benchmark
+    public byte[] ropeMergeThenFlatten() {
+        return GrpcServer.SpeechToTextServiceImpl.mergeAudioChunks(chunks).toByteArray();
+    }
+}
@@ -0,0 +1,68 @@
+package com.demo.grpc;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.UnsafeByteOperations;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import stt.SpeechChunk;
+
+// 클라이언트에서 WebSocket으로 받은 PCM을 SpeechChunk로 만드는 비용
+// ByteString.copyFrom(복사)과 UnsafeByteOperations.unsafeWrap(감싸기만, SttStreamSession 방식)을 비교하고
+// gRPC가 실제로 하는 직렬화까지 포함한 경우도 함께 측정
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SpeechChunkBenchmark {
+
+    @Param({"3200", "32000"}) // 16kHz 100ms, 48kHz 약 330ms
+    private int chunkBytes;
+
+    private byte[] pcm;
+    private byte[] wire;
+
+    @Setup
+    public void setUp() {
+        pcm = new byte[chunkBytes];
+        ThreadLocalRandom.current().nextBytes(pcm);
+        wire = new byte[chunkBytes + 256];
+    }
+
+    @Benchmark
+    public SpeechChunk copyFrom() {
+        return build(ByteString.copyFrom(pcm));
+    }
+
+    @Benchmark
+    public SpeechChunk unsafeWrap() {
+        return build(UnsafeByteOperations.unsafeWrap(pcm));
+    }
+
+    @Benchmark
+    public int copyFromAndSerialize() throws IOException {
+        return serialize(build(ByteString.copyFrom(pcm)));
+    }
+
+    @Benchmark
+    public int unsafeWrapAndSerialize() throws IOException {
+        return serialize(build(UnsafeByteOperations.unsafeWrap(pcm)));
+    }
+
+    private static SpeechChunk build(ByteString audio) {
+        return SpeechChunk.newBuilder()
+                .setCustomerId("customer-0001")
+                .setSessionId("session-0001")
+                .setAudioData(audio)
+                .build();
+    }
+
+    private int serialize(SpeechChunk chunk) throws IOException {
+        CodedOutputStream out = CodedOutputStream.newInstance(wire);
+        chunk.writeTo(out);
+        return out.getTotalBytesWritten();
+    }
+}
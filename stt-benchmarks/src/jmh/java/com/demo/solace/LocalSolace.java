@@ -0,0 +1,75 @@
+package com.demo.solace;
+
+import com.solacesystems.jcsmp.JCSMPProperties;
+import com.solacesystems.jcsmp.JCSMPSendMultipleEntry;
+import com.solacesystems.jcsmp.JCSMPSession;
+import com.solacesystems.jcsmp.JCSMPStreamingPublishCorrelatingEventHandler;
+import com.solacesystems.jcsmp.SpringJCSMPFactory;
+import com.solacesystems.jcsmp.XMLMessage;
+import com.solacesystems.jcsmp.XMLMessageProducer;
+import com.solacesystems.jcsmp.Context;
+import com.solacesystems.jcsmp.SessionEventHandler;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.LongAdder;
+
+// 브로커 없이 TopicPublisher를 돌리기 위한 JCSMP 대역
+// 세션 연결은 아무 일도 하지 않고, producer는 받은 메시지 수만 세며 PERSISTENT 메시지는 보내는 즉시 ack를 돌려준다
+// (네트워크/브로커 비용은 빠지므로 TopicPublisher 자체의 메시지 생성, 슬롯 선택, 락, 배치 비용만 측정됨)
+final class LocalSolace extends SpringJCSMPFactory {
+
+    private final LongAdder sent = new LongAdder();
+
+    LocalSolace() {
+        super(new JCSMPProperties(), null);
+    }
+
+    long sentCount() {
+        return sent.sum();
+    }
+
+    @Override
+    public JCSMPSession createSession(Context context, SessionEventHandler handler) {
+        return proxy(JCSMPSession.class, (method, args) -> switch (method) {
+            case "getMessageProducer" -> producer((JCSMPStreamingPublishCorrelatingEventHandler) args[0]);
+            case "isClosed" -> false;
+            default -> null;
+        });
+    }
+
+    private XMLMessageProducer producer(JCSMPStreamingPublishCorrelatingEventHandler handler) {
+        return proxy(XMLMessageProducer.class, (method, args) -> switch (method) {
+            case "send" -> {
+                ack(handler, (XMLMessage) args[0]);
+                yield null;
+            }
+            case "sendMultiple" -> {
+                JCSMPSendMultipleEntry[] entries = (JCSMPSendMultipleEntry[]) args[0];
+                int offset = (int) args[1];
+                int length = (int) args[2];
+                for (int i = offset; i < offset + length; i++) {
+                    ack(handler, entries[i].getMessage());
+                }
+                yield length;
+            }
+            case "isClosed" -> false;
+            default -> null;
+        });
+    }
+
+    private void ack(JCSMPStreamingPublishCorrelatingEventHandler handler, XMLMessage message) {
+        sent.increment();
+        if (message.getCorrelationKey() != null) {
+            handler.responseReceivedEx(message.getCorrelationKey());
+        }
+    }
+
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws Exception;
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(LocalSolace.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.invoke(method.getName(), args)));
+    }
+}
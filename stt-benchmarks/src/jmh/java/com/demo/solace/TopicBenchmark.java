@@ -0,0 +1,52 @@
+package com.demo.solace;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// 인식 결과마다 만드는 토픽 문자열 crm/stt/{customerId}/{sessionId}/chunks/{chunkId}
+// String.format, 문자열 연결(SttGrpcClient.deliver), StringBuilder를 비교하고, 수신 쪽 해석(SttTopic.parse vs split)도 측정
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TopicBenchmark {
+
+    private String customerId = "customer-0001";
+    private String sessionId = "3f2a9c1e-7b44-4d1a-9f0e-5c6d7e8f9a0b";
+    private int chunkId = 1234;
+    private String topic;
+
+    @Setup
+    public void setUp() {
+        topic = "crm/stt/" + customerId + "/" + sessionId + "/chunks/" + chunkId;
+    }
+
+    @Benchmark
+    public String format() {
+        return String.format("crm/stt/%s/%s/chunks/%d", customerId, sessionId, chunkId);
+    }
+
+    @Benchmark
+    public String concat() {
+        return "crm/stt/" + customerId + "/" + sessionId + "/chunks/" + chunkId;
+    }
+
+    @Benchmark
+    public String stringBuilder() {
+        return new StringBuilder(64)
+                .append("crm/stt/").append(customerId).append('/').append(sessionId)
+                .append("/chunks/").append(chunkId)
+                .toString();
+    }
+
+    @Benchmark
+    public SttTopic parse() {
+        return SttTopic.parse(topic);
+    }
+
+    @Benchmark
+    public int split() {
+        String[] levels = topic.split("/");
+        return Integer.parseInt(levels[5]);
+    }
+}
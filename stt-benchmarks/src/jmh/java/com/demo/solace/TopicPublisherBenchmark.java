@@ -0,0 +1,93 @@
+package com.demo.solace;
+
+import com.demo.config.SttGrpcClientProperties;
+import com.solacesystems.jcsmp.DeliveryMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// TopicPublisher 발행 처리량 (브로커 대신 LocalSolace)
+// 전송 방식(DIRECT/PERSISTENT)과 배치(sendMultiple) 사용 여부별로, 한 스레드와 여러 세션 레인이 동시에 발행하는 경우를 측정
+// 발행은 producer별 전송 스레드에서 끝나므로, 스레드마다 완료를 기다리지 않은 발행을 WINDOW개까지만 두고 지속 처리량을 잰다
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TopicPublisherBenchmark {
+
+    private static final int WINDOW = 256;
+
+    @Param({"DIRECT", "PERSISTENT"})
+    private String deliveryMode;
+
+    @Param({"false", "true"})
+    private boolean batch;
+
+    private LocalSolace solace;
+    private TopicPublisher publisher;
+    private String[] topics;
+
+    @Setup
+    public void setUp() {
+        SttGrpcClientProperties properties = new SttGrpcClientProperties();
+        ReflectionTestUtils.setField(properties, "solacePublisherPoolSize", 2);
+        ReflectionTestUtils.setField(properties, "solaceDeliveryMode", DeliveryMode.valueOf(deliveryMode));
+        ReflectionTestUtils.setField(properties, "solacePublisherQueueCapacity", 10000);
+        ReflectionTestUtils.setField(properties, "solaceBatchEnabled", batch);
+        ReflectionTestUtils.setField(properties, "solaceBatchWindowMs", 20L);
+        ReflectionTestUtils.setField(properties, "solaceBatchMaxMessages", 64);
+        solace = new LocalSolace();
+        publisher = new TopicPublisher(solace, properties, new SimpleMeterRegistry());
+
+        topics = new String[64]; // 상담 세션 64개에 고르게 발행
+        for (int i = 0; i < topics.length; i++) {
+            topics[i] = "crm/stt/customer-" + i + "/session-" + i + "/chunks/0";
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        publisher.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+        @SuppressWarnings("unchecked")
+        final CompletableFuture<Void>[] window = new CompletableFuture[WINDOW];
+
+        @TearDown
+        public void drain() {
+            for (CompletableFuture<Void> future : window) {
+                if (future != null) {
+                    future.join();
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public CompletableFuture<Void> publish(Cursor cursor) {
+        return publishWindowed(cursor);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public CompletableFuture<Void> publishFromFourLanes(Cursor cursor) {
+        return publishWindowed(cursor);
+    }
+
+    // WINDOW개 앞의 발행이 끝날 때까지 기다린 뒤 다음 발행
+    private CompletableFuture<Void> publishWindowed(Cursor cursor) {
+        int slot = cursor.next & (WINDOW - 1);
+        CompletableFuture<Void> previous = cursor.window[slot];
+        if (previous != null) {
+            previous.join();
+        }
+        CompletableFuture<Void> future = publisher.publishAsync(topics[cursor.next++ & 63], "안녕하세요 고객님 무엇을 도와드릴까요");
+        cursor.window[slot] = future;
+        return future;
+    }
+}
@@ -0,0 +1,71 @@
+package com.demo.solace;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.*;
+import stt.TranscriptEvent;
+
+import java.util.concurrent.TimeUnit;
+
+// Solace 조각 메시지 본문: protobuf TranscriptEvent(BytesMessage)와 같은 필드를 담은 JSON 텍스트(TextMessage) 비교
+// 발행 쪽 인코딩과 STTCollector 쪽 디코딩(텍스트 꺼내기까지)을 각각 측정, -prof gc로 할당량도 함께 확인
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TranscriptEventBenchmark {
+
+    private String customerId = "customer-0001";
+    private String sessionId = "3f2a9c1e-7b44-4d1a-9f0e-5c6d7e8f9a0b";
+    private int chunkId = 1234;
+    private String text = "네 고객님 말씀하신 요금제 변경은 다음 달 1일부터 적용되고 위약금은 발생하지 않습니다";
+    private byte[] event;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        event = encodeEvent();
+        json = encodeJson();
+    }
+
+    @Benchmark
+    public byte[] encodeEvent() {
+        return TranscriptEvent.newBuilder()
+                .setVersion(TranscriptEvents.VERSION)
+                .setCustomerId(customerId)
+                .setSessionId(sessionId)
+                .setChunkId(chunkId)
+                .setUtteranceId(sessionId + "-" + chunkId)
+                .setStartOffsetMs(61_200)
+                .setEndOffsetMs(64_900)
+                .setRecognizedAtMs(1_760_000_000_000L)
+                .setConfidence(0.92f)
+                .setText(text)
+                .build()
+                .toByteArray();
+    }
+
+    @Benchmark
+    public String encodeJson() {
+        JsonObject message = new JsonObject();
+        message.addProperty("customerId", customerId);
+        message.addProperty("sessionId", sessionId);
+        message.addProperty("chunkId", chunkId);
+        message.addProperty("utteranceId", sessionId + "-" + chunkId);
+        message.addProperty("startMs", 61_200);
+        message.addProperty("endMs", 64_900);
+        message.addProperty("recognizedAtMs", 1_760_000_000_000L);
+        message.addProperty("confidence", 0.92f);
+        message.addProperty("text", text);
+        return message.toString();
+    }
+
+    @Benchmark
+    public String decodeEvent() {
+        return TranscriptEvents.decode(event).getText();
+    }
+
+    @Benchmark
+    public String decodeJson() {
+        return JsonParser.parseString(json).getAsJsonObject().get("text").getAsString();
+    }
+}
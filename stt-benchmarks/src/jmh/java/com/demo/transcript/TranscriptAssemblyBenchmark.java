@@ -0,0 +1,66 @@
+package com.demo.transcript;
+
+import com.demo.config.SttGrpcClientProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// STTCollector가 조각 메시지마다 호출하는 대화 조립 (TranscriptAssembler.accept → stop 시 finish)
+// 한 세션의 조각을 순서대로 받는 경우와 이웃한 조각끼리 뒤바뀌어 도착하는 경우를 비교
+// (STTCollector 자체는 Solace 세션이 있어야 만들어지므로 수신 후 실제 작업인 조립기를 직접 측정)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TranscriptAssemblyBenchmark {
+
+    @Param({"20", "200"}) // 세션당 조각 수
+    private int chunks;
+
+    private TranscriptAssembler assembler;
+    private int[] inOrder;
+    private int[] swapped;
+    private int session;
+
+    @Setup
+    public void setUp() {
+        SttGrpcClientProperties properties = new SttGrpcClientProperties();
+        ReflectionTestUtils.setField(properties, "transcriptReorderWindow", 16);
+        ReflectionTestUtils.setField(properties, "transcriptIdleTtlMs", TimeUnit.MINUTES.toMillis(10));
+        ReflectionTestUtils.setField(properties, "transcriptMaxSessions", 10_000);
+        ReflectionTestUtils.setField(properties, "transcriptMaxBytes", 256L * 1024 * 1024);
+        ReflectionTestUtils.setField(properties, "transcriptSweepIntervalMs", 60_000L);
+        assembler = new TranscriptAssembler(properties, new SimpleMeterRegistry());
+
+        inOrder = new int[chunks];
+        swapped = new int[chunks];
+        for (int i = 0; i < chunks; i++) {
+            inOrder[i] = i;
+            swapped[i] = (i ^ 1) < chunks ? i ^ 1 : i; // 0,1 → 1,0, 2,3 → 3,2 ...
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        assembler.shutdown();
+    }
+
+    @Benchmark
+    public String inOrder() {
+        return assemble(inOrder);
+    }
+
+    @Benchmark
+    public String adjacentSwaps() {
+        return assemble(swapped);
+    }
+
+    private String assemble(int[] order) {
+        String key = "customer/session-" + session++;
+        for (int chunkId : order) {
+            assembler.accept(key, chunkId, "고객님 차량 점검 예약은 이번 주 금요일 오전 열 시로 잡아 드렸습니다");
+        }
+        return assembler.finish(key);
+    }
+}
@@ -8,6 +8,20 @@ from starlette.responses import JSONResponse
 
 app = FastAPI()
 
+def parse_audio_format(content_type, default_sample_rate=48000):  # Content-Type에서 음성 형식 확인
+    # audio/L16; rate=16000; channels=1 → ('pcm', 16000) / audio/flac → ('flac', None)
+    # application/octet-stream 등 형식 정보가 없으면 기존처럼 48000Hz PCM으로 처리
+    mime, _, params = (content_type or '').partition(';')
+    if mime.strip().lower() == 'audio/flac':
+        return 'flac', None
+
+    sample_rate = default_sample_rate
+    for param in params.split(';'):
+        key, _, value = param.strip().partition('=')
+        if key.lower() == 'rate' and value.isdigit():
+            sample_rate = int(value)
+    return 'pcm', sample_rate
+
 def pcm_to_wav(pcm_data, sample_rate=48000):  # PCM 데이터를 WAV 파일로 변환 (샘플 레이트 48000Hz)
     if not pcm_data or len(pcm_data) == 0:
         raise ValueError('[ERROR] PCM 데이터가 없습니다.')
@@ -35,6 +49,16 @@ def pcm_to_wav(pcm_data, sample_rate=48000):  # PCM 데이터를 WAV 파일로 
     except Exception as e:
         raise ValueError(f'[ERROR] WAV 변환 중 오류 발생: {e}')
 
+def flac_duration(flac_file):  # FLAC STREAMINFO 헤더에서 길이(초) 계산
+    data = flac_file.getvalue()
+    if len(data) < 26 or data[:4] != b'fLaC':
+        raise ValueError('[ERROR] 올바른 FLAC 데이터가 아닙니다.')
+    info = data[8:26]
+    sample_rate = (info[10] << 12) | (info[11] << 4) | (info[12] >> 4)
+    total_samples = ((info[13] & 0x0F) << 32) | int.from_bytes(info[14:18], 'big')
+    print(f'FLAC 파일 정보: 샘플링 레이트={sample_rate}Hz, 길이={total_samples / sample_rate:.2f}s')
+    return total_samples / float(sample_rate)
+
 async def debug_wav_info(wav_file):  # WAV 파일 정보 디버깅 출력
     wav_file.seek(0)
     with wave.open(wav_file, 'rb') as wf:
@@ -47,27 +71,37 @@ async def debug_wav_info(wav_file):  # WAV 파일 정보 디버깅 출력
         print(f'WAV 파일 정보: 채널={channels}, 샘플링 레이트={framerate}Hz, 비트뎁스={sampwidth*8}bit, 길이={duration:.2f}s')
         return duration
 
+def summarize_text(text, max_sentences=3, max_chars=300):  # 실제 TA 엔진 대신 앞 문장 몇 개를 잘라 요약으로 사용
+    sentences = [s.strip() for s in str(text).replace('?', '.').replace('!', '.').split('.') if s.strip()]
+    summary = '. '.join(sentences[:max_sentences]) if sentences else str(text).strip()
+    return summary[:max_chars]
+
 @app.post('/stt')
 async def speech_to_text(request: Request):
     try:
         pcm_data = await request.body()
+        audio_format, sample_rate = parse_audio_format(request.headers.get('content-type'))
 
         # 1. 빈 데이터 체크
         if not pcm_data or len(pcm_data) == 0:
             print('[ERROR] 요청된 오디오 데이터가 없습니다.')
             raise HTTPException(status_code=400, detail="요청된 오디오 데이터가 없습니다.")
 
-        print(f'받은 PCM 데이터 크기: {len(pcm_data)} bytes')
+        print(f'받은 음성 데이터 크기: {len(pcm_data)} bytes (형식: {audio_format}, 샘플레이트: {sample_rate})')
 
-        # 2. PCM → WAV 변환
+        # 2. PCM → WAV 변환 (FLAC은 speech_recognition이 직접 읽으므로 그대로 사용)
         try:
-            wav_file = pcm_to_wav(pcm_data)
+            wav_file = io.BytesIO(pcm_data) if audio_format == 'flac' else pcm_to_wav(pcm_data, sample_rate)
         except ValueError as e:
             print(str(e))
             raise HTTPException(status_code=400, detail=str(e))
 
-        # 3. WAV 길이 확인
-        duration = await debug_wav_info(wav_file)
+        # 3. 길이 확인
+        try:
+            duration = flac_duration(wav_file) if audio_format == 'flac' else await debug_wav_info(wav_file)
+        except ValueError as e:
+            print(str(e))
+            raise HTTPException(status_code=400, detail=str(e))
         if duration < 0.3:
             print(f'[ERROR] 오디오가 너무 짧음 ({duration:.2f}s). 0.3초 이상 필요!')
             raise HTTPException(status_code=400, detail=f'오디오가 너무 짧음 ({duration:.2f}s)')
@@ -100,6 +134,18 @@ async def speech_to_text(request: Request):
         traceback.print_exc()
         raise HTTPException(status_code=500, detail={"error": "서버 내부 오류", "details": str(e)})
 
+@app.post('/summarize')
+async def summarize(request: Request):  # 상담 요약(TA) 임시 엔드포인트: 여러 대화를 받아 같은 순서로 요약 반환
+    try:
+        body = await request.json()
+    except Exception:
+        raise HTTPException(status_code=400, detail="JSON 본문이 필요합니다.")
+    texts = body.get('texts') if isinstance(body, dict) else None
+    if not isinstance(texts, list):
+        raise HTTPException(status_code=400, detail="texts 목록이 필요합니다.")
+    print(f'요약 요청: {len(texts)}건')
+    return JSONResponse(content={"summaries": [summarize_text(text) for text in texts]}, status_code=200)
+
 if __name__ == '__main__':
     import uvicorn
     uvicorn.run(app, host="0.0.0.0", port=5000, log_level="info")
@@ -0,0 +1,66 @@
+package com.demo.analytics;
+
+import com.demo.config.SttGrpcClientProperties;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// STT 엔진 옆에 띄운 요약 엔드포인트(POST /summarize)를 호출하는 기본 구현
+// 요청: {"texts": [...]}, 응답: {"summaries": [...]} (요청과 같은 순서)
+@Component
+public class HttpTextAnalyticsEngine implements TextAnalyticsEngine {
+
+    private final HttpClient httpClient;
+    private final URI url;
+    private final Duration timeout;
+
+    public HttpTextAnalyticsEngine(SttGrpcClientProperties properties) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.url = URI.create(properties.getAnalyticsUrl());
+        this.timeout = Duration.ofMillis(properties.getAnalyticsTimeoutMs());
+    }
+
+    @Override
+    public CompletableFuture<List<String>> summarize(List<String> conversations) {
+        JsonArray texts = new JsonArray();
+        conversations.forEach(texts::add);
+        JsonObject body = new JsonObject();
+        body.add("texts", texts);
+
+        HttpRequest request = HttpRequest.newBuilder(url)
+                .timeout(timeout)
+                .header("Content-Type", "application/json; charset=utf-8")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString(), StandardCharsets.UTF_8))
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new IllegalStateException("요약 엔진 응답 오류: HTTP " + response.statusCode());
+                    }
+                    JsonArray summaries = JsonParser.parseString(response.body()).getAsJsonObject().getAsJsonArray("summaries");
+                    if (summaries == null || summaries.size() != conversations.size()) {
+                        throw new IllegalStateException("요약 엔진 응답 개수 불일치: 요청 " + conversations.size() + "건");
+                    }
+                    List<String> result = new ArrayList<>(summaries.size());
+                    for (JsonElement summary : summaries) {
+                        result.add(summary.getAsString());
+                    }
+                    return result;
+                });
+    }
+}
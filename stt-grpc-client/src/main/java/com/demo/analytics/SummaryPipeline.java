@@ -0,0 +1,203 @@
+package com.demo.analytics;
+
+import com.demo.config.SttGrpcClientProperties;
+import com.demo.logging.LogSampler;
+import com.demo.solace.TopicPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 종료된 상담 대화를 요약해 crm/summary/{customerId}/{sessionId}로 발행하는 파이프라인 단계
+// 요청은 고정 크기 대기열에 넣고 바로 반환하며(Solace 수신 스레드를 막지 않음), 전용 워커가 여러 건을 모아 엔진을 한 번에 호출한다
+// 대기열이 가득 차면 요약을 건너뛴다 (최종 대화 /full 발행과 저장은 영향 없음)
+@Component
+public class SummaryPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(SummaryPipeline.class);
+
+    private final TextAnalyticsEngine engine;
+    private final TopicPublisher topicPublisher;
+    private final ArrayBlockingQueue<SummaryRequest> queue;
+    private final ExecutorService workers;
+    private final int batchMaxSize;
+    private final long batchWindowNanos;
+    private final long timeoutMs;
+    private volatile boolean running = true;
+
+    private final LogSampler rejectedLog = new LogSampler(1, TimeUnit.SECONDS);
+
+    private final Timer latency;
+    private final Timer engineLatency;
+    private final DistributionSummary batchSizes;
+    private final Counter rejected;
+    private final Counter failed;
+
+    public SummaryPipeline(TextAnalyticsEngine engine, TopicPublisher topicPublisher,
+                           SttGrpcClientProperties properties, MeterRegistry meterRegistry) {
+        this.engine = engine;
+        this.topicPublisher = topicPublisher;
+        this.queue = new ArrayBlockingQueue<>(properties.getAnalyticsQueueCapacity());
+        this.batchMaxSize = Math.max(1, properties.getAnalyticsBatchMaxSize());
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(properties.getAnalyticsBatchWindowMs());
+        this.timeoutMs = properties.getAnalyticsTimeoutMs();
+
+        Gauge.builder("stt.pipeline.queue.depth", queue, ArrayBlockingQueue::size)
+                .tag("stage", "summary")
+                .description("요약을 기다리는 상담 대화 수")
+                .register(meterRegistry);
+        this.latency = Timer.builder("stt.summary.latency")
+                .description("녹음 종료 후 요약 발행까지 걸린 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.engineLatency = Timer.builder("stt.summary.engine.latency")
+                .description("요약 엔진 호출 한 번(배치)의 응답 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("stt.summary.batch.size")
+                .description("엔진 호출 한 번에 묶은 대화 수")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("stt.summary.rejected")
+                .description("대기열이 가득 차 요약을 건너뛴 대화 수")
+                .register(meterRegistry);
+        this.failed = Counter.builder("stt.summary.failures")
+                .description("엔진 오류/시간 초과/발행 오류로 요약하지 못한 대화 수")
+                .register(meterRegistry);
+
+        int workerCount = Math.max(1, properties.getAnalyticsWorkers());
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread thread = new Thread(r, "summary-worker-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::runWorker);
+        }
+    }
+
+    // 대기열에 넣고 바로 반환, 가득 찼으면 false
+    public boolean submit(String customerId, String sessionId, String conversation) {
+        if (!queue.offer(new SummaryRequest(customerId, sessionId, conversation, System.nanoTime()))) {
+            rejected.increment();
+            long skipped = rejectedLog.tryAcquire();
+            if (skipped >= 0) {
+                log.warn("요약 대기열 가득 참 → 요약 생략: {}/{} (직전 생략 {}건)", customerId, sessionId, skipped);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    // 첫 요청이 오면 batchWindow 동안(또는 batchMaxSize개까지) 더 모아서 한 번에 요약
+    private void runWorker() {
+        List<SummaryRequest> batch = new ArrayList<>(batchMaxSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                SummaryRequest first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + batchWindowNanos;
+                while (batch.size() < batchMaxSize) {
+                    long wait = deadline - System.nanoTime();
+                    SummaryRequest next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                try {
+                    summarize(batch);
+                } catch (RuntimeException e) {
+                    // 워커가 끝나면 다시 시작되지 않으므로 배치 하나의 실패로 처리하고 계속
+                    failed.increment(batch.size());
+                    log.error("상담 요약 실패 ({}건)", batch.size(), e);
+                } finally {
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void summarize(List<SummaryRequest> batch) throws InterruptedException {
+        List<String> conversations = new ArrayList<>(batch.size());
+        for (SummaryRequest request : batch) {
+            conversations.add(request.conversation());
+        }
+        batchSizes.record(batch.size());
+
+        List<String> summaries;
+        long start = System.nanoTime();
+        try {
+            summaries = engine.summarize(conversations).get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            failed.increment(batch.size());
+            String reason = e instanceof ExecutionException ? e.getCause().getMessage() : "시간 초과 (" + timeoutMs + "ms)";
+            log.error("상담 요약 실패 ({}건): {}", batch.size(), reason);
+            return;
+        } finally {
+            engineLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        // 요약은 요청 순서대로 대응하므로 개수가 다르면 어느 대화의 요약인지 알 수 없음
+        if (summaries == null || summaries.size() != batch.size()) {
+            failed.increment(batch.size());
+            log.error("상담 요약 실패 ({}건): 엔진이 돌려준 요약 수 {}", batch.size(), summaries == null ? null : summaries.size());
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            SummaryRequest request = batch.get(i);
+            String summary = summaries.get(i);
+            String topic = "crm/summary/" + request.customerId() + "/" + request.sessionId();
+            try {
+                topicPublisher.publishAsync(topic, summary).whenComplete((unused, e) -> {
+                    if (e != null) {
+                        log.error("상담 요약 발행 실패: {} - {}", topic, e.getMessage());
+                    } else {
+                        latency.record(System.nanoTime() - request.enqueuedNanos(), TimeUnit.NANOSECONDS);
+                        log.debug("Solace로 상담 요약 전송 완료: {}", summary);
+                    }
+                });
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("상담 요약 발행 실패: {} - {}", topic, e.getMessage());
+            }
+        }
+    }
+
+    // 남은 요청을 처리한 뒤 종료
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(timeoutMs + 1000, TimeUnit.MILLISECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record SummaryRequest(String customerId, String sessionId, String conversation, long enqueuedNanos) {
+    }
+}
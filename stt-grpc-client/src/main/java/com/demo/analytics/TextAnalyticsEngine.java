@@ -0,0 +1,11 @@
+package com.demo.analytics;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// 상담 대화 요약(TA) 엔진 SPI
+// 여러 대화를 한 번에 받아 같은 순서의 요약 목록으로 완료한다 (구현체는 호출 스레드를 막지 않아야 함)
+public interface TextAnalyticsEngine {
+
+    CompletableFuture<List<String>> summarize(List<String> conversations);
+}
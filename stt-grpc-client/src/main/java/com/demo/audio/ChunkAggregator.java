@@ -0,0 +1,214 @@
+package com.demo.audio;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+// 세션 하나의 PCM(16비트 little-endian mono)을 재사용하는 direct 버퍼에 모았다가 gRPC 청크 하나로 내보내는 집계기
+// 내보내는 시점: 모은 길이가 목표 이상 / 첫 바이트가 maxLatencyMs 동안 대기 / 발화 뒤 쉼
+// 목표 길이는 minMs에서 시작해, 내보낼 때 세션의 gRPC 전송 대기 버퍼가 비어 있지 않으면 두 배로(최대 maxMs) 늘리고 비어 있으면 minMs씩 줄인다
+// 쉼이 시작되면 pauseFlushMs 동안은 프레임을 받는 즉시 내보내 서버 VAD가 발화 끝을 늦지 않게 판단하도록 한다
+public final class ChunkAggregator {
+
+    public enum FlushReason { TARGET, LATENCY, PAUSE, CLOSE }
+
+    public record Settings(int minMs, int maxMs, long maxLatencyMs, double pauseEnergyThreshold, int pauseFlushMs) {
+    }
+
+    // 내보낸 청크를 받는 쪽 (집계기 락을 잡은 채 호출되므로 순서가 보장됨)
+    public interface Sink {
+        void accept(ByteString chunk, FlushReason reason);
+    }
+
+    private final ReentrantLock lock = new ReentrantLock(); // 타이머 스레드와 WebSocket 수신 스레드가 함께 사용
+    private final int sampleRate;
+    private final int minMs;
+    private final int maxMs;
+    private final long maxLatencyMs;
+    private final double pauseEnergyThreshold;
+    private final int pauseFlushBytes;
+    private final ScheduledExecutorService scheduler;
+    private final Sink sink;
+    private final IntSupplier backlog;          // 세션의 gRPC 전송 대기 프레임 수
+    private final Consumer<ByteBuffer> release; // 닫을 때 버퍼 반환
+
+    private ByteBuffer buffer;
+    private int targetMs;
+    private long flushSeq;       // 내보낼 때마다 증가, 예약된 지연 flush가 이미 지난 버퍼를 건드리지 않도록 확인용
+    private boolean inSpeech;    // 직전 프레임이 발화였는지
+    private int pauseBytesLeft;  // 쉼 시작 후 즉시 내보낼 남은 바이트
+    private boolean closed;
+
+    public ChunkAggregator(ByteBuffer buffer, int sampleRate, Settings settings, ScheduledExecutorService scheduler,
+                           Sink sink, IntSupplier backlog, Consumer<ByteBuffer> release) {
+        this.buffer = buffer;
+        this.sampleRate = sampleRate;
+        this.minMs = settings.minMs();
+        this.maxMs = settings.maxMs();
+        this.maxLatencyMs = settings.maxLatencyMs();
+        this.pauseEnergyThreshold = settings.pauseEnergyThreshold();
+        this.pauseFlushBytes = bytesFor(settings.pauseFlushMs());
+        this.scheduler = scheduler;
+        this.sink = sink;
+        this.backlog = backlog;
+        this.release = release;
+        this.targetMs = minMs;
+    }
+
+    // 프레임을 버퍼에 복사하고, 조건이 되면 내보낸다 (버퍼보다 큰 프레임은 모인 것을 먼저 내보낸 뒤 복사 없이 그대로 전달)
+    public void append(byte[] pcm) {
+        if (pcm.length == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            boolean speech = rms(pcm) >= pauseEnergyThreshold;
+            if (pcm.length > buffer.capacity()) {
+                flushLocked(FlushReason.TARGET);
+                sink.accept(UnsafeByteOperations.unsafeWrap(pcm), FlushReason.TARGET);
+                inSpeech = speech;
+                pauseBytesLeft = 0;
+                return;
+            }
+            if (pcm.length > buffer.remaining()) {
+                flushLocked(FlushReason.TARGET);
+            }
+            if (buffer.position() == 0) {
+                scheduleLatencyFlush();
+            }
+            buffer.put(pcm);
+
+            if (speech) {
+                inSpeech = true;
+                pauseBytesLeft = 0;
+            } else if (inSpeech) {
+                inSpeech = false;
+                pauseBytesLeft = pauseFlushBytes; // 발화 뒤 첫 무음 프레임: 쉼 시작
+            }
+            if (!speech && pauseBytesLeft > 0) {
+                pauseBytesLeft -= pcm.length;
+                flushLocked(FlushReason.PAUSE);
+            } else if (buffer.position() >= bytesFor(targetMs)) {
+                flushLocked(FlushReason.TARGET);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 남은 음성을 내보내고 버퍼 반환 (이후 append는 무시)
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            flushLocked(FlushReason.CLOSE);
+            closeLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 스트림 오류 등으로 보낼 곳이 없을 때: 남은 음성은 버리고 버퍼만 반환
+    public void discard() {
+        lock.lock();
+        try {
+            if (!closed) {
+                closeLocked();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getTargetMs() {
+        lock.lock();
+        try {
+            return targetMs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getBufferedBytes() {
+        lock.lock();
+        try {
+            return closed ? 0 : buffer.position();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeLocked() {
+        closed = true;
+        buffer.clear();
+        release.accept(buffer);
+        buffer = null;
+    }
+
+    // 첫 바이트가 들어온 시점부터 maxLatencyMs 뒤에 아직 같은 버퍼면 내보냄 (취소 대신 flushSeq로 확인)
+    private void scheduleLatencyFlush() {
+        long seq = flushSeq;
+        scheduler.schedule(() -> {
+            lock.lock();
+            try {
+                if (!closed && flushSeq == seq) {
+                    flushLocked(FlushReason.LATENCY);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }, maxLatencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void flushLocked(FlushReason reason) {
+        if (buffer.position() == 0) {
+            return;
+        }
+        flushSeq++;
+        buffer.flip();
+        ByteString chunk = ByteString.copyFrom(buffer); // 버퍼는 재사용하므로 전송용으로 한 번 복사
+        buffer.clear();
+        sink.accept(chunk, reason);
+        if (reason == FlushReason.TARGET || reason == FlushReason.LATENCY) {
+            adjustTarget();
+        }
+    }
+
+    // 전송이 밀려 있으면 청크를 키워 메시지 수를 줄이고, 밀리지 않으면 지연을 줄이도록 천천히 되돌린다
+    private void adjustTarget() {
+        if (backlog.getAsInt() > 0) {
+            targetMs = Math.min(maxMs, targetMs * 2);
+        } else {
+            targetMs = Math.max(minMs, targetMs - minMs);
+        }
+    }
+
+    private int bytesFor(int ms) {
+        return (int) ((long) ms * sampleRate / 1000) * 2;
+    }
+
+    // 16비트 little-endian 샘플의 RMS
+    static double rms(byte[] pcm) {
+        int samples = pcm.length / 2;
+        if (samples == 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = 0; i < samples * 2; i += 2) {
+            int sample = (short) ((pcm[i] & 0xff) | (pcm[i + 1] << 8));
+            sum += (double) sample * sample;
+        }
+        return Math.sqrt(sum / samples);
+    }
+}
@@ -0,0 +1,83 @@
+package com.demo.audio;
+
+import com.demo.config.SttGrpcClientProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.IntSupplier;
+
+// 세션별 ChunkAggregator 생성 + 공용 자원 (direct 버퍼 풀, 지연 flush 타이머, 지표)
+// 목표 청크 길이는 세션마다 자기 gRPC 전송 대기 버퍼를 보고 조정한다 (ChunkAggregator 참고)
+@Component
+public class ChunkAggregatorFactory {
+
+    private final boolean enabled;
+    private final int maxMs;
+    private final ChunkAggregator.Settings settings;
+
+    private final Map<Integer, Queue<ByteBuffer>> bufferPool = new ConcurrentHashMap<>(); // 용량별 (세션 샘플레이트가 보통 하나라 키도 하나)
+    private final ScheduledExecutorService scheduler;
+    private final Map<ChunkAggregator.FlushReason, Counter> flushes = new EnumMap<>(ChunkAggregator.FlushReason.class);
+    private final DistributionSummary chunkBytes;
+
+    public ChunkAggregatorFactory(SttGrpcClientProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isAudioAggregationEnabled();
+        int minMs = Math.max(1, properties.getAudioAggregationMinMs());
+        this.maxMs = Math.max(minMs, properties.getAudioAggregationMaxMs());
+        this.settings = new ChunkAggregator.Settings(minMs, maxMs,
+                Math.max(1, properties.getAudioAggregationMaxLatencyMs()),
+                properties.getAudioAggregationPauseEnergyThreshold(),
+                properties.getAudioAggregationPauseFlushMs());
+
+        for (ChunkAggregator.FlushReason reason : ChunkAggregator.FlushReason.values()) {
+            flushes.put(reason, Counter.builder("stt.audio.aggregation.flushes")
+                    .tag("reason", reason.name())
+                    .description("집계한 음성을 gRPC 청크로 내보낸 횟수")
+                    .register(meterRegistry));
+        }
+        this.chunkBytes = DistributionSummary.builder("stt.audio.aggregation.chunk.bytes")
+                .description("집계 후 gRPC 청크 하나의 크기")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "audio-aggregation-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 집계를 껐으면 null (프레임마다 그대로 전송), backlog: 세션의 gRPC 전송 대기 프레임 수
+    public ChunkAggregator create(int sampleRate, ChunkAggregator.Sink sink, IntSupplier backlog) {
+        if (!enabled) {
+            return null;
+        }
+        int capacity = (int) ((long) maxMs * sampleRate / 1000) * 2;
+        Queue<ByteBuffer> pool = bufferPool.computeIfAbsent(capacity, c -> new ConcurrentLinkedQueue<>());
+        ByteBuffer buffer = pool.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(capacity);
+        }
+        return new ChunkAggregator(buffer, sampleRate, settings, scheduler, (chunk, reason) -> {
+            flushes.get(reason).increment();
+            chunkBytes.record(chunk.size());
+            sink.accept(chunk, reason);
+        }, backlog, pool::offer);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
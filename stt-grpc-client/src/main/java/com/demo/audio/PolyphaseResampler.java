@@ -0,0 +1,105 @@
+package com.demo.audio;
+
+// 16비트 little-endian mono PCM을 유리수 비율(L/M)로 변환하는 polyphase FIR 리샘플러 (예: 48kHz → 16kHz는 L=1, M=3)
+// 업샘플 → 저역통과 → 다운샘플을 실제로 수행하지 않고, 출력 샘플마다 필요한 위상의 필터 계수만 곱한다
+// 청크 경계에서 필터 상태(이전 입력 샘플)를 이어가므로 세션마다 하나씩 사용해야 하며 스레드 안전하지 않음
+public class PolyphaseResampler {
+
+    private static final int ZERO_CROSSINGS = 16; // 필터 길이 (차단 주파수 기준 한쪽 영점 개수)
+    private static final double ROLLOFF = 0.9;    // 출력 나이퀴스트 대비 차단 주파수 비율
+
+    private final int inputRate;
+    private final int outputRate;
+    private final int up;   // L
+    private final int down; // M
+    private final int tapsPerPhase;
+    private final float[][] phases; // phases[p][j] = h[p + L*j]
+
+    private float[] work;   // [직전 청크의 마지막 tapsPerPhase-1 샘플][이번 청크 샘플] (재사용)
+    private long nextTime;  // 다음 출력 샘플의 위치 (업샘플 도메인, 이번 청크 첫 샘플 기준)
+
+    public PolyphaseResampler(int inputRate, int outputRate) {
+        if (inputRate <= 0 || outputRate <= 0) {
+            throw new IllegalArgumentException("샘플레이트는 0보다 커야 합니다: " + inputRate + " → " + outputRate);
+        }
+        int gcd = gcd(inputRate, outputRate);
+        this.inputRate = inputRate;
+        this.outputRate = outputRate;
+        this.up = outputRate / gcd;
+        this.down = inputRate / gcd;
+
+        // 원형 필터: 업샘플 도메인에서 min(입력, 출력) 나이퀴스트로 제한하는 windowed-sinc (Blackman 창)
+        int factor = Math.max(up, down);
+        double cutoff = ROLLOFF * 0.5 / factor; // cycles/sample (업샘플 도메인)
+        this.tapsPerPhase = (2 * ZERO_CROSSINGS * factor + up - 1) / up;
+        int length = tapsPerPhase * up;
+        double center = (length - 1) / 2.0;
+        this.phases = new float[up][tapsPerPhase];
+        for (int k = 0; k < length; k++) {
+            double x = k - center;
+            double sinc = x == 0 ? 2 * cutoff : Math.sin(2 * Math.PI * cutoff * x) / (Math.PI * x);
+            double window = 0.42 - 0.5 * Math.cos(2 * Math.PI * k / (length - 1))
+                    + 0.08 * Math.cos(4 * Math.PI * k / (length - 1));
+            phases[k % up][k / up] = (float) (up * sinc * window);
+        }
+        this.work = new float[tapsPerPhase - 1 + 4096];
+    }
+
+    // 입력 PCM을 변환해 새 배열로 돌려준다 (출력은 세션 버퍼에 그대로 보관되므로 호출마다 새로 할당)
+    public byte[] process(byte[] pcm, int offset, int length) {
+        int history = tapsPerPhase - 1;
+        int samples = length / 2;
+        if (work.length < history + samples) {
+            float[] grown = new float[history + samples];
+            System.arraycopy(work, 0, grown, 0, history);
+            work = grown;
+        }
+        for (int i = 0; i < samples; i++) {
+            int index = offset + 2 * i;
+            work[history + i] = (short) ((pcm[index] & 0xff) | (pcm[index + 1] << 8));
+        }
+
+        long limit = (long) samples * up;
+        int outputSamples = nextTime >= limit ? 0 : (int) ((limit - nextTime + down - 1) / down);
+        byte[] output = new byte[outputSamples * 2];
+        for (int n = 0; n < outputSamples; n++) {
+            int inputIndex = history + (int) (nextTime / up);
+            float[] coefficients = phases[(int) (nextTime % up)];
+            float acc = 0;
+            for (int j = 0; j < tapsPerPhase; j++) {
+                acc += coefficients[j] * work[inputIndex - j];
+            }
+            int sample = Math.round(acc);
+            sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sample));
+            output[2 * n] = (byte) sample;
+            output[2 * n + 1] = (byte) (sample >> 8);
+            nextTime += down;
+        }
+
+        // 다음 청크를 위해 필터 길이만큼의 입력을 앞으로 옮긴다
+        nextTime -= limit;
+        System.arraycopy(work, samples, work, 0, history);
+        return output;
+    }
+
+    public byte[] process(byte[] pcm) {
+        return process(pcm, 0, pcm.length);
+    }
+
+    public int getInputRate() {
+        return inputRate;
+    }
+
+    public int getOutputRate() {
+        return outputRate;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
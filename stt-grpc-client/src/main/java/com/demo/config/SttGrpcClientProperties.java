@@ -0,0 +1,308 @@
+package com.demo.config;
+
+import com.demo.grpc.ChannelBalancing;
+import com.demo.grpc.OverloadPolicy;
+import com.solacesystems.jcsmp.DeliveryMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class SttGrpcClientProperties {
+
+    @Value("${stt.grpc.targets:localhost:50051}")
+    private List<String> grpcTargets; // STT gRPC 서버 목록 (쉼표로 구분, "host:port" 또는 "dns:///name:port")
+
+    @Value("${stt.grpc.connections-per-target:2}")
+    private int grpcConnectionsPerTarget; // 대상마다 만드는 채널(HTTP/2 연결) 수
+
+    @Value("${stt.grpc.balancing:LEAST_LOADED}")
+    private ChannelBalancing grpcBalancing; // 새 세션 스트림을 열 채널 선택 방식
+
+    @Value("${stt.grpc.load-balancing-policy:round_robin}")
+    private String grpcLoadBalancingPolicy; // 한 대상 이름이 여러 주소로 풀릴 때 채널 안에서 쓰는 gRPC LB 정책
+
+    @Value("${stt.grpc.keepalive-time-ms:30000}")
+    private long grpcKeepAliveTimeMs; // 서버의 grpc.server.permit-keepalive-time-ms 이상이어야 함
+
+    @Value("${stt.grpc.keepalive-timeout-ms:10000}")
+    private long grpcKeepAliveTimeoutMs;
+
+    @Value("${stt.stream.buffer-capacity:32}")
+    private int streamBufferCapacity; // 세션별 gRPC 전송 대기 버퍼 크기 (프레임 수)
+
+    @Value("${stt.stream.overload-policy:DROP_OLDEST}")
+    private OverloadPolicy overloadPolicy; // 버퍼가 가득 찼을 때의 처리 방식
+
+    @Value("${stt.stream.coalesce-max-bytes:1048576}")
+    private int coalesceMaxBytes; // COALESCE 정책에서 하나로 합칠 수 있는 최대 프레임 크기
+
+    @Value("${stt.audio.default-input-sample-rate:48000}")
+    private int audioDefaultInputSampleRate; // 브라우저가 auth에 샘플레이트를 보내지 않았을 때 사용
+
+    @Value("${stt.audio.target-sample-rate:16000}")
+    private int audioTargetSampleRate; // gRPC로 보낼 샘플레이트 (0이면 입력 그대로 전송)
+
+    @Value("${stt.audio.aggregation.enabled:true}")
+    private boolean audioAggregationEnabled; // 작은 프레임을 세션별로 모아 gRPC 청크 하나로 전송
+
+    @Value("${stt.audio.aggregation.min-ms:40}")
+    private int audioAggregationMinMs; // 목표 청크 길이 시작값/하한 (전송이 밀리지 않으면 이 길이로 돌아옴)
+
+    @Value("${stt.audio.aggregation.max-ms:240}")
+    private int audioAggregationMaxMs; // 목표 청크 길이 상한 (세션 버퍼 크기, 서버 vad.idle-flush-ms보다 짧게)
+
+    @Value("${stt.audio.aggregation.max-latency-ms:250}")
+    private long audioAggregationMaxLatencyMs; // 첫 바이트가 버퍼에서 기다리는 최대 시간
+
+    @Value("${stt.audio.aggregation.pause-energy-threshold:600}")
+    private double audioAggregationPauseEnergyThreshold; // 이 RMS 미만 프레임은 쉼으로 판단
+
+    @Value("${stt.audio.aggregation.pause-flush-ms:400}")
+    private int audioAggregationPauseFlushMs; // 쉼이 시작된 뒤 프레임을 모으지 않고 바로 보내는 구간
+
+    @Value("${stt.websocket.outbound-queue-capacity:256}")
+    private int webSocketOutboundQueueCapacity; // 브라우저 연결별 전송 대기 메시지 수 상한 (넘으면 느린 연결로 보고 종료)
+
+    @Value("${stt.websocket.send-timeout-ms:10000}")
+    private long webSocketSendTimeoutMs; // 비동기 전송 하나가 끝나기까지 기다리는 최대 시간 (넘으면 연결 종료)
+
+    @Value("${stt.transcript.reorder-window:64}")
+    private int transcriptReorderWindow; // 순서가 뒤바뀐 chunkId를 기다려 주는 범위 (넘어서면 빠진 번호는 유실 처리)
+
+    @Value("${stt.transcript.idle-ttl-ms:600000}")
+    private long transcriptIdleTtlMs; // 마지막 조각 후 이 시간 동안 stop이 없으면 세션 제거
+
+    @Value("${stt.transcript.max-sessions:10000}")
+    private int transcriptMaxSessions; // 동시에 조립하는 세션 수 상한 (넘으면 오래된 세션부터 제거)
+
+    @Value("${stt.transcript.max-bytes:67108864}")
+    private long transcriptMaxBytes; // 조립 중인 대화 전체의 추정 메모리 상한
+
+    @Value("${stt.transcript.sweep-interval-ms:30000}")
+    private long transcriptSweepIntervalMs; // TTL 검사 주기
+
+    @Value("${stt.analytics.url:http://localhost:5000/summarize}")
+    private String analyticsUrl; // 상담 요약(TA) 엔진 주소
+
+    @Value("${stt.analytics.timeout-ms:30000}")
+    private long analyticsTimeoutMs; // 요약 엔진 호출 한 번(배치)의 최대 대기 시간
+
+    @Value("${stt.analytics.workers:2}")
+    private int analyticsWorkers; // 동시에 진행하는 요약 엔진 호출 수
+
+    @Value("${stt.analytics.queue-capacity:1000}")
+    private int analyticsQueueCapacity; // 요약 대기 대화 수 상한 (넘으면 요약 생략)
+
+    @Value("${stt.analytics.batch-max-size:8}")
+    private int analyticsBatchMaxSize; // 엔진 호출 한 번에 묶는 최대 대화 수
+
+    @Value("${stt.analytics.batch-window-ms:200}")
+    private long analyticsBatchWindowMs; // 첫 대화 이후 더 모으는 최대 대기 시간
+
+    @Value("${stt.store.queue-capacity:10000}")
+    private int storeQueueCapacity; // DB 저장 대기 기록 수 상한 (넘으면 버리고 stt.store.dropped로 집계)
+
+    @Value("${stt.store.batch-size:200}")
+    private int storeBatchSize; // batch insert 한 번에 묶는 최대 기록 수
+
+    @Value("${stt.store.flush-interval-ms:200}")
+    private long storeFlushIntervalMs; // 기록이 없을 때 대기열을 다시 확인하는 주기
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled; // JDK 21에서 Tomcat과 함께 세션 레인/gRPC/Solace 발행 경로도 가상 스레드 사용
+
+    @Value("${stt.lanes.count:0}")
+    private int laneCount; // 세션 레인(단일 스레드) 수, 0이면 CPU 코어 수
+
+    @Value("${stt.lanes.queue-capacity:1000}")
+    private int laneQueueCapacity; // 레인별 대기 작업 수 상한 (가득 차면 새 작업을 버림)
+
+    @Value("${solace.publisher.pool-size:2}")
+    private int solacePublisherPoolSize; // 연결을 유지하는 Solace 발행 세션 수
+
+    @Value("${solace.publisher.delivery-mode:DIRECT}")
+    private DeliveryMode solaceDeliveryMode; // DIRECT 또는 PERSISTENT (PERSISTENT는 브로커 ack 시 완료)
+
+    @Value("${solace.publisher.queue-capacity:10000}")
+    private int solacePublisherQueueCapacity; // producer별 전송 스레드의 대기 작업 수 상한 (초과 시 발행 실패)
+
+    @Value("${solace.publisher.batch.enabled:false}")
+    private boolean solaceBatchEnabled; // true면 여러 메시지를 모아 sendMultiple로 전송
+
+    @Value("${solace.publisher.batch.window-ms:20}")
+    private long solaceBatchWindowMs; // 배치를 모으는 최대 대기 시간
+
+    @Value("${solace.publisher.batch.max-messages:64}")
+    private int solaceBatchMaxMessages; // 이 개수가 모이면 대기 시간과 상관없이 바로 전송
+
+    public List<String> getGrpcTargets() {
+        return grpcTargets;
+    }
+
+    public int getGrpcConnectionsPerTarget() {
+        return grpcConnectionsPerTarget;
+    }
+
+    public ChannelBalancing getGrpcBalancing() {
+        return grpcBalancing;
+    }
+
+    public String getGrpcLoadBalancingPolicy() {
+        return grpcLoadBalancingPolicy;
+    }
+
+    public long getGrpcKeepAliveTimeMs() {
+        return grpcKeepAliveTimeMs;
+    }
+
+    public long getGrpcKeepAliveTimeoutMs() {
+        return grpcKeepAliveTimeoutMs;
+    }
+
+    public int getStreamBufferCapacity() {
+        return streamBufferCapacity;
+    }
+
+    public OverloadPolicy getOverloadPolicy() {
+        return overloadPolicy;
+    }
+
+    public int getCoalesceMaxBytes() {
+        return coalesceMaxBytes;
+    }
+
+    public int getAudioDefaultInputSampleRate() {
+        return audioDefaultInputSampleRate;
+    }
+
+    public int getAudioTargetSampleRate() {
+        return audioTargetSampleRate;
+    }
+
+    public boolean isAudioAggregationEnabled() {
+        return audioAggregationEnabled;
+    }
+
+    public int getAudioAggregationMinMs() {
+        return audioAggregationMinMs;
+    }
+
+    public int getAudioAggregationMaxMs() {
+        return audioAggregationMaxMs;
+    }
+
+    public long getAudioAggregationMaxLatencyMs() {
+        return audioAggregationMaxLatencyMs;
+    }
+
+    public double getAudioAggregationPauseEnergyThreshold() {
+        return audioAggregationPauseEnergyThreshold;
+    }
+
+    public int getAudioAggregationPauseFlushMs() {
+        return audioAggregationPauseFlushMs;
+    }
+
+    public int getWebSocketOutboundQueueCapacity() {
+        return webSocketOutboundQueueCapacity;
+    }
+
+    public long getWebSocketSendTimeoutMs() {
+        return webSocketSendTimeoutMs;
+    }
+
+    public int getTranscriptReorderWindow() {
+        return transcriptReorderWindow;
+    }
+
+    public long getTranscriptIdleTtlMs() {
+        return transcriptIdleTtlMs;
+    }
+
+    public int getTranscriptMaxSessions() {
+        return transcriptMaxSessions;
+    }
+
+    public long getTranscriptMaxBytes() {
+        return transcriptMaxBytes;
+    }
+
+    public long getTranscriptSweepIntervalMs() {
+        return transcriptSweepIntervalMs;
+    }
+
+    public String getAnalyticsUrl() {
+        return analyticsUrl;
+    }
+
+    public long getAnalyticsTimeoutMs() {
+        return analyticsTimeoutMs;
+    }
+
+    public int getAnalyticsWorkers() {
+        return analyticsWorkers;
+    }
+
+    public int getAnalyticsQueueCapacity() {
+        return analyticsQueueCapacity;
+    }
+
+    public int getAnalyticsBatchMaxSize() {
+        return analyticsBatchMaxSize;
+    }
+
+    public long getAnalyticsBatchWindowMs() {
+        return analyticsBatchWindowMs;
+    }
+
+    public int getStoreQueueCapacity() {
+        return storeQueueCapacity;
+    }
+
+    public int getStoreBatchSize() {
+        return storeBatchSize;
+    }
+
+    public long getStoreFlushIntervalMs() {
+        return storeFlushIntervalMs;
+    }
+
+    public boolean isVirtualThreadsEnabled() {
+        return virtualThreadsEnabled;
+    }
+
+    public int getLaneCount() {
+        return laneCount;
+    }
+
+    public int getLaneQueueCapacity() {
+        return laneQueueCapacity;
+    }
+
+    public int getSolacePublisherPoolSize() {
+        return solacePublisherPoolSize;
+    }
+
+    public DeliveryMode getSolaceDeliveryMode() {
+        return solaceDeliveryMode;
+    }
+
+    public int getSolacePublisherQueueCapacity() {
+        return solacePublisherQueueCapacity;
+    }
+
+    public boolean isSolaceBatchEnabled() {
+        return solaceBatchEnabled;
+    }
+
+    public long getSolaceBatchWindowMs() {
+        return solaceBatchWindowMs;
+    }
+
+    public int getSolaceBatchMaxMessages() {
+        return solaceBatchMaxMessages;
+    }
+
+}
@@ -0,0 +1,250 @@
+package com.demo.executor;
+
+import com.demo.config.SttGrpcClientProperties;
+import com.demo.logging.LogSampler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 세션 ID를 해시해 N개의 단일 스레드 레인 중 하나에서 실행하는 실행기
+// 같은 세션의 작업은 항상 같은 레인에서 제출 순서대로 실행되고(세션별 순서 보장), 세션끼리는 레인 수만큼 병렬로 처리된다
+// 레인 대기열이 가득 차면 새 작업을 버리고 센다 (제출 스레드는 gRPC 응답 콜백이라 기다리게 하면 같은 채널의 모든 세션이 멈춤)
+// 단, executeRequired로 낸 작업(녹음 종료 메시지)은 버리지 않고 overflow 스레드가 자리가 날 때까지 기다렸다가 같은 레인에 넣는다
+//
+// 가상 스레드 모드(JDK 21)에서는 레인 대신 세션마다 직렬 대기열을 두고 가상 스레드에서 실행한다
+// (한 세션의 블로킹 작업이 같은 레인의 다른 세션을 막지 않음, 세션 결과 수는 STT 처리량으로 제한되므로 대기열 상한 없음)
+@Component
+public class SessionLaneExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionLaneExecutor.class);
+
+    private final ThreadPoolExecutor[] lanes;                      // 플랫폼 스레드 모드
+    private final ExecutorService virtualExecutor;                 // 가상 스레드 모드
+    private final ExecutorService overflow;                        // 플랫폼 스레드 모드: 가득 찬 레인에 필수 작업을 넣으려고 기다리는 스레드
+    private final ConcurrentHashMap<String, SerialQueue> serialQueues = new ConcurrentHashMap<>();
+    private final AtomicInteger serialQueued = new AtomicInteger();
+    private final Counter rejected;
+    private final LogSampler rejectedLog = new LogSampler(1, TimeUnit.SECONDS);
+
+    public SessionLaneExecutor(SttGrpcClientProperties properties, MeterRegistry meterRegistry) {
+        this.rejected = Counter.builder("stt.pipeline.lane.rejected")
+                .description("레인 대기열이 가득 찼거나 종료 중이라 버린 작업 수")
+                .register(meterRegistry);
+        if (VirtualThreads.resolve(properties.isVirtualThreadsEnabled())) {
+            this.lanes = null;
+            this.overflow = null;
+            this.virtualExecutor = VirtualThreads.newThreadPerTaskExecutor("session-lane-");
+        } else {
+            int laneCount = properties.getLaneCount() > 0
+                    ? properties.getLaneCount()
+                    : Runtime.getRuntime().availableProcessors();
+            this.virtualExecutor = null;
+            this.lanes = new ThreadPoolExecutor[laneCount];
+            for (int i = 0; i < laneCount; i++) {
+                String threadName = "session-lane-" + i;
+                lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(properties.getLaneQueueCapacity()),
+                        r -> new Thread(r, threadName),
+                        this::reject);
+            }
+            this.overflow = Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "session-lane-overflow");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        Gauge.builder("stt.pipeline.queue.depth", this, SessionLaneExecutor::queuedTasks)
+                .tag("stage", "session-lane")
+                .description("세션 레인에서 실행을 기다리는 작업 수 (STT 결과 전달, 녹음 종료 처리)")
+                .register(meterRegistry);
+    }
+
+    public void execute(String sessionId, Runnable task) {
+        Runnable guarded = guard(sessionId, task);
+        if (lanes != null) {
+            laneFor(sessionId).execute(guarded);
+            return;
+        }
+        // 비어서 제거되는 중인 대기열을 잡았으면 새로 만들어 다시 시도
+        while (!serialQueues.computeIfAbsent(sessionId, SerialQueue::new).offer(guarded)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    // 버리면 안 되는 작업: 레인이 가득 차도 제출 스레드를 막지 않고, 앞서 낸 같은 세션 작업 뒤에 실행한다
+    // (가상 스레드 모드의 세션 대기열은 상한이 없으므로 execute와 같음)
+    public void executeRequired(String sessionId, Runnable task) {
+        if (lanes == null) {
+            execute(sessionId, task);
+            return;
+        }
+        laneFor(sessionId).execute(new RequiredTask(guard(sessionId, task)));
+    }
+
+    private static Runnable guard(String sessionId, Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                // 예외로 레인 스레드가 교체되지 않도록 여기서 처리
+                log.error("세션 레인 작업 실패 ({})", sessionId, e);
+            }
+        };
+    }
+
+    int laneIndex(String sessionId) {
+        int h = sessionId.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), lanes.length);
+    }
+
+    private ThreadPoolExecutor laneFor(String sessionId) {
+        return lanes[laneIndex(sessionId)];
+    }
+
+    public int getLaneCount() {
+        return lanes != null ? lanes.length : 0;
+    }
+
+    private int queuedTasks() {
+        if (lanes == null) {
+            return serialQueued.get();
+        }
+        int queued = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            queued += lane.getQueue().size();
+        }
+        return queued;
+    }
+
+    // 제출 스레드를 막지 않고 버림 (레인 하나가 느려도 다른 세션의 결과 전달은 계속됨)
+    private void reject(Runnable task, ThreadPoolExecutor lane) {
+        if (task instanceof RequiredTask) {
+            runRequired(task, lane);
+            return;
+        }
+        rejected.increment();
+        long skipped = rejectedLog.tryAcquire();
+        if (skipped >= 0) {
+            log.warn("세션 레인 {}, 작업을 버림 (직전 생략 {}건)", lane.isShutdown() ? "종료됨" : "대기열 가득 참", skipped);
+        }
+    }
+
+    // 대기열이 가득 찼으면 overflow 스레드가 자리가 날 때까지 기다렸다가 레인 대기열 끝에 넣고(레인 스레드는 항상 살아 있음),
+    // 레인이 종료 중이면 제출 스레드에서 바로 실행
+    private void runRequired(Runnable task, ThreadPoolExecutor lane) {
+        if (lane.isShutdown() || overflow.isShutdown()) {
+            task.run();
+            return;
+        }
+        log.debug("세션 레인 대기열 가득 참, 필수 작업을 overflow 스레드에서 대기");
+        overflow.execute(() -> {
+            try {
+                lane.getQueue().put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                task.run();
+                return;
+            }
+            // 넣는 사이 레인이 종료 중이 됐으면 레인 스레드가 이미 끝났을 수 있으므로, 아직 대기열에 있으면 꺼내서 직접 실행
+            if (lane.isShutdown() && lane.getQueue().remove(task)) {
+                task.run();
+            }
+        });
+    }
+
+    public long getRejectedTasks() {
+        return (long) rejected.count();
+    }
+
+    // 남은 작업(녹음 종료 메시지 등)을 처리한 뒤 종료
+    @PreDestroy
+    public void shutdown() {
+        if (virtualExecutor != null) {
+            virtualExecutor.shutdown();
+        } else {
+            overflow.shutdown(); // 이미 기다리는 필수 작업은 레인에 넣은 뒤 끝남
+            for (ThreadPoolExecutor lane : lanes) {
+                lane.shutdown();
+            }
+        }
+        try {
+            if (virtualExecutor != null) {
+                virtualExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            } else {
+                for (ThreadPoolExecutor lane : lanes) {
+                    if (!lane.awaitTermination(5, TimeUnit.SECONDS)) {
+                        lane.shutdownNow();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("세션 레인 실행기 종료됨");
+    }
+
+    // executeRequired로 낸 작업 표시 (거부 처리기에서 버리지 않도록)
+    private record RequiredTask(Runnable task) implements Runnable {
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+
+    // 가상 스레드 모드의 세션별 직렬 대기열: 실행 중인 가상 스레드가 하나뿐이도록 보장하고, 비면 맵에서 제거
+    private final class SerialQueue {
+
+        private final String sessionId;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean running;
+        private boolean retired;
+
+        SerialQueue(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        synchronized boolean offer(Runnable task) {
+            if (retired) {
+                return false;
+            }
+            tasks.addLast(task);
+            serialQueued.incrementAndGet();
+            if (!running) {
+                running = true;
+                virtualExecutor.execute(this::drain);
+            }
+            return true;
+        }
+
+        private void drain() {
+            while (true) {
+                Runnable task;
+                synchronized (this) {
+                    task = tasks.pollFirst();
+                    if (task == null) {
+                        running = false;
+                        retired = true;
+                        serialQueues.remove(sessionId, this);
+                        return;
+                    }
+                }
+                serialQueued.decrementAndGet();
+                task.run(); // 락 밖에서 실행 (블로킹 작업 중 가상 스레드 고정 방지)
+            }
+        }
+    }
+}
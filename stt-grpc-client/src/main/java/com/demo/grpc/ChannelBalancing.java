@@ -0,0 +1,7 @@
+package com.demo.grpc;
+
+// 새 세션 스트림을 채널 풀의 어느 채널로 열지 정하는 방식
+public enum ChannelBalancing {
+    LEAST_LOADED, // 열린 스트림이 가장 적은 채널
+    ROUND_ROBIN   // 채널을 차례로 사용
+}
@@ -0,0 +1,10 @@
+package com.demo.grpc;
+
+// 세션 스트림이 과부하/회복 상태가 될 때 음성 송신측(브라우저)에 알리기 위한 콜백
+public interface FlowControlListener {
+
+    void onPause();
+
+    void onResume();
+
+}
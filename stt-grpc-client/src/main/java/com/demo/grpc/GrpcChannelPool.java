@@ -0,0 +1,127 @@
+package com.demo.grpc;
+
+import com.demo.config.SttGrpcClientProperties;
+import com.demo.executor.VirtualThreads;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// STT gRPC 서버 채널 풀
+// targets의 대상마다 connections-per-target개의 채널(각각 별도 HTTP/2 연결)을 만들어, 연결 하나의 동시 스트림 한도에 묶이지 않게 한다
+// 대상은 gRPC 타깃 문자열: "host:port"(기본 DNS 리졸버) 또는 "dns:///stt-server:50051"처럼 여러 주소로 풀리는 이름도 가능하며,
+// 한 채널 안에서는 load-balancing-policy(기본 round_robin)로 리졸버가 돌려준 서버들에 새 호출을 나눈다
+// 스트림 하나는 연 채널/서버에 끝까지 고정되고, 같은 세션이 스트림을 다시 열면(오류 후 재연결) 같은 채널을 다시 쓴다
+@Component
+public class GrpcChannelPool {
+
+    private static final Logger log = LoggerFactory.getLogger(GrpcChannelPool.class);
+
+    private final List<PooledChannel> channels = new ArrayList<>();
+    private final ChannelBalancing balancing;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ConcurrentHashMap<String, PooledChannel> affinity = new ConcurrentHashMap<>(); // 세션 → 채널
+
+    public GrpcChannelPool(SttGrpcClientProperties properties, MeterRegistry meterRegistry) {
+        this.balancing = properties.getGrpcBalancing();
+        Executor executor = VirtualThreads.resolve(properties.isVirtualThreadsEnabled())
+                ? VirtualThreads.newThreadPerTaskExecutor("grpc-client-") // 응답 콜백을 가상 스레드에서 실행
+                : null;
+        int connectionsPerTarget = Math.max(1, properties.getGrpcConnectionsPerTarget());
+        for (String target : properties.getGrpcTargets()) {
+            for (int i = 0; i < connectionsPerTarget; i++) {
+                ManagedChannelBuilder<?> channelBuilder = ManagedChannelBuilder.forTarget(target.trim())
+                        .usePlaintext()
+                        .defaultLoadBalancingPolicy(properties.getGrpcLoadBalancingPolicy())
+                        .keepAliveTime(properties.getGrpcKeepAliveTimeMs(), TimeUnit.MILLISECONDS) // 유휴 연결/죽은 서버를 빨리 감지
+                        .keepAliveTimeout(properties.getGrpcKeepAliveTimeoutMs(), TimeUnit.MILLISECONDS)
+                        .keepAliveWithoutCalls(false);
+                if (executor != null) {
+                    channelBuilder.executor(executor);
+                }
+                PooledChannel pooled = new PooledChannel(target.trim() + "#" + i, channelBuilder.build());
+                channels.add(pooled);
+                Gauge.builder("stt.grpc.channel.streams", pooled, PooledChannel::getActiveStreams)
+                        .tag("channel", pooled.getName())
+                        .description("채널별 열린 세션 스트림 수")
+                        .register(meterRegistry);
+            }
+        }
+        if (channels.isEmpty()) {
+            throw new IllegalStateException("stt.grpc.targets가 비어 있습니다");
+        }
+        log.info("gRPC 채널 풀 생성: {}개 ({})", channels.size(), balancing);
+    }
+
+    // 세션 스트림을 열 채널 (스트림이 끝나면 PooledChannel.release 호출)
+    PooledChannel acquire(String sessionId) {
+        PooledChannel pooled = affinity.compute(sessionId, (id, current) ->
+                current != null && current.isUsable() ? current : select());
+        pooled.retain();
+        return pooled;
+    }
+
+    // 세션 종료 시 채널 고정 해제
+    void forget(String sessionId) {
+        affinity.remove(sessionId);
+    }
+
+    // 연결 실패 상태인 채널은 건너뛰고(모두 실패 상태면 전체에서) 방식에 따라 선택
+    private PooledChannel select() {
+        int size = channels.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        PooledChannel best = null;
+        for (boolean usableOnly : new boolean[]{true, false}) {
+            for (int i = 0; i < size; i++) {
+                PooledChannel candidate = channels.get((start + i) % size);
+                if (usableOnly && !candidate.isUsable()) {
+                    continue;
+                }
+                if (balancing == ChannelBalancing.ROUND_ROBIN) {
+                    return candidate;
+                }
+                if (best == null || candidate.getActiveStreams() < best.getActiveStreams()) {
+                    best = candidate;
+                }
+            }
+            if (best != null) {
+                return best;
+            }
+        }
+        return channels.get(start);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("gRPC 클라이언트 연결 종료 중...");
+        for (PooledChannel pooled : channels) {
+            pooled.getChannel().shutdown(); // gRPC 채널 종료
+        }
+        try {
+            for (PooledChannel pooled : channels) {
+                ManagedChannel channel = pooled.getChannel();
+                if (!channel.awaitTermination(5, TimeUnit.SECONDS)) {
+                    log.warn("강제 종료 실행: {}", pooled.getName());
+                    channel.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (PooledChannel pooled : channels) {
+                pooled.getChannel().shutdownNow();
+            }
+        }
+        log.info("gRPC 연결 종료 완료");
+    }
+}
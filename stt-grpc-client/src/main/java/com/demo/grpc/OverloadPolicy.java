@@ -0,0 +1,8 @@
+package com.demo.grpc;
+
+// 세션 전송 버퍼가 가득 찼을 때의 처리 방식
+public enum OverloadPolicy {
+    DROP_OLDEST, // 가장 오래된 음성 프레임을 버림
+    COALESCE,    // 새 프레임을 마지막 대기 프레임에 이어 붙여 메시지 수를 늘리지 않음
+    PAUSE        // 브라우저에 pause 메시지를 보내 전송을 멈추게 함
+}
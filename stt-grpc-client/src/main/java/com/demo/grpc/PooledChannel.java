@@ -0,0 +1,53 @@
+package com.demo.grpc;
+
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import stt.SpeechToTextServiceGrpc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 채널 풀의 채널 하나 (별도 HTTP/2 연결)와 그 위에 열린 세션 스트림 수
+final class PooledChannel {
+
+    private final String name;
+    private final ManagedChannel channel;
+    private final SpeechToTextServiceGrpc.SpeechToTextServiceStub stub;
+    private final AtomicInteger activeStreams = new AtomicInteger();
+
+    PooledChannel(String name, ManagedChannel channel) {
+        this.name = name;
+        this.channel = channel;
+        this.stub = SpeechToTextServiceGrpc.newStub(channel);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    ManagedChannel getChannel() {
+        return channel;
+    }
+
+    SpeechToTextServiceGrpc.SpeechToTextServiceStub getStub() {
+        return stub;
+    }
+
+    int getActiveStreams() {
+        return activeStreams.get();
+    }
+
+    // 연결 실패 상태(재연결 대기 중)가 아니면 새 스트림을 열 수 있다고 본다 (IDLE은 첫 호출 때 연결)
+    boolean isUsable() {
+        ConnectivityState state = channel.getState(false);
+        return state != ConnectivityState.TRANSIENT_FAILURE && state != ConnectivityState.SHUTDOWN;
+    }
+
+    void retain() {
+        activeStreams.incrementAndGet();
+    }
+
+    // 스트림이 끝나면(onCompleted/onError) 한 번 호출
+    void release() {
+        activeStreams.decrementAndGet();
+    }
+}
@@ -1,131 +1,337 @@
 package com.demo.grpc;
 
+import com.demo.audio.ChunkAggregatorFactory;
+import com.demo.audio.PolyphaseResampler;
+import com.demo.config.SttGrpcClientProperties;
+import com.demo.executor.SessionLaneExecutor;
+import com.demo.logging.LogSampler;
 import com.demo.solace.TopicPublisher;
+import com.demo.solace.TranscriptEvents;
 import com.demo.websocket.AudioWebSocketServer;
-import io.grpc.ManagedChannel;
-import io.grpc.ManagedChannelBuilder;
-import io.grpc.stub.StreamObserver;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import stt.SpeechToTextServiceGrpc;
+import stt.AudioFormat;
 import stt.SpeechResponse;
 import stt.SpeechChunk;
+import stt.TranscriptEvent;
 
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class SttGrpcClient {
 
+    private static final Logger log = LoggerFactory.getLogger(SttGrpcClient.class);
+
     private final TopicPublisher topicPublisher;
+    private final SttGrpcClientProperties properties;
+    private final SessionLaneExecutor sessionLanes;
+    private final ChunkAggregatorFactory aggregatorFactory;
+    private final Counter droppedFrames;
+    private final Counter recognitionFailures;
+    private final Counter interimResults;
+    private final Timer roundTrip;
+    private final Timer endToEnd;
+    private final LogSampler publishFailureLog = new LogSampler(1, TimeUnit.SECONDS);
 
-    private static final int MAX_ATTEMPT_COUNT = 100;
-    private final ManagedChannel channel;
-    private final SpeechToTextServiceGrpc.SpeechToTextServiceStub asyncStub;
-    private static int failCount;
-    private static final ConcurrentHashMap<String, AtomicInteger> chunkCounters = new ConcurrentHashMap<>(); // 세션별 chunkId 관리
+    private final GrpcChannelPool channelPool;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, SttStreamSession> streams = new ConcurrentHashMap<>(); // 세션별 gRPC 스트림
+    private final ConcurrentHashMap<String, SessionSettings> sessions = new ConcurrentHashMap<>(); // auth ~ stop/onClose 동안의 세션 설정
 
     @Autowired
-    public SttGrpcClient(TopicPublisher topicPublisher) {
+    public SttGrpcClient(TopicPublisher topicPublisher, SttGrpcClientProperties properties,
+                         SessionLaneExecutor sessionLanes, ChunkAggregatorFactory aggregatorFactory,
+                         GrpcChannelPool channelPool, MeterRegistry meterRegistry) {
         this.topicPublisher = topicPublisher;
-        // gRPC 서버 주소 설정 (localhost:50051)
-        this.channel = ManagedChannelBuilder.forAddress("localhost", 50051)
-                .usePlaintext()
-                .build();
-        this.asyncStub = SpeechToTextServiceGrpc.newStub(channel);
+        this.properties = properties;
+        this.sessionLanes = sessionLanes;
+        this.aggregatorFactory = aggregatorFactory;
+        this.meterRegistry = meterRegistry;
+        this.channelPool = channelPool; // gRPC 서버 주소/연결 수는 stt.grpc.* 설정
+
+        // 단계별 대기열 지표: gRPC 전송 대기 버퍼 (전체 세션 합계)
+        Gauge.builder("stt.pipeline.queue.depth", streams, s -> s.values().stream().mapToInt(SttStreamSession::getBufferedFrames).sum())
+                .tag("stage", "grpc-send")
+                .description("gRPC 전송 대기 중인 음성 프레임 수")
+                .register(meterRegistry);
+        Gauge.builder("stt.pipeline.queue.bytes", streams, s -> s.values().stream().mapToInt(SttStreamSession::getBufferedBytes).sum())
+                .tag("stage", "grpc-send")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("stt.pipeline.sessions.active", streams, Map::size)
+                .register(meterRegistry);
+        this.droppedFrames = Counter.builder("stt.pipeline.frames.dropped")
+                .tag("policy", properties.getOverloadPolicy().name())
+                .description("과부하로 버려진 음성 프레임 수")
+                .register(meterRegistry);
+        this.recognitionFailures = Counter.builder("stt.recognition.failures")
+                .description("STT 변환 실패로 돌아온 발화 수")
+                .register(meterRegistry);
+        this.interimResults = Counter.builder("stt.recognition.interim")
+                .description("브라우저로 보낸 중간 인식 결과 수 (Solace에는 최종 결과만 발행)")
+                .register(meterRegistry);
+        this.roundTrip = Timer.builder("stt.grpc.roundtrip")
+                .description("마지막 음성 전송부터 변환 결과 수신까지 (gRPC 왕복 + 서버 인식)")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.endToEnd = Timer.builder("stt.e2e.latency")
+                .description("마지막 브라우저 음성 수신부터 변환 결과를 브라우저 전송 대기열에 넣기까지")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
-    public void sendSingleAudioChunk(byte[] audioChunk, String customerId, String sessionId) throws InterruptedException {
-        System.out.println("gRPC 서버로 음성 데이터 전송 시작...");
-        final CountDownLatch finishLatch = new CountDownLatch(1);
-        chunkCounters.putIfAbsent(sessionId, new AtomicInteger(0)); // 새로운 세션이면 chunk 카운터 초기화
+    // auth 메시지 수신 시 세션 전용 양방향 스트림을 연다
+    public SttStreamSession openStream(String customerId, String sessionId, FlowControlListener flowControlListener) {
+        return openStream(customerId, sessionId, properties.getAudioDefaultInputSampleRate(), flowControlListener);
+    }
 
-        StreamObserver<SpeechResponse> responseObserver = new StreamObserver<>() {
+    // inputSampleRate: 브라우저 AudioContext 샘플레이트 (target-sample-rate와 다르면 세션별 리샘플러로 변환해 전송)
+    // 스트림을 처음 여는 곳은 auth뿐이고, 여기서 정한 설정은 오류 뒤 스트림을 다시 열 때도 그대로 쓴다
+    public SttStreamSession openStream(String customerId, String sessionId, int inputSampleRate, FlowControlListener flowControlListener) {
+        SessionSettings settings = new SessionSettings(customerId, inputSampleRate, flowControlListener);
+        sessions.put(sessionId, settings);
+        return streams.computeIfAbsent(sessionId, id -> newStream(id, settings));
+    }
 
-            @Override
-            public void onNext(SpeechResponse response) {
-                String sttText = response.getText();
-                System.out.println("실시간 STT 변환 결과: " + sttText);
+    // 세션 스트림 버퍼에 음성 조각을 넣는다 (호출마다 RPC를 새로 열지 않고, 블로킹하지 않음)
+    // 스트림이 오류로 끊겼으면 auth 때 정한 설정으로 다시 열고, stop 이후에 늦게 온 음성은 버린다
+    public void sendAudioChunk(byte[] audioChunk, String sessionId) {
+        SessionSettings settings = sessions.get(sessionId);
+        if (settings == null) {
+            log.debug("종료된 세션의 음성 조각 버림: {}", sessionId);
+            return;
+        }
+        // closeStream은 closed를 먼저 표시한 뒤 스트림을 꺼내므로, 그 사이에 다시 연 스트림도 closeStream이 닫는다
+        SttStreamSession stream = streams.computeIfAbsent(sessionId, id -> settings.closed ? null : newStream(id, settings));
+        if (stream != null && !stream.send(audioChunk)) {
+            streams.remove(sessionId, stream);
+        }
+    }
 
-                if ("STT 변환 실패".equals(sttText)) {
-                    System.out.println("⚠️ STT 변환 실패 → WebSocket 및 Solace 전송 생략");
-                    return;
-                }
+    private SttStreamSession newStream(String sessionId, SessionSettings settings) {
+        int chunkIdBase = settings.nextChunkId.get();
+        if (chunkIdBase == 0) {
+            log.info("gRPC 세션 스트림 생성: {}", sessionId);
+        } else {
+            log.info("gRPC 세션 스트림 다시 생성: {} (발화 번호 {}부터)", sessionId, chunkIdBase);
+        }
+        int inputSampleRate = settings.inputSampleRate;
+        int targetSampleRate = properties.getAudioTargetSampleRate();
+        PolyphaseResampler resampler = null;
+        int sampleRate = inputSampleRate;
+        if (targetSampleRate > 0 && targetSampleRate != inputSampleRate) {
+            resampler = new PolyphaseResampler(inputSampleRate, targetSampleRate);
+            sampleRate = targetSampleRate;
+        }
+        AudioFormat audioFormat = AudioFormat.newBuilder()
+                .setEncoding(AudioFormat.Encoding.PCM_S16LE)
+                .setSampleRateHz(sampleRate)
+                .setChannels(1)
+                .build();
+        SttStreamSession stream = new SttStreamSession(settings.customerId, sessionId,
+                properties.getStreamBufferCapacity(), properties.getOverloadPolicy(),
+                properties.getCoalesceMaxBytes(), settings.flowControlListener, droppedFrames,
+                audioFormat, resampler);
+        stream.aggregateWith(aggregatorFactory, sampleRate);
+        PooledChannel pooled = channelPool.acquire(sessionId);
+        pooled.getStub().streamingRecognize(newResponseObserver(stream, pooled, settings, chunkIdBase)); // beforeStart에서 스트림 연결
+        return stream;
+    }
 
-                int currentChunkId = chunkCounters.get(sessionId).getAndIncrement(); //세션별로 chunkId 증가
-                AudioWebSocketServer.sendToAllClients(sttText); // WebSocket을 통해 브라우저로 STT 데이터 전송
+    // stop 메시지 또는 WebSocket 종료 시 스트림을 닫는다 (서버는 남은 결과를 모두 보낸 뒤 종료)
+    // 반환값은 서버가 마지막 결과까지 보내고 스트림을 닫으면 완료되며, 그 시점에는 모든 결과 전달 작업이 세션 레인에 들어가 있다
+    public CompletableFuture<Void> closeStream(String sessionId) {
+        if (sessionId == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        SessionSettings settings = sessions.remove(sessionId);
+        if (settings != null) {
+            settings.closed = true;
+        }
+        channelPool.forget(sessionId);
+        SttStreamSession stream = streams.remove(sessionId);
+        if (stream == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        stream.close();
+        log.info("gRPC 세션 스트림 종료 요청: {}", sessionId);
+        return stream.getCompletion();
+    }
 
-                final String topic = String.format("crm/stt/%s/%s/chunks/%d", customerId, sessionId, currentChunkId);
-                System.out.println("Solace 비동기 전송 준비 - topic: " + topic + ", message: " + sttText);
+    // chunkIdBase: 다시 연 스트림은 서버가 발화 번호를 0부터 다시 매기므로, 앞 스트림에서 받은 번호 뒤로 옮겨 이어지게 한다
+    private ClientResponseObserver<SpeechChunk, SpeechResponse> newResponseObserver(SttStreamSession stream, PooledChannel pooled,
+                                                                                   SessionSettings settings, int chunkIdBase) {
+        final String customerId = stream.getCustomerId();
+        final String sessionId = stream.getSessionId();
 
-                CompletableFuture.runAsync(() -> {
-                    try {
-                        topicPublisher.publishMessage(topic, sttText); // ✅ 지역 변수 활용
-                        System.out.println("Solace 메시지 비동기 전송 완료");
-                    } catch (Exception e) {
-                        System.err.println("[ERROR] Solace 메시지 비동기 전송 실패: " + e.getMessage());
-                        e.printStackTrace();
-                    }
-                });
+        return new ClientResponseObserver<>() {
 
+            @Override
+            public void beforeStart(ClientCallStreamObserver<SpeechChunk> requestStream) {
+                stream.attach(requestStream);
             }
 
             @Override
-            public void onError(Throwable t) {
-                failCount++; // 실패 횟수 증가
-                System.err.println("[ERROR] gRPC 오류 발생 (" + failCount + "번째)" + t.getMessage());
-
-                if (failCount > MAX_ATTEMPT_COUNT) {
-                    System.err.println("[ERROR] 10번 초과 실패 - gRPC 연결 종료");
-                    shutdown(); // gRPC 연결 종료
+            public void onNext(SpeechResponse received) {
+                SpeechResponse response = received;
+                if (chunkIdBase != 0) {
+                    int chunkId = chunkIdBase + received.getChunkId();
+                    response = received.toBuilder()
+                            .setChunkId(chunkId)
+                            .setUtteranceId(sessionId + "-" + chunkId)
+                            .build();
+                }
+                settings.nextChunkId.accumulateAndGet(response.getChunkId() + 1, Math::max);
+                // 왕복/종단 지연은 응답 직전에 보낸/받은 음성 기준 (VAD 발화 끝 → 텍스트 도착), 최종 결과만 잰다
+                // (송신 스레드가 그 사이 시각을 갱신할 수 있으므로 보낸 시각을 먼저 읽고 현재 시각을 잰다)
+                long lastSent = stream.getLastSentNanos();
+                if (lastSent != 0 && !response.getInterim()) {
+                    roundTrip.record(System.nanoTime() - lastSent, TimeUnit.NANOSECONDS);
                 }
-                finishLatch.countDown();
+                long lastAudio = stream.getLastAudioNanos();
+                // gRPC 콜백 스레드를 잡아두지 않고, 세션 레인에서 수신 순서대로 전달
+                SpeechResponse delivered = response;
+                sessionLanes.execute(sessionId, () -> deliver(customerId, sessionId, delivered, lastAudio));
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                pooled.release();
+                stream.markClosed();
+                streams.remove(sessionId, stream);
+                stream.getCompletion().complete(null);
+                // 오류 횟수로 채널을 닫지 않는다: 이 세션의 스트림만 정리하고, 다음 음성 조각이 오면 auth 때 설정으로 새 스트림을 연다
+                // (채널은 서버 재시작/일시 장애 후 스스로 재연결)
+                Status status = Status.fromThrowable(t);
+                meterRegistry.counter("stt.grpc.stream.errors", "code", status.getCode().name()).increment();
+                log.error("gRPC 스트림 오류 ({}): {} {}", sessionId, status.getCode(), t.getMessage());
             }
 
             @Override
             public void onCompleted() {
-                System.out.println("음성 데이터 전송 완료");
-                finishLatch.countDown();
+                pooled.release();
+                streams.remove(sessionId, stream);
+                stream.getCompletion().complete(null);
+                log.info("음성 데이터 전송 완료 (세션 스트림 종료: {})", sessionId);
             }
         };
+    }
 
-        // 비동기 스트리밍 요청
-        StreamObserver<SpeechChunk> requestObserver = asyncStub.streamSpeechToText(responseObserver);
+    // 세션 레인에서 실행: 브라우저 전송 후 Solace 발행 (chunkId는 서버가 음성 수신 순서로 매긴 발화 번호)
+    // 중간 결과는 브라우저로만 보내고, 같은 chunkId의 최종 결과가 오면 브라우저가 대체한다
+    private void deliver(String customerId, String sessionId, SpeechResponse response, long lastAudioNanos) {
+        String sttText = response.getText();
+        log.debug("실시간 STT 변환 결과{}: {}", response.getInterim() ? " (중간)" : "", sttText);
 
-        try {
-            SpeechChunk speechChunk = SpeechChunk.newBuilder()
-                    .setCustomerId(customerId)
-                    .setAudioData(com.google.protobuf.ByteString.copyFrom(audioChunk))
-                    .build();
-            requestObserver.onNext(speechChunk);
-        } catch (Exception e) {
-            requestObserver.onError(e);
+        if (response.getInterim()) {
+            AudioWebSocketServer.sendToSession(sessionId, browserMessage(parseEngineBody(sttText), response));
+            interimResults.increment();
+            return;
         }
 
-        requestObserver.onCompleted();
-        finishLatch.await(5, TimeUnit.SECONDS); // gRPC 응답 대기
+        if ("STT 변환 실패".equals(sttText)) {
+            recognitionFailures.increment();
+            log.debug("STT 변환 실패 → WebSocket 및 Solace 전송 생략 ({})", sessionId);
+            return;
+        }
+
+        // 엔진 응답 본문은 한 번만 파싱해 브라우저 메시지와 Solace 이벤트에 함께 사용
+        JsonObject body = parseEngineBody(sttText);
+        byte[] event = transcriptEvent(customerId, sessionId, response, body).toByteArray(); // 브라우저 메시지가 본문에 필드를 덧붙이기 전에 인코딩
+        AudioWebSocketServer.sendToSession(sessionId, browserMessage(body, response)); // 이 세션의 브라우저로만 STT 데이터 전송
+        if (lastAudioNanos != 0) {
+            endToEnd.record(System.nanoTime() - lastAudioNanos, TimeUnit.NANOSECONDS);
+        }
+
+        final String topic = "crm/stt/" + customerId + "/" + sessionId + "/chunks/" + response.getChunkId();
+        log.debug("Solace 비동기 전송 준비 - topic: {} ({} bytes)", topic, event.length);
+
+        // 연결된 producer로 바로 전송 (공용 스레드 풀을 거치지 않음)
+        topicPublisher.publishAsync(topic, event).whenComplete((unused, e) -> {
+            if (e != null) {
+                long skipped = publishFailureLog.tryAcquire();
+                if (skipped >= 0) {
+                    log.error("Solace 메시지 비동기 전송 실패: {} - {} (직전 생략 {}건)", topic, e.getMessage(), skipped);
+                }
+            } else {
+                log.debug("Solace 메시지 비동기 전송 완료: {}", topic);
+            }
+        });
     }
 
-    public void shutdown() {
-        System.out.println("gRPC 클라이언트 연결 종료 중...");
-        channel.shutdown(); // gRPC 채널 종료
+    // 엔진 응답 본문({"text": ..., "confidence": ...}), JSON 객체가 아니면 본문 전체를 text로 본다
+    static JsonObject parseEngineBody(String body) {
         try {
-            if (!channel.awaitTermination(5, TimeUnit.SECONDS)) {
-                System.out.println("❌ 강제 종료 실행");
-                channel.shutdownNow();
+            JsonElement json = JsonParser.parseString(body);
+            if (json.isJsonObject()) {
+                return json.getAsJsonObject();
             }
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-            channel.shutdownNow();
+        } catch (JsonParseException e) {
+            // 아래에서 본문 그대로 사용
         }
-        System.out.println("gRPC 연결 종료 완료");
-        // System.exit(1); // 애플리케이션 강제 종료
+        JsonObject message = new JsonObject();
+        message.addProperty("text", body);
+        return message;
     }
 
-}
+    // Solace 조각 이벤트 (STTCollector와 CRM 쪽 구독자가 디코딩)
+    static TranscriptEvent transcriptEvent(String customerId, String sessionId, SpeechResponse response, JsonObject body) {
+        JsonElement text = body.get("text");
+        JsonElement confidence = body.get("confidence");
+        return TranscriptEvent.newBuilder()
+                .setVersion(TranscriptEvents.VERSION)
+                .setCustomerId(customerId)
+                .setSessionId(sessionId)
+                .setChunkId(response.getChunkId())
+                .setUtteranceId(response.getUtteranceId())
+                .setStartOffsetMs(response.getStartOffsetMs())
+                .setEndOffsetMs(response.getEndOffsetMs())
+                .setRecognizedAtMs(System.currentTimeMillis())
+                .setConfidence(confidence != null && confidence.isJsonPrimitive() ? confidence.getAsFloat() : 0f)
+                .setText(text != null && text.isJsonPrimitive() ? text.getAsString() : response.getText())
+                .build();
+    }
 
+    // 브라우저 메시지: 엔진 응답 본문에 발화 번호/중간 여부/위치를 붙인다
+    static String browserMessage(JsonObject message, SpeechResponse response) {
+        message.addProperty("chunkId", response.getChunkId());
+        message.addProperty("final", !response.getInterim());
+        message.addProperty("stability", response.getStability());
+        message.addProperty("startMs", response.getStartOffsetMs());
+        message.addProperty("endMs", response.getEndOffsetMs());
+        return message.toString();
+    }
+
+    // auth에서 정한 세션 설정
+    private static final class SessionSettings {
+        final String customerId;
+        final int inputSampleRate;
+        final FlowControlListener flowControlListener;
+        final AtomicInteger nextChunkId = new AtomicInteger(); // 지금까지 받은 가장 큰 발화 번호 + 1 (다시 연 스트림의 시작 번호)
+        volatile boolean closed; // stop/onClose 이후: 늦게 온 음성으로 스트림을 다시 열지 않음
 
+        SessionSettings(String customerId, int inputSampleRate, FlowControlListener flowControlListener) {
+            this.customerId = customerId;
+            this.inputSampleRate = inputSampleRate;
+            this.flowControlListener = flowControlListener;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.demo.grpc;
+
+import com.demo.audio.ChunkAggregator;
+import com.demo.audio.ChunkAggregatorFactory;
+import com.demo.audio.PolyphaseResampler;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stt.AudioFormat;
+import stt.SpeechChunk;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+
+// WebSocket 세션 하나에 대응하는 gRPC 양방향 스트림 (auth ~ stop/onClose 동안 유지)
+// 음성 프레임은 세션별 고정 크기 버퍼에 쌓이고, gRPC 전송 가능(isReady) 상태일 때만 내보낸다
+public class SttStreamSession {
+
+    private static final Logger log = LoggerFactory.getLogger(SttStreamSession.class);
+
+    private final String customerId;
+    private final String sessionId;
+    private final int capacity;
+    private final OverloadPolicy overloadPolicy;
+    private final int coalesceMaxBytes;
+    private final FlowControlListener flowControlListener;
+    private final Counter droppedFrames;
+    private final AudioFormat audioFormat;       // 첫 청크에 실어 보내는 음성 형식 (null이면 생략)
+    private final PolyphaseResampler resampler;  // null이면 입력 샘플레이트 그대로 전송
+    private ChunkAggregator aggregator;          // null이면 프레임마다 그대로 버퍼에 넣음 (스트림을 공개하기 전에 설정)
+
+    private final ArrayDeque<ByteString> buffer = new ArrayDeque<>();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>(); // 서버가 마지막 결과까지 보내고 스트림을 닫으면 완료
+    private int bufferedBytes;
+    private ClientCallStreamObserver<SpeechChunk> requestStream;
+    private boolean paused;
+    private boolean closeRequested;
+    private boolean closed;
+    private boolean formatSent;
+    private volatile long lastAudioNanos; // 마지막으로 브라우저 음성을 받은 시각 (종단 지연 측정용)
+    private volatile long lastSentNanos;  // 마지막으로 gRPC 스트림에 음성을 보낸 시각 (왕복 지연 측정용)
+
+    SttStreamSession(String customerId, String sessionId, int capacity, OverloadPolicy overloadPolicy,
+                     int coalesceMaxBytes, FlowControlListener flowControlListener, Counter droppedFrames) {
+        this(customerId, sessionId, capacity, overloadPolicy, coalesceMaxBytes, flowControlListener, droppedFrames, null, null);
+    }
+
+    SttStreamSession(String customerId, String sessionId, int capacity, OverloadPolicy overloadPolicy,
+                     int coalesceMaxBytes, FlowControlListener flowControlListener, Counter droppedFrames,
+                     AudioFormat audioFormat, PolyphaseResampler resampler) {
+        this.customerId = customerId;
+        this.sessionId = sessionId;
+        this.capacity = capacity;
+        this.overloadPolicy = overloadPolicy;
+        this.coalesceMaxBytes = coalesceMaxBytes;
+        this.flowControlListener = flowControlListener;
+        this.droppedFrames = droppedFrames;
+        this.audioFormat = audioFormat;
+        this.resampler = resampler;
+    }
+
+    // 작은 프레임을 모아 청크 하나로 넣는 집계기 연결 (openStream에서 send 전에 호출, 집계를 껐으면 그대로)
+    void aggregateWith(ChunkAggregatorFactory aggregatorFactory, int sampleRate) {
+        this.aggregator = aggregatorFactory.create(sampleRate, (chunk, reason) -> offer(chunk), this::getBufferedFrames);
+    }
+
+    // ClientResponseObserver.beforeStart에서 호출: 전송 가능 상태가 되면 버퍼를 비운다
+    synchronized void attach(ClientCallStreamObserver<SpeechChunk> requestStream) {
+        this.requestStream = requestStream;
+        requestStream.setOnReadyHandler(this::drain);
+    }
+
+    // 버퍼에 프레임을 넣고 가능한 만큼 바로 전송 (WebSocket 수신 스레드를 블로킹하지 않음)
+    // WebSocket이 넘겨준 배열(또는 리샘플링 결과)은 이 세션만 사용하므로 복사하지 않고 감싸서 보관
+    // 리샘플러는 청크 사이 상태를 이어가므로 세션의 WebSocket 수신 스레드에서 순서대로 호출해야 함
+    // 집계기가 있으면 집계기 버퍼로 복사하고, 모인 청크는 집계기가 offer로 넣는다 (락 순서: 집계기 → 세션)
+    public boolean send(byte[] audioChunk) {
+        byte[] pcm = resampler != null ? resampler.process(audioChunk) : audioChunk;
+        if (pcm.length == 0) {
+            return !isClosed();
+        }
+        if (aggregator == null) {
+            return send(UnsafeByteOperations.unsafeWrap(pcm));
+        }
+        lastAudioNanos = System.nanoTime();
+        synchronized (this) {
+            if (closed || closeRequested) {
+                return false;
+            }
+        }
+        aggregator.append(pcm);
+        return true;
+    }
+
+    public boolean send(ByteString audioChunk) {
+        lastAudioNanos = System.nanoTime();
+        return offer(audioChunk);
+    }
+
+    private boolean offer(ByteString audioChunk) {
+        boolean notifyPause = false;
+        synchronized (this) {
+            if (closed || closeRequested) {
+                return false;
+            }
+            if (buffer.size() >= capacity) {
+                notifyPause = applyOverloadPolicy(audioChunk);
+            } else {
+                enqueue(audioChunk);
+            }
+            drainLocked();
+        }
+        if (notifyPause && flowControlListener != null) {
+            flowControlListener.onPause();
+        }
+        return true;
+    }
+
+    // 가득 찬 버퍼에 새 프레임이 들어왔을 때 정책 적용, pause 알림이 필요하면 true
+    private boolean applyOverloadPolicy(ByteString audioChunk) {
+        switch (overloadPolicy) {
+            case COALESCE -> {
+                ByteString last = buffer.peekLast();
+                if (last != null && last.size() + audioChunk.size() <= coalesceMaxBytes) {
+                    // rope 연결이라 바이트 복사 없이 마지막 프레임 뒤에 이어 붙음
+                    buffer.pollLast();
+                    buffer.addLast(last.concat(audioChunk));
+                    bufferedBytes += audioChunk.size();
+                    return false;
+                }
+                dropOldest();
+                enqueue(audioChunk);
+                return false;
+            }
+            case PAUSE -> {
+                // 브라우저가 멈추기 전까지 도착한 프레임은 오래된 것부터 버림
+                dropOldest();
+                enqueue(audioChunk);
+                if (!paused) {
+                    paused = true;
+                    return true;
+                }
+                return false;
+            }
+            default -> {
+                dropOldest();
+                enqueue(audioChunk);
+                return false;
+            }
+        }
+    }
+
+    private void enqueue(ByteString audioChunk) {
+        buffer.addLast(audioChunk);
+        bufferedBytes += audioChunk.size();
+    }
+
+    private void dropOldest() {
+        ByteString dropped = buffer.pollFirst();
+        if (dropped != null) {
+            bufferedBytes -= dropped.size();
+            if (droppedFrames != null) {
+                droppedFrames.increment();
+            }
+        }
+    }
+
+    // onReadyHandler: gRPC 전송 창이 열릴 때마다 호출됨
+    private void drain() {
+        boolean notifyResume;
+        synchronized (this) {
+            drainLocked();
+            notifyResume = paused && buffer.size() <= capacity / 2;
+            if (notifyResume) {
+                paused = false;
+            }
+        }
+        if (notifyResume && flowControlListener != null) {
+            flowControlListener.onResume();
+        }
+    }
+
+    private void drainLocked() {
+        if (requestStream == null || closed) {
+            return;
+        }
+        try {
+            while (!buffer.isEmpty() && requestStream.isReady()) {
+                ByteString audioChunk = buffer.pollFirst();
+                bufferedBytes -= audioChunk.size();
+                SpeechChunk.Builder chunk = SpeechChunk.newBuilder()
+                        .setCustomerId(customerId)
+                        .setSessionId(sessionId)
+                        .setAudioData(audioChunk);
+                if (audioFormat != null && !formatSent) {
+                    chunk.setFormat(audioFormat);
+                    formatSent = true;
+                }
+                requestStream.onNext(chunk.build());
+                lastSentNanos = System.nanoTime();
+            }
+            // stop 이후 남은 프레임을 모두 보냈으면 스트림 종료
+            if (closeRequested && buffer.isEmpty()) {
+                closed = true;
+                requestStream.onCompleted();
+            }
+        } catch (Exception e) {
+            log.error("gRPC 스트림 전송 실패 ({}): {}", sessionId, e.getMessage());
+            closed = true;
+            buffer.clear();
+            bufferedBytes = 0;
+            requestStream.onError(e);
+        }
+    }
+
+    // 집계 중인 음성과 버퍼에 남은 프레임을 먼저 보낸 뒤 스트림을 닫는다
+    public void close() {
+        if (aggregator != null) {
+            aggregator.close();
+        }
+        synchronized (this) {
+            if (closed || closeRequested) {
+                return;
+            }
+            closeRequested = true;
+            drainLocked();
+        }
+    }
+
+    void markClosed() {
+        if (aggregator != null) {
+            aggregator.discard();
+        }
+        synchronized (this) {
+            closed = true;
+            buffer.clear();
+            bufferedBytes = 0;
+        }
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    public synchronized int getBufferedFrames() {
+        return buffer.size();
+    }
+
+    public synchronized int getBufferedBytes() {
+        return bufferedBytes;
+    }
+
+    public long getLastAudioNanos() {
+        return lastAudioNanos;
+    }
+
+    public long getLastSentNanos() {
+        return lastSentNanos;
+    }
+
+    // 서버 응답 스트림이 끝나면(정상 종료/오류 모두) 완료
+    public CompletableFuture<Void> getCompletion() {
+        return completion;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+}
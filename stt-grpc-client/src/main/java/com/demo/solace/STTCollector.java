@@ -1,206 +1,218 @@
 package com.demo.solace;
 
+import com.demo.analytics.SummaryPipeline;
+import com.demo.config.SttGrpcClientProperties;
+import com.demo.executor.VirtualThreads;
+import com.demo.logging.LogSampler;
+import com.demo.transcript.TranscriptAssembler;
+import com.demo.transcript.TranscriptStore;
 import com.solacesystems.jcsmp.*;
-import org.json.JSONObject;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import stt.TranscriptEvent;
 
-import java.util.TreeMap;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class STTCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(STTCollector.class);
+
+    private static final String STT_TOPIC = "crm/stt/>"; // 모든 세션의 조각/종료 메시지를 구독 하나로 수신
+    private static final long RECONNECT_DELAY_MS = 5000;  // 자동 재연결이 끝내 실패했을 때 세션을 새로 만들기 전 대기 시간
+
     private final SpringJCSMPFactory solaceFactory;
     private final TopicPublisher topicPublisher;
-    private static final ConcurrentHashMap<String, TreeMap<Integer, String>> sessionBuffers = new ConcurrentHashMap<>();
+    private final TranscriptAssembler transcriptAssembler; // 조각이 올 때마다 세션 대화에 바로 반영
+    private final SummaryPipeline summaryPipeline;          // 요약은 전용 워커에서 실행 (수신 스레드를 막지 않음)
+    private final TranscriptStore transcriptStore;          // DB 저장도 대기열에 넣고 바로 반환 (write-behind)
+    private final ScheduledExecutorService reconnector;    // 세션 이벤트(DOWN_ERROR)를 받았을 때만 재연결 실행
+    private final LogSampler invalidEventLog = new LogSampler(1, TimeUnit.SECONDS);
 
-    private JCSMPSession session;
+    private volatile JCSMPSession session;
     private XMLMessageConsumer consumer;
 
-    public STTCollector(SpringJCSMPFactory solaceFactory, TopicPublisher topicPublisher) throws JCSMPException {
+    public STTCollector(SpringJCSMPFactory solaceFactory, TopicPublisher topicPublisher,
+                        TranscriptAssembler transcriptAssembler, SummaryPipeline summaryPipeline,
+                        TranscriptStore transcriptStore, SttGrpcClientProperties properties) {
         this.solaceFactory = solaceFactory;
         this.topicPublisher = topicPublisher;
-        startSTTStopSubscription();
+        this.transcriptAssembler = transcriptAssembler;
+        this.summaryPipeline = summaryPipeline;
+        this.transcriptStore = transcriptStore;
+        ThreadFactory threads = VirtualThreads.resolve(properties.isVirtualThreadsEnabled())
+                ? VirtualThreads.factory("stt-collector-")
+                : r -> {
+                    Thread thread = new Thread(r, "stt-collector-reconnect");
+                    thread.setDaemon(true);
+                    return thread;
+                };
+        this.reconnector = Executors.newSingleThreadScheduledExecutor(threads);
+        reconnector.execute(this::connect);
     }
 
-    private JCSMPSession getSession() throws JCSMPException {
-        if (session == null || session.isClosed()) {
-            session = solaceFactory.createSession();
-            session.connect();
+    // 세션을 만들고 구독 시작, 실패하면 잠시 뒤 다시 시도
+    private synchronized void connect() {
+        try {
+            JCSMPSession newSession = solaceFactory.createSession(
+                    JCSMPFactory.onlyInstance().getDefaultContext(), this::handleSessionEvent);
+            newSession.connect();
+            session = newSession;
+            subscribeToSTT();
+        } catch (JCSMPException e) {
+            log.error("Solace STT 구독 실패: {} ({}ms 후 재시도)", e.getMessage(), RECONNECT_DELAY_MS);
+            closeSession();
+            reconnector.schedule(this::connect, RECONNECT_DELAY_MS, TimeUnit.MILLISECONDS);
         }
-        return session;
     }
 
-    private void startSTTChunkSubscription(String topicName) {
-        new Thread(() -> {
-            try {
-                session = getSession(); //세션 생성
-                subscribeToSTTChunks(topicName); //구독 시작
-
-                while (true) {
-                    Thread.sleep(5000);
-
-                    if (session.isClosed()) {
-                        System.out.println("[ERROR] 세션이 닫혀 있습니다! 다시 연결 시도...");
-                        session = getSession();
-                        subscribeToSTTStop();
-                    }
-                }
-            } catch (JCSMPException | InterruptedException e) {
-                System.err.println("[ERROR] Solace STT 조각 구독 실패: " + e.getMessage());
+    // JCSMP 세션 이벤트 (JCSMP 내부 스레드에서 호출되므로 블로킹 호출 금지)
+    private void handleSessionEvent(SessionEventArgs event) {
+        switch (event.getEvent()) {
+            case RECONNECTING -> log.warn("Solace 연결 끊김, 자동 재연결 중...");
+            case RECONNECTED -> {
+                log.info("Solace 재연결 완료, STT 구독 다시 등록");
+                resubscribe();
             }
-        }).start();
-    }
-
-    private void startSTTStopSubscription() {
-        new Thread(() -> {
-            try {
-                session = getSession(); //세션 생성
-                subscribeToSTTStop(); //구독 시작
-
-                while (true) {
-                    Thread.sleep(5000);
-
-                    if (session.isClosed()) {
-                        System.out.println("[ERROR] 세션이 닫혀 있습니다! 다시 연결 시도...");
-                        session = getSession();
-                        subscribeToSTTStop();
-                    }
-                }
-            } catch (JCSMPException | InterruptedException e) {
-                System.err.println("[ERROR] Solace STT 종료 구독 실패: " + e.getMessage());
+            case DOWN_ERROR -> {
+                // 자동 재연결 횟수를 모두 쓰고 세션이 닫힘 → 새 세션으로 다시 연결
+                log.error("Solace 세션 종료: {} ({}ms 후 재연결)", event.getInfo(), RECONNECT_DELAY_MS);
+                reconnector.schedule(this::reconnect, RECONNECT_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+            default -> {
             }
-        }).start();
+        }
     }
 
-    //STT 조각 수신 및 저장
-    public void subscribeToSTTChunks(String receivedTopicName) throws JCSMPException {
-        String[] topicParts = receivedTopicName.split("/");
-        String topicName = String.format("crm/stt/%s/%s/chunks/*", topicParts[2], topicParts[3]);
-        Topic topic = JCSMPFactory.onlyInstance().createTopic(topicName);
+    private synchronized void reconnect() {
+        closeSession();
+        connect();
+    }
 
-        // 기존 consumer가 실행 중이면 중지
-        if (consumer != null) {
-            consumer.close();
+    // 재연결 후 구독이 유지되지 않는 경우를 대비해 다시 등록 (확인을 기다리지 않음)
+    private void resubscribe() {
+        JCSMPSession current = session;
+        if (current == null) {
+            return;
         }
+        try {
+            current.addSubscription(JCSMPFactory.onlyInstance().createTopic(STT_TOPIC), false);
+        } catch (JCSMPException e) {
+            log.error("Solace STT 재구독 실패: {}", e.getMessage());
+        }
+    }
 
+    // 조각/종료 메시지를 하나의 consumer로 받아 토픽 레벨로 구분해 처리
+    private void subscribeToSTT() throws JCSMPException {
         consumer = session.getMessageConsumer(new XMLMessageListener() {
             public void onReceive(BytesXMLMessage msg) {
-                if (msg instanceof TextMessage) {
-                    String receivedText = ((TextMessage) msg).getText();
-                    System.out.println("STT 조각 수신: " + receivedText);
-                    //processSTTChunk(receivedText);
-                }
+                dispatch(msg);
             }
 
             @Override
             public void onException(JCSMPException e) {
-                System.err.println("[ERROR] Solace STT 조각 수신 오류: " + e.getMessage());
+                log.error("Solace STT 메시지 수신 오류: {}", e.getMessage());
             }
         });
 
-        //session.addSubscription(topic);
-        consumer.start(); // 전역 변수로 유지되는 consumer 실행
-        System.out.println("STT 조각 구독 시작: " + topicName);
+        session.addSubscription(JCSMPFactory.onlyInstance().createTopic(STT_TOPIC));
+        consumer.start();
+        log.info("Solace STT 조각/녹음 종료 구독 시작: {}", STT_TOPIC);
     }
 
-    private void processSTTChunk(String receivedText) {
-        try {
-            JSONObject json = new JSONObject(receivedText);
-            String customerId = json.getString("customerId");
-            String sessionId = json.getString("sessionId");
-            int chunkId = json.getInt("chunkId");
-            String text = json.getString("text");
-
-            String key = customerId + "/" + sessionId;
-            sessionBuffers.putIfAbsent(key, new TreeMap<>());
-            sessionBuffers.get(key).put(chunkId, text);
-
-            // DB에도 STT 조각 저장
-            // saveSTTChunkToDB(customerId, sessionId, chunkId, text);
-
-        } catch (Exception e) {
-            System.err.println("[ERROR] JSON 파싱 오류: " + e.getMessage());
+    private void dispatch(BytesXMLMessage msg) {
+        SttTopic topic = SttTopic.parse(msg.getDestination().getName());
+        if (topic == null) {
+            return; // /full 등 처리 대상이 아닌 메시지
         }
-    }
-
-    // STT 종료 메시지 구독을 실행하는 메서드
-    public void subscribeToSTTStop() throws JCSMPException {
-        String topicName = "crm/stt/*/*/stop";
-        Topic topic = JCSMPFactory.onlyInstance().createTopic(topicName);
-
-        consumer = session.getMessageConsumer(new XMLMessageListener() {
-            public void onReceive(BytesXMLMessage msg) {
-                System.out.println("메시지 핸들러 실행됨");
-                if (msg instanceof TextMessage) {
-                    //String receivedText = ((TextMessage) msg).getText();
-                    String receivedTopicName = msg.getDestination().getName();
-                    System.out.println("녹음 종료 메시지 수신: " + receivedTopicName);
-                    //processFinalSTT();
-                    startSTTChunkSubscription(receivedTopicName);
+        switch (topic.kind()) {
+            case CHUNK -> {
+                if (msg instanceof BytesMessage bytes) {
+                    processSTTChunk(bytes);
+                } else if (msg instanceof TextMessage text) {
+                    // 이전 버전 클라이언트가 발행한 텍스트 조각 (엔진 응답 본문 그대로)
+                    processSTTChunk(topic.customerId(), topic.sessionId(), topic.chunkId(), text.getText());
                 }
             }
+            case STOP -> {
+                log.info("녹음 종료 메시지 수신: {}", msg.getDestination().getName());
+                processFinalSTT(topic.customerId(), topic.sessionId());
+            }
+        }
+    }
 
-            @Override
-            public void onException(JCSMPException e) {
-                System.err.println("[ERROR] Solace STT 종료 메시지 수신 오류: " + e.getMessage());
+    // STT 조각 이벤트 수신: 본문은 TranscriptEvent (문자열/JSON을 거치지 않고 바로 디코딩)
+    private void processSTTChunk(BytesMessage msg) {
+        TranscriptEvent event = TranscriptEvents.decode(msg.getData());
+        if (event == null) {
+            long skipped = invalidEventLog.tryAcquire();
+            if (skipped >= 0) {
+                log.warn("해석할 수 없는 STT 조각 이벤트 버림: {} (직전 생략 {}건)", msg.getDestination().getName(), skipped);
             }
-        });
+            return;
+        }
+        processSTTChunk(event.getCustomerId(), event.getSessionId(), event.getChunkId(), event.getText());
+    }
 
-        session.addSubscription(topic);
-        consumer.start();
-        System.out.println("Solace STT 녹음 종료 구독 시작...");
+    // STT 조각: 토픽 crm/stt/{customerId}/{sessionId}/chunks/{chunkId}
+    private void processSTTChunk(String customerId, String sessionId, int chunkId, String text) {
+        transcriptAssembler.accept(customerId + "/" + sessionId, chunkId, text);
+
+        // DB에도 STT 조각 저장
+        transcriptStore.saveChunk(customerId, sessionId, chunkId, text);
     }
 
-    private void processFinalSTT(String receivedText) {
+    private void processFinalSTT(String customerId, String sessionId) {
         try {
-            JSONObject json = new JSONObject(receivedText);
-            String customerId = json.getString("customerId");
-            String sessionId = json.getString("sessionId");
-
-            String key = customerId + "/" + sessionId;
-            if (!sessionBuffers.containsKey(key)) {
-                System.out.println("⚠️ 저장된 STT 조각 없음.");
+            // 조각은 수신할 때마다 이어 붙여 두었으므로 남은 조각만 마무리
+            String fullConversation = transcriptAssembler.finish(customerId + "/" + sessionId);
+            if (fullConversation == null) {
+                log.warn("저장된 STT 조각 없음: {}/{}", customerId, sessionId);
                 return;
             }
 
-            TreeMap<Integer, String> chunks = sessionBuffers.get(key);
-            String fullConversation = String.join(" ", chunks.values());
+            log.info("최종 STT 대화 완성: {}/{} ({}자)", customerId, sessionId, fullConversation.length());
+            log.debug("최종 STT 대화: {}", fullConversation);
 
-            System.out.println("최종 STT 대화: " + fullConversation);
-
-            // Solace에 최종 대화 저장
+            // Solace에 최종 대화 발행 + DB 저장
             sendFullConversationToSolace(customerId, sessionId, fullConversation);
+            transcriptStore.saveFinal(customerId, sessionId, fullConversation);
 
-            // TA 실행 (상담 요약)
-            String summarizedText = callTAEngine(fullConversation);
-            sendTASummaryToSolace(customerId, sessionId, summarizedText);
-
-            // 메모리 정리
-            sessionBuffers.remove(key);
+            // TA 실행 (상담 요약): 대기열에 넣고 바로 반환, 결과는 crm/summary/{customerId}/{sessionId}로 발행
+            summaryPipeline.submit(customerId, sessionId, fullConversation);
 
         } catch (Exception e) {
-            System.err.println("[ERROR] STT 조각 합치기 오류: " + e.getMessage());
+            log.error("STT 조각 합치기 오류 ({}/{})", customerId, sessionId, e);
         }
     }
 
-    private void saveSTTChunkToDB(String customerId, String sessionId, int messageNumber, String text) {
-        // STT 조각을 DB에 저장하는 코드(구현하기)
-        System.out.println("DB에 STT 조각 저장: [" + messageNumber + "] " + text);
-    }
-
     private void sendFullConversationToSolace(String customerId, String sessionId, String fullConversation) {
-        System.out.println("Solace로 최종 대화 전송 완료: " + fullConversation);
+        log.debug("Solace로 최종 대화 전송: {}", fullConversation);
         topicPublisher.publishMessage("crm/stt/" + customerId + "/" + sessionId + "/full", fullConversation);
     }
 
-    private void sendTASummaryToSolace(String customerId, String sessionId, String summarizedText) {
-        System.out.println("Solace로 상담 요약 전송 완료: " + summarizedText);
-        topicPublisher.publishMessage("crm/summary/" + customerId + "/" + sessionId, summarizedText);
-    }
 
-    private String callTAEngine(String fullConversation) {
-        System.out.println("TA 엔진 실행 중...");
-        return "요약된 상담 내용 (예시)";
+    private void closeSession() {
+        if (consumer != null) {
+            consumer.close();
+            consumer = null;
+        }
+        if (session != null) {
+            session.closeSession();
+            session = null;
+        }
     }
 
-}
\ No newline at end of file
+    @PreDestroy
+    public void shutdown() {
+        reconnector.shutdownNow();
+        synchronized (this) {
+            closeSession();
+        }
+    }
+}
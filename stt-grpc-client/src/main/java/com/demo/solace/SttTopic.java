@@ -0,0 +1,55 @@
+package com.demo.solace;
+
+// crm/stt/{customerId}/{sessionId}/chunks/{chunkId} 또는 crm/stt/{customerId}/{sessionId}/stop 토픽을 해석한 결과
+// 메시지마다 호출되므로 split(정규식 + 배열 생성) 대신 indexOf로 레벨을 잘라낸다
+record SttTopic(Kind kind, String customerId, String sessionId, int chunkId) {
+
+    enum Kind { CHUNK, STOP }
+
+    private static final String PREFIX = "crm/stt/";
+    private static final String CHUNKS = "chunks/";
+    private static final String STOP = "stop";
+
+    // 다른 모양의 토픽(/full 등)이나 잘못된 chunkId면 null
+    static SttTopic parse(String topic) {
+        if (!topic.startsWith(PREFIX)) {
+            return null;
+        }
+        int customerEnd = topic.indexOf('/', PREFIX.length());
+        if (customerEnd <= PREFIX.length()) {
+            return null;
+        }
+        int sessionEnd = topic.indexOf('/', customerEnd + 1);
+        if (sessionEnd <= customerEnd + 1) {
+            return null;
+        }
+        String customerId = topic.substring(PREFIX.length(), customerEnd);
+        String sessionId = topic.substring(customerEnd + 1, sessionEnd);
+
+        int rest = sessionEnd + 1;
+        if (topic.startsWith(CHUNKS, rest)) {
+            int chunkId = parseChunkId(topic, rest + CHUNKS.length());
+            return chunkId >= 0 ? new SttTopic(Kind.CHUNK, customerId, sessionId, chunkId) : null;
+        }
+        if (topic.length() - rest == STOP.length() && topic.startsWith(STOP, rest)) {
+            return new SttTopic(Kind.STOP, customerId, sessionId, -1);
+        }
+        return null;
+    }
+
+    // 마지막 레벨의 0 이상 정수, 숫자가 아니거나 범위를 넘으면 -1
+    private static int parseChunkId(String topic, int from) {
+        if (from >= topic.length() || topic.length() - from > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = from; i < topic.length(); i++) {
+            char c = topic.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -1,46 +1,464 @@
 package com.demo.solace;
 
+import com.demo.config.SttGrpcClientProperties;
+import com.demo.executor.VirtualThreads;
+import com.demo.logging.LogSampler;
 import com.solacesystems.jcsmp.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
 @Service
 public class TopicPublisher {
 
+    private static final Logger log = LoggerFactory.getLogger(TopicPublisher.class);
+
+    private static final int MAX_SEND_MULTIPLE = 50; // JCSMP sendMultiple 한 번에 보낼 수 있는 최대 메시지 수
+
     private final SpringJCSMPFactory solaceFactory;
+    private final PublisherSlot[] slots; // 연결을 유지하는 세션 + producer 묶음
+    private final boolean persistent;
+
+    // 배치 모드: 시간 창(batchWindowMs) 또는 개수(batchMaxMessages) 중 먼저 도달한 기준으로 모아서 전송
+    private final boolean batchEnabled;
+    private final long batchWindowMs;
+    private final int batchMaxMessages;
+    private final ScheduledExecutorService batchFlusher;
+    private final boolean virtualThreads; // producer별 전송 스레드를 가상 스레드로 생성
+    private final int queueCapacity;      // producer별 전송 대기 작업 수 상한
 
-    public TopicPublisher(SpringJCSMPFactory solaceFactory) {
+    private final Timer published;
+    private final Timer failed;
+    private final LogSampler failureLog = new LogSampler(1, TimeUnit.SECONDS); // 브로커 장애 중에는 메시지마다 실패하므로 초당 한 번만 기록
+
+    public TopicPublisher(SpringJCSMPFactory solaceFactory, SttGrpcClientProperties properties, MeterRegistry meterRegistry) {
         this.solaceFactory = solaceFactory;
+        this.persistent = properties.getSolaceDeliveryMode() == DeliveryMode.PERSISTENT;
+        this.batchEnabled = properties.isSolaceBatchEnabled();
+        this.batchWindowMs = properties.getSolaceBatchWindowMs();
+        this.batchMaxMessages = Math.max(1, properties.getSolaceBatchMaxMessages());
+        this.batchFlusher = batchEnabled ? Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "solace-batch-flusher");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        this.virtualThreads = VirtualThreads.resolve(properties.isVirtualThreadsEnabled());
+        this.queueCapacity = Math.max(1, properties.getSolacePublisherQueueCapacity());
+        // 발행 요청부터 완료까지: PERSISTENT는 브로커 ack, DIRECT는 전송 완료 시점
+        this.published = Timer.builder("stt.solace.publish.latency")
+                .tag("result", "success")
+                .tag("delivery-mode", persistent ? "persistent" : "direct")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.failed = Timer.builder("stt.solace.publish.latency")
+                .tag("result", "failure")
+                .tag("delivery-mode", persistent ? "persistent" : "direct")
+                .register(meterRegistry);
+        this.slots = new PublisherSlot[Math.max(1, properties.getSolacePublisherPoolSize())];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new PublisherSlot(i);
+        }
     }
 
+    // 전송 결과를 기다리지 않는 기존 호출용 (실패는 로그로만 남김)
     public void publishMessage(String topicName, String messageText) {
-        try {
-            JCSMPSession session = solaceFactory.createSession();
-            session.connect();
+        publishAsync(topicName, messageText).whenComplete((unused, e) -> {
+            if (e != null) {
+                logFailure("Solace 메시지 전송 실패: " + topicName, e);
+            }
+        });
+    }
+
+    // producer별 전송 스레드에서 보내고(호출 스레드는 연결/전송을 기다리지 않음), 결과는 future로 돌려준다
+    // PERSISTENT 모드는 브로커 ack(responseReceivedEx/handleErrorEx)에서, DIRECT 모드는 전송 직후 완료된다
+    // 전송 대기열(queue-capacity)이 가득 차면 RejectedExecutionException으로 바로 실패
+    public CompletableFuture<Void> publishAsync(String topicName, String messageText) {
+        TextMessage msg = JCSMPFactory.onlyInstance().createMessage(TextMessage.class);
+        msg.setText(messageText);
+        return publish(topicName, msg);
+    }
+
+    // 바이너리 본문(protobuf 이벤트 등)을 BytesMessage로 전송
+    public CompletableFuture<Void> publishAsync(String topicName, byte[] data) {
+        BytesMessage msg = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
+        msg.setData(data);
+        return publish(topicName, msg);
+    }
+
+    private CompletableFuture<Void> publish(String topicName, XMLMessage msg) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        long start = System.nanoTime();
+        future.whenComplete((unused, e) -> (e == null ? published : failed).record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        if (persistent) {
+            msg.setDeliveryMode(DeliveryMode.PERSISTENT);
+            msg.setCorrelationKey(future);
+        }
+
+        Topic topic = JCSMPFactory.onlyInstance().createTopic(topicName);
+        PublisherSlot slot = slotFor(topicName);
+        if (batchEnabled) {
+            slot.enqueue(msg, topic, future);
+        } else {
+            slot.execute(() -> slot.send(msg, topic, future), future);
+        }
+        return future;
+    }
+
+    // 같은 상담 세션(crm/stt/{customer}/{session})의 메시지는 항상 같은 producer로 보내 순서를 유지
+    private PublisherSlot slotFor(String topicName) {
+        if (slots.length == 1) {
+            return slots[0];
+        }
+        int end = topicName.length();
+        int levels = 0;
+        for (int i = 0; i < topicName.length(); i++) {
+            if (topicName.charAt(i) == '/' && ++levels == 4) {
+                end = i;
+                break;
+            }
+        }
+        int hash = 0;
+        for (int i = 0; i < end; i++) {
+            hash = 31 * hash + topicName.charAt(i);
+        }
+        return slots[Math.floorMod(hash, slots.length)];
+    }
+
+    private void logFailure(String message, Throwable e) {
+        long skipped = failureLog.tryAcquire();
+        if (skipped >= 0) {
+            log.error("{} - {} (직전 생략 {}건)", message, e.getMessage(), skipped);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (batchFlusher != null) {
+            batchFlusher.shutdown();
+        }
+        for (PublisherSlot slot : slots) {
+            slot.close();
+        }
+    }
+
+    private record PendingMessage(XMLMessage msg, Topic topic, CompletableFuture<Void> future) {
+    }
+
+    private class PublisherSlot implements JCSMPStreamingPublishCorrelatingEventHandler, SessionEventHandler {
+
+        private final int index;
+        private final ReentrantLock sendLock = new ReentrantLock(); // 세션/producer (블로킹 전송 중 가상 스레드가 고정되지 않도록 synchronized 대신 사용)
+        private final ReentrantLock lock = new ReentrantLock();     // 배치 대기 목록 (호출 스레드는 이 락만 잠깐 잡음)
+        private final ThreadPoolExecutor sender; // 이 producer의 전송을 순서대로 실행하는 스레드 하나 (같은 상담 세션의 순서 유지)
+        private final Set<CompletableFuture<?>> awaitingAck = ConcurrentHashMap.newKeySet(); // PERSISTENT: 보냈지만 브로커 ack 전
+        private JCSMPSession session;
+        private XMLMessageProducer producer;
+        private volatile boolean down; // 재연결 실패 (Solace 컨텍스트 스레드에서 설정)
 
-            Topic topic = JCSMPFactory.onlyInstance().createTopic(topicName);
+        // 배치 모드 전용: 대기 메시지(FIFO라서 세션별 순서 유지, lock)와 재사용하는 sendMultiple 항목(sendLock)
+        private final ArrayDeque<PendingMessage> pending = new ArrayDeque<>();
+        private final JCSMPSendMultipleEntry[] entries = new JCSMPSendMultipleEntry[MAX_SEND_MULTIPLE];
+        private final PendingMessage[] inFlight = new PendingMessage[MAX_SEND_MULTIPLE];
+        private boolean flushScheduled;
 
-            XMLMessageProducer producer = session.getMessageProducer(new JCSMPStreamingPublishCorrelatingEventHandler() {
-                @Override
-                public void responseReceivedEx(Object key) {
-                    System.out.println("Solace 메시지 전송 성공: " + key.toString());
+        PublisherSlot(int index) {
+            this.index = index;
+            String name = "solace-publisher-" + index;
+            ThreadFactory threadFactory = virtualThreads ? VirtualThreads.factory(name + "-") : r -> {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            };
+            this.sender = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity), threadFactory);
+        }
+
+        // 전송 스레드에 작업을 넘기고, 대기열이 가득 찼거나 종료 중이면 future를 실패시킴
+        void execute(Runnable task, CompletableFuture<Void> future) {
+            try {
+                sender.execute(task);
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        // 대기 목록에 넣기만 하고, 개수가 차거나 시간 창이 지나면 전송 스레드에서 flush
+        void enqueue(XMLMessage msg, Topic topic, CompletableFuture<Void> future) {
+            boolean flushNow = false;
+            boolean scheduleFlush = false;
+            lock.lock();
+            try {
+                if (pending.size() >= queueCapacity) {
+                    future.completeExceptionally(new RejectedExecutionException("Solace 배치 대기 메시지 수 초과 (producer " + index + ")"));
+                    return;
+                }
+                pending.addLast(new PendingMessage(msg, topic, future));
+                if (pending.size() >= batchMaxMessages) {
+                    flushNow = true;
+                } else if (!flushScheduled) {
+                    flushScheduled = true;
+                    scheduleFlush = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (flushNow) {
+                submitFlush();
+            } else if (scheduleFlush) {
+                try {
+                    batchFlusher.schedule(this::submitFlush, batchWindowMs, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    rejectPending(e); // close 이후: 예외 대신 실패한 future로 알림
+                }
+            }
+        }
+
+        // 전송 스레드가 받지 못하면 대기열이 가득 찬 경우 메시지는 대기 목록에 남아 다음 enqueue에서 보내고,
+        // 종료된 경우에는 보낼 곳이 없으므로 실패시킨다
+        private void submitFlush() {
+            try {
+                sender.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                if (sender.isShutdown()) {
+                    rejectPending(e);
+                    return;
+                }
+                lock.lock();
+                try {
+                    flushScheduled = false;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        private void rejectPending(RejectedExecutionException e) {
+            List<PendingMessage> rejected;
+            lock.lock();
+            try {
+                flushScheduled = false;
+                rejected = new ArrayList<>(pending);
+                pending.clear();
+            } finally {
+                lock.unlock();
+            }
+            for (PendingMessage message : rejected) {
+                message.future().completeExceptionally(e);
+            }
+        }
+
+        // 대기 메시지를 최대 50개씩 꺼내 sendMultiple로 묶어서 전송 (꺼낼 때만 lock을 잡아 enqueue를 막지 않음)
+        void flush() {
+            sendLock.lock();
+            try {
+                lock.lock();
+                try {
+                    flushScheduled = false;
+                } finally {
+                    lock.unlock();
+                }
+                while (true) {
+                    int count;
+                    lock.lock();
+                    try {
+                        count = Math.min(pending.size(), MAX_SEND_MULTIPLE);
+                        for (int i = 0; i < count; i++) {
+                            inFlight[i] = pending.pollFirst();
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                    if (count == 0) {
+                        return;
+                    }
+                    for (int i = 0; i < count; i++) {
+                        PendingMessage message = inFlight[i];
+                        if (entries[i] == null) {
+                            entries[i] = JCSMPFactory.onlyInstance().createSendMultipleEntry(message.msg(), message.topic());
+                        } else {
+                            entries[i].setMessage(message.msg()).setDestination(message.topic());
+                        }
+                    }
+                    sendBatch(count);
+                    for (int i = 0; i < count; i++) {
+                        inFlight[i] = null;
+                    }
                 }
+            } finally {
+                sendLock.unlock();
+            }
+        }
+
+        private void sendBatch(int count) {
+            int sent = 0;
+            for (int attempt = 0; attempt < 2 && sent < count; attempt++) {
+                try {
+                    XMLMessageProducer batchProducer = producer();
+                    if (persistent) {
+                        for (int i = sent; i < count; i++) {
+                            awaitingAck.add(inFlight[i].future());
+                        }
+                    }
+                    while (sent < count) {
+                        int n = batchProducer.sendMultiple(entries, sent, count - sent, 0);
+                        if (n <= 0) {
+                            throw new JCSMPException("sendMultiple이 메시지를 전송하지 못함");
+                        }
+                        for (int i = sent; i < sent + n; i++) {
+                            if (!persistent) {
+                                inFlight[i].future().complete(null);
+                            }
+                        }
+                        sent += n;
+                    }
+                } catch (JCSMPException e) {
+                    logFailure("Solace 배치 전송 실패 (producer " + index + ", 시도 " + (attempt + 1) + ")", e);
+                    // 보내지 못한 [sent, count)는 다시 보내거나 아래에서 실패 처리, 이미 보낸 [0, sent)의 ack 대기는 invalidate에서 실패 처리
+                    for (int i = sent; i < count; i++) {
+                        awaitingAck.remove(inFlight[i].future());
+                    }
+                    invalidate();
+                    if (attempt == 1) {
+                        for (int i = sent; i < count; i++) {
+                            inFlight[i].future().completeExceptionally(e);
+                        }
+                    }
+                }
+            }
+        }
 
-                @Override
-                public void handleErrorEx(Object key, JCSMPException cause, long timestamp) {
-                    System.out.printf("[ERROR] Solace 메시지 전송 실패: %s@%s - %s%n", key.toString(), timestamp, cause);
+        void send(XMLMessage msg, Topic topic, CompletableFuture<Void> future) {
+            sendLock.lock();
+            try {
+                // 끊긴 세션이면 한 번 다시 연결해서 재시도
+                for (int attempt = 0; attempt < 2; attempt++) {
+                    try {
+                        XMLMessageProducer sendProducer = producer();
+                        if (persistent) {
+                            awaitingAck.add(future); // ack가 send 반환보다 먼저 올 수 있으므로 보내기 전에 등록
+                        }
+                        sendProducer.send(msg, topic);
+                        if (!persistent) {
+                            future.complete(null);
+                        }
+                        return;
+                    } catch (JCSMPException e) {
+                        logFailure("Solace 메시지 전송 실패 (producer " + index + ", 시도 " + (attempt + 1) + ")", e);
+                        awaitingAck.remove(future); // 이 메시지는 다시 보내거나 아래에서 실패 처리
+                        invalidate();
+                        if (attempt == 1) {
+                            future.completeExceptionally(e);
+                        }
+                    }
                 }
-            });
+            } finally {
+                sendLock.unlock();
+            }
+        }
+
+        // 세션과 producer는 최초 전송 시 한 번 연결하고 계속 재사용
+        private XMLMessageProducer producer() throws JCSMPException {
+            if (down) {
+                invalidate();
+                down = false;
+            }
+            if (session == null || session.isClosed()) {
+                session = solaceFactory.createSession(null, this);
+                session.connect();
+                producer = null;
+                log.info("Solace 발행 세션 연결 완료 (producer {})", index);
+            }
+            if (producer == null || producer.isClosed()) {
+                producer = session.getMessageProducer(this);
+            }
+            return producer;
+        }
+
+        // 세션을 닫으면 이미 보낸 메시지의 ack 콜백이 더 오지 않으므로 기다리던 future를 모두 실패시킨다
+        private void invalidate() {
+            if (session != null) {
+                session.closeSession();
+            }
+            session = null;
+            producer = null;
+            failAwaitingAck("Solace 발행 세션이 닫혀 브로커 ack를 받지 못함 (producer " + index + ")");
+        }
+
+        private void failAwaitingAck(String reason) {
+            if (awaitingAck.isEmpty()) {
+                return;
+            }
+            JCSMPException cause = new JCSMPException(reason);
+            for (CompletableFuture<?> future : awaitingAck) {
+                awaitingAck.remove(future);
+                future.completeExceptionally(cause);
+            }
+        }
+
+        // 전송 스레드에 남은 작업을 마치고, 남은 배치를 보낸 뒤 세션 종료
+        void close() {
+            sender.shutdown();
+            try {
+                sender.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (batchEnabled) {
+                flush();
+            }
+            sendLock.lock();
+            try {
+                invalidate();
+            } finally {
+                sendLock.unlock();
+            }
+        }
+
+        @Override
+        public void responseReceivedEx(Object key) {
+            if (key instanceof CompletableFuture<?> future) {
+                awaitingAck.remove(future);
+                future.complete(null);
+            }
+        }
 
-            TextMessage msg = JCSMPFactory.onlyInstance().createMessage(TextMessage.class);
-            msg.setText(messageText);
-            //msg.setDeliveryMode(DeliveryMode.PERSISTENT);
-            producer.send(msg, topic);
+        @Override
+        public void handleErrorEx(Object key, JCSMPException cause, long timestamp) {
+            logFailure("Solace 메시지 전송 실패 (브로커 응답): " + key + "@" + timestamp, cause);
+            if (key instanceof CompletableFuture<?> future) {
+                awaitingAck.remove(future);
+                future.completeExceptionally(cause);
+            }
+        }
 
-            System.out.println("Solace로 전송 완료: " + messageText + " > " + topicName);
-            session.closeSession();
-        } catch (JCSMPException e) {
-            e.printStackTrace();
-            System.err.println("[ERROR] Solace 메시지 전송 실패: " + e.getMessage());
+        // JCSMP 자동 재연결(reconnectRetries) 상태 변화 처리
+        @Override
+        public void handleEvent(SessionEventArgs event) {
+            log.info("Solace 발행 세션 이벤트 (producer {}): {} - {}", index, event.getEvent(), event.getInfo());
+            if (event.getEvent() == SessionEvent.DOWN_ERROR) {
+                // 재연결 시도가 모두 실패한 경우: 다음 전송 때 새 세션을 만든다
+                // (전송 중인 스레드가 락을 잡고 있을 수 있으므로 세션 정리는 표시만 하고, ack를 기다리던 future는 바로 실패)
+                down = true;
+                failAwaitingAck("Solace 발행 세션 재연결 실패 (producer " + index + ")");
+            }
         }
     }
 }
@@ -0,0 +1,23 @@
+package com.demo.solace;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import stt.TranscriptEvent;
+
+// Solace 조각 메시지 본문(TranscriptEvent, protobuf) 스키마 버전과 디코딩
+public final class TranscriptEvents {
+
+    public static final int VERSION = 1;
+
+    private TranscriptEvents() {
+    }
+
+    // protobuf 형식이 아니거나 모르는 버전이면 null
+    static TranscriptEvent decode(byte[] data) {
+        try {
+            TranscriptEvent event = TranscriptEvent.parseFrom(data);
+            return event.getVersion() == VERSION ? event : null;
+        } catch (InvalidProtocolBufferException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.demo.transcript;
+
+import com.demo.config.SttGrpcClientProperties;
+import com.demo.logging.LogSampler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// JDBC(기본: 내장 H2 파일 DB) write-behind 저장소
+// 호출하면 고정 크기 대기열에 넣고 바로 반환하며, 쓰기 전용 스레드가 batchSize개 또는 flushInterval마다 모아 batch insert 한다
+// 대기열이 가득 차면 호출 스레드를 막지 않고 해당 기록을 버린다 (stt.store.dropped로 집계)
+@Component
+public class JdbcTranscriptStore implements TranscriptStore {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcTranscriptStore.class);
+
+    private static final String INSERT_CHUNK =
+            "INSERT INTO stt_chunk (customer_id, session_id, chunk_id, text, received_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String MERGE_TRANSCRIPT =
+            "MERGE INTO stt_transcript (customer_id, session_id, text, finished_at) KEY (customer_id, session_id) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ArrayBlockingQueue<Write> queue;
+    private final ExecutorService writer;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private volatile boolean running = true;
+
+    private final LogSampler droppedLog = new LogSampler(1, TimeUnit.SECONDS);
+
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Timer batchLatency;
+
+    public JdbcTranscriptStore(JdbcTemplate jdbcTemplate, SttGrpcClientProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(properties.getStoreQueueCapacity());
+        this.batchSize = Math.max(1, properties.getStoreBatchSize());
+        this.flushIntervalMs = Math.max(1, properties.getStoreFlushIntervalMs());
+
+        Gauge.builder("stt.pipeline.queue.depth", queue, ArrayBlockingQueue::size)
+                .tag("stage", "store")
+                .description("DB 저장을 기다리는 STT 조각/최종 대화 수")
+                .register(meterRegistry);
+        this.written = Counter.builder("stt.store.writes")
+                .description("DB에 저장한 STT 조각/최종 대화 수")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("stt.store.dropped")
+                .description("저장 대기열이 가득 차 버린 기록 수")
+                .register(meterRegistry);
+        this.failed = Counter.builder("stt.store.failures")
+                .description("재시도 후에도 DB 저장에 실패한 기록 수")
+                .register(meterRegistry);
+        this.batchLatency = Timer.builder("stt.store.batch.latency")
+                .description("batch insert 한 번의 소요 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "transcript-store-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.execute(this::runWriter);
+    }
+
+    @Override
+    public void saveChunk(String customerId, String sessionId, int chunkId, String text) {
+        enqueue(new Write(false, customerId, sessionId, chunkId, text, System.currentTimeMillis()));
+    }
+
+    @Override
+    public void saveFinal(String customerId, String sessionId, String text) {
+        enqueue(new Write(true, customerId, sessionId, -1, text, System.currentTimeMillis()));
+    }
+
+    private void enqueue(Write write) {
+        if (!queue.offer(write)) {
+            dropped.increment();
+            long skipped = droppedLog.tryAcquire();
+            if (skipped >= 0) {
+                log.warn("저장 대기열 가득 참 → 기록 버림: {}/{} {} (직전 생략 {}건)", write.customerId(), write.sessionId(),
+                        write.isFinal() ? "(최종 대화)" : "[" + write.chunkId() + "]", skipped);
+            }
+        }
+    }
+
+    private void runWriter() {
+        List<Write> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                Write first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 조각과 최종 대화를 나눠 각각 batch insert, 실패하면 한 번 더 시도한 뒤 버림
+    private void flush(List<Write> batch) {
+        List<Object[]> chunks = new ArrayList<>(batch.size());
+        List<Object[]> finals = new ArrayList<>();
+        for (Write write : batch) {
+            Timestamp at = new Timestamp(write.timestampMs());
+            if (write.isFinal()) {
+                finals.add(new Object[]{write.customerId(), write.sessionId(), write.text(), at});
+            } else {
+                chunks.add(new Object[]{write.customerId(), write.sessionId(), write.chunkId(), write.text(), at});
+            }
+        }
+        long start = System.nanoTime();
+        writeWithRetry(INSERT_CHUNK, chunks);
+        writeWithRetry(MERGE_TRANSCRIPT, finals);
+        batchLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void writeWithRetry(String sql, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            try {
+                jdbcTemplate.batchUpdate(sql, rows);
+                written.increment(rows.size());
+                return;
+            } catch (DataAccessException e) {
+                log.error("STT 기록 DB 저장 실패 ({}건, 시도 {}): {}", rows.size(), attempt, e.getMessage());
+            }
+        }
+        failed.increment(rows.size());
+    }
+
+    // 남은 기록을 저장한 뒤 종료
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Write(boolean isFinal, String customerId, String sessionId, int chunkId, String text, long timestampMs) {
+    }
+}
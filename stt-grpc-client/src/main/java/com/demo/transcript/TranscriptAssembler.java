@@ -0,0 +1,243 @@
+package com.demo.transcript;
+
+import com.demo.config.SttGrpcClientProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 세션별 STT 조각을 도착하는 대로 이어 붙이는 조립기
+// chunkId가 뒤바뀌어 도착하면 작은 순환 버퍼(reorder window)에 잠시 두었다가 앞 번호가 채워지면 이어 붙인다
+// 창을 넘어서는 번호가 오면 빠진 번호는 유실로 보고 건너뛴다
+// stop이 오지 않는 세션은 마지막 조각 후 TTL이 지나면 제거하고, 세션 수/메모리 상한을 넘으면 오래된 세션부터 제거한다
+@Component
+public class TranscriptAssembler {
+
+    private static final Logger log = LoggerFactory.getLogger(TranscriptAssembler.class);
+
+    private static final int CHAR_BYTES = 2; // 메모리 추정: 문자당 2바이트
+
+    private final ConcurrentHashMap<String, SessionTranscript> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final int reorderWindow;
+    private final int maxSessions;
+    private final long maxBytes;
+    private final long idleTtlNanos;
+    private final ScheduledExecutorService sweeper;
+
+    private final Counter evictedIdle;
+    private final Counter evictedCapacity;
+    private final Counter skippedChunks;
+    private final Counter duplicateChunks;
+
+    public TranscriptAssembler(SttGrpcClientProperties properties, MeterRegistry meterRegistry) {
+        this.reorderWindow = Math.max(1, properties.getTranscriptReorderWindow());
+        this.maxSessions = Math.max(1, properties.getTranscriptMaxSessions());
+        this.maxBytes = properties.getTranscriptMaxBytes();
+        this.idleTtlNanos = TimeUnit.MILLISECONDS.toNanos(properties.getTranscriptIdleTtlMs());
+
+        Gauge.builder("stt.transcript.sessions", sessions, ConcurrentHashMap::size)
+                .description("조립 중인 상담 세션 수")
+                .register(meterRegistry);
+        Gauge.builder("stt.transcript.bytes", totalBytes, AtomicLong::get)
+                .description("조립 중인 대화의 추정 메모리 사용량")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.evictedIdle = Counter.builder("stt.transcript.evictions").tag("reason", "idle")
+                .description("stop 없이 제거된 세션 수")
+                .register(meterRegistry);
+        this.evictedCapacity = Counter.builder("stt.transcript.evictions").tag("reason", "capacity")
+                .description("stop 없이 제거된 세션 수")
+                .register(meterRegistry);
+        this.skippedChunks = Counter.builder("stt.transcript.chunks.skipped")
+                .description("재정렬 창을 벗어나 유실로 처리한 chunkId 수")
+                .register(meterRegistry);
+        this.duplicateChunks = Counter.builder("stt.transcript.chunks.duplicate")
+                .description("이미 반영했거나 너무 늦게 도착해 버린 조각 수")
+                .register(meterRegistry);
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "transcript-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepMs = Math.max(1, properties.getTranscriptSweepIntervalMs());
+        sweeper.scheduleWithFixedDelay(() -> sweep(System.nanoTime()), sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+    }
+
+    // 조각 하나 반영 (Solace 수신 스레드에서 호출)
+    public void accept(String sessionKey, int chunkId, String text) {
+        while (true) {
+            SessionTranscript transcript = sessions.get(sessionKey);
+            if (transcript == null) {
+                if (sessions.size() >= maxSessions) {
+                    evictOldest(sessions.size() - maxSessions + 1);
+                }
+                transcript = sessions.computeIfAbsent(sessionKey, SessionTranscript::new);
+            }
+            long total = transcript.add(chunkId, text);
+            if (total < 0) {
+                continue; // 제거되는 중인 세션을 잡았으면 새로 만들어 다시 시도
+            }
+            if (total > maxBytes) {
+                evictOverMemory();
+            }
+            return;
+        }
+    }
+
+    // 남은 조각까지 이어 붙인 최종 대화를 반환하고 세션 제거 (받은 조각이 없으면 null)
+    public String finish(String sessionKey) {
+        SessionTranscript transcript = sessions.remove(sessionKey);
+        if (transcript == null) {
+            return null;
+        }
+        return transcript.retire(true);
+    }
+
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    public long bytes() {
+        return totalBytes.get();
+    }
+
+    // 마지막 조각 이후 TTL이 지난 세션 제거
+    void sweep(long nowNanos) {
+        for (SessionTranscript transcript : sessions.values()) {
+            if (nowNanos - transcript.lastUpdateNanos > idleTtlNanos) {
+                evict(transcript, evictedIdle, "TTL 초과");
+            }
+        }
+    }
+
+    // 메모리 상한을 넘으면 상한의 90%까지 오래된 세션부터 제거 (매 조각마다 정렬하지 않도록 여유를 둠)
+    private synchronized void evictOverMemory() {
+        if (totalBytes.get() <= maxBytes) {
+            return;
+        }
+        long target = maxBytes - maxBytes / 10;
+        for (SessionTranscript transcript : oldestFirst()) {
+            if (totalBytes.get() <= target) {
+                return;
+            }
+            evict(transcript, evictedCapacity, "메모리 상한 초과");
+        }
+    }
+
+    private synchronized void evictOldest(int count) {
+        List<SessionTranscript> oldest = oldestFirst();
+        for (int i = 0; i < count && i < oldest.size(); i++) {
+            evict(oldest.get(i), evictedCapacity, "세션 수 상한 초과");
+        }
+    }
+
+    private List<SessionTranscript> oldestFirst() {
+        List<SessionTranscript> snapshot = new ArrayList<>(sessions.values());
+        snapshot.sort(Comparator.comparingLong(transcript -> transcript.lastUpdateNanos));
+        return snapshot;
+    }
+
+    private void evict(SessionTranscript transcript, Counter counter, String reason) {
+        if (!sessions.remove(transcript.key, transcript)) {
+            return;
+        }
+        String text = transcript.retire(false);
+        counter.increment();
+        log.warn("stop 없이 STT 대화 제거 ({}): {} ({}자)", reason, transcript.key, text != null ? text.length() : 0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    // 한 세션의 대화: 이어 붙인 앞부분(text) + 아직 앞 번호를 기다리는 조각들(window, chunkId % 크기 위치)
+    private final class SessionTranscript {
+
+        private final String key;
+        private final StringBuilder text = new StringBuilder();
+        private final String[] window = new String[reorderWindow];
+        private int nextChunkId;   // 다음에 이어 붙일 번호
+        private long bytes;
+        private boolean retired;
+        private volatile long lastUpdateNanos = System.nanoTime();
+
+        SessionTranscript(String key) {
+            this.key = key;
+        }
+
+        // 반영 후 전체 추정 바이트 수를 반환 (반영하지 않았으면 0), 이미 제거된 세션이면 -1
+        // 전체 집계는 retire와 같은 락 안에서 갱신해야 제거와 엇갈려 이중으로 더해지지 않음
+        synchronized long add(int chunkId, String chunk) {
+            if (retired) {
+                return -1;
+            }
+            lastUpdateNanos = System.nanoTime();
+            if (chunkId < nextChunkId || window[chunkId % window.length] != null && chunkId < nextChunkId + window.length) {
+                duplicateChunks.increment();
+                return 0;
+            }
+            // 창을 넘어서는 번호: 창이 chunkId를 담을 수 있을 때까지 앞으로 밀고, 비어 있던 번호는 건너뜀
+            while (chunkId >= nextChunkId + window.length) {
+                advance();
+            }
+            window[chunkId % window.length] = chunk;
+            while (window[nextChunkId % window.length] != null) {
+                advance();
+            }
+            long added = (long) (chunk.length() + 1) * CHAR_BYTES;
+            bytes += added;
+            return totalBytes.addAndGet(added);
+        }
+
+        private void advance() {
+            int slot = nextChunkId % window.length;
+            String chunk = window[slot];
+            if (chunk != null) {
+                if (text.length() > 0) {
+                    text.append(' ');
+                }
+                text.append(chunk);
+                window[slot] = null;
+            } else {
+                skippedChunks.increment();
+            }
+            nextChunkId++;
+        }
+
+        // 세션을 닫고 메모리 집계에서 제외, drain이면 창에 남은 조각도 번호 순서대로 붙여서 반환
+        synchronized String retire(boolean drain) {
+            if (retired) {
+                return null;
+            }
+            retired = true;
+            totalBytes.addAndGet(-bytes);
+            if (drain) {
+                for (int i = 0; i < window.length; i++) {
+                    String chunk = window[(nextChunkId + i) % window.length];
+                    if (chunk != null) {
+                        if (text.length() > 0) {
+                            text.append(' ');
+                        }
+                        text.append(chunk);
+                    }
+                }
+            }
+            return text.length() > 0 ? text.toString() : null;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.demo.transcript;
+
+// STT 조각/최종 대화 저장소
+// 호출 스레드(Solace 수신 스레드)에서 바로 반환해야 하므로 구현체는 쓰기를 대기열에 넣고 따로 저장한다
+public interface TranscriptStore {
+
+    void saveChunk(String customerId, String sessionId, int chunkId, String text);
+
+    void saveFinal(String customerId, String sessionId, String text);
+}
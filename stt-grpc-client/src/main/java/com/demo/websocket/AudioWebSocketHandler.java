@@ -1,25 +1,24 @@
 package com.demo.websocket;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.BinaryWebSocketHandler;
 
-import java.util.ArrayList;
-import java.util.List;
-
+// 음성은 AudioWebSocketServer → gRPC로 전달되고 원본 녹음은 gRPC 서버의 AudioArchive가 보관하므로 여기서는 쌓아 두지 않는다
 public class AudioWebSocketHandler extends BinaryWebSocketHandler {
-    private final List<byte[]> audioChunks = new ArrayList<>();
+
+    private static final Logger log = LoggerFactory.getLogger(AudioWebSocketHandler.class);
 
     @Override
     public void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
-        System.out.println("받은 음성 데이터 크기: " + message.getPayloadLength() + " bytes");
-        audioChunks.add(message.getPayload().array());
+        log.debug("받은 음성 데이터 크기: {} bytes", message.getPayloadLength());
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        System.out.println("WebSocket 연결 종료: " + session.getId());
+        log.info("WebSocket 연결 종료: {}", session.getId());
     }
 }
-
@@ -1,39 +1,88 @@
 package com.demo.websocket;
 
+import com.demo.config.SttGrpcClientProperties;
+import com.demo.executor.SessionLaneExecutor;
+import com.demo.grpc.FlowControlListener;
 import com.demo.grpc.SttGrpcClient;
+import com.demo.logging.LogSampler;
 import com.demo.solace.TopicPublisher;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.websocket.*;
 import jakarta.websocket.server.ServerEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 @ServerEndpoint("/audio-stream")
 @Component
 public class AudioWebSocketServer {
 
+    private static final Logger log = LoggerFactory.getLogger(AudioWebSocketServer.class);
+
     private static final CopyOnWriteArraySet<Session> sessions = new CopyOnWriteArraySet<>();
     private static final Map<String, String> userSessions = new ConcurrentHashMap<>();
+    private static final Map<String, SessionOutbound> outbounds = new ConcurrentHashMap<>(); // 세션 ID → 브라우저 전송 대기열 (STT 결과 라우팅)
     private static SttGrpcClient grpcClient; // static으로 변경하여 주입 가능하도록 설정
     private static TopicPublisher topicPublisher;
-    private static final ExecutorService executorService = Executors.newFixedThreadPool(10); // 최대 10개까지 동시에 실행 가능한 스레드 풀 추가
+    private static SessionLaneExecutor sessionLanes; // stop 처리를 같은 세션의 STT 결과 전달 뒤에 실행
+    private static final long STOP_WAIT_SECONDS = 30; // 서버가 남은 결과를 보내고 스트림을 닫기까지 기다리는 최대 시간
+    private static final String OUTBOUND = "outbound";
+    private static SttGrpcClientProperties properties;
+    private static Counter evictions;
+    private static Counter audioChunks;
+    private static Counter audioBytes;
+    private static Timer receiveLatency;
+    private static final LogSampler unauthenticatedLog = new LogSampler(1, TimeUnit.SECONDS); // auth 전에 오는 음성은 청크마다 반복됨
 
     @Autowired
     public void setGrpcClient(SttGrpcClient grpcClient) { // ✅ Setter 메서드로 Spring Bean을 주입
         AudioWebSocketServer.grpcClient = grpcClient;
     }
 
+    @Autowired
+    public void setSessionLanes(SessionLaneExecutor sessionLanes, MeterRegistry meterRegistry) {
+        AudioWebSocketServer.sessionLanes = sessionLanes;
+        Gauge.builder("stt.websocket.sessions.open", sessions, CopyOnWriteArraySet::size)
+                .register(meterRegistry);
+        Gauge.builder("stt.pipeline.queue.depth", outbounds, AudioWebSocketServer::queuedMessages)
+                .tag("stage", "websocket-outbound")
+                .description("브라우저로 전송을 기다리는 메시지 수")
+                .register(meterRegistry);
+        evictions = Counter.builder("stt.websocket.evictions")
+                .description("전송 대기열 초과/전송 실패로 끊은 느린 브라우저 연결 수")
+                .register(meterRegistry);
+        audioChunks = Counter.builder("stt.websocket.audio.chunks")
+                .description("브라우저에서 받은 음성 청크 수")
+                .register(meterRegistry);
+        audioBytes = Counter.builder("stt.websocket.audio.bytes")
+                .description("브라우저에서 받은 음성 바이트")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        receiveLatency = Timer.builder("stt.websocket.receive")
+                .description("음성 청크 하나를 받아 세션 전송 버퍼에 넣기까지 (리샘플링 포함)")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Autowired
+    public void setProperties(SttGrpcClientProperties properties) {
+        AudioWebSocketServer.properties = properties;
+    }
+
     @Autowired
     public void setTopicPublisher(TopicPublisher topicPublisher) {
         AudioWebSocketServer.topicPublisher = topicPublisher;
@@ -47,8 +96,10 @@ public class AudioWebSocketServer {
     public void onOpen(Session session) {
         Date date = new Date(); //웹소켓 세션 시작 시간
         session.getUserProperties().put("sessionStartTime", formatDate(date, "yyyyMMddHHmmssSSS"));
+        session.getUserProperties().put(OUTBOUND, new SessionOutbound(session,
+                properties.getWebSocketOutboundQueueCapacity(), properties.getWebSocketSendTimeoutMs(), evictions));
         sessions.add(session);
-        System.out.printf("🔗 %s에 WebSocket 연결됨%n", formatDate(date, "yyyy년 M월 d일 HH시 mm분 ss초.SSS"));
+        log.info("{}에 WebSocket 연결됨", formatDate(date, "yyyy년 M월 d일 HH시 mm분 ss초.SSS"));
     }
 
     private String makeSessionId(Session session, String customerId) {
@@ -56,6 +107,7 @@ public class AudioWebSocketServer {
         String sessionId = session.getUserProperties().get("sessionStartTime") + "_" + customerId + "_" + randomPart;
         session.getUserProperties().put("sessionId", sessionId);
         userSessions.put(sessionId, customerId);
+        outbounds.put(sessionId, outbound(session));
         return sessionId;
     }
 
@@ -66,78 +118,136 @@ public class AudioWebSocketServer {
             // ✅ 고객 ID 등록 (첫 메시지)
             if (json.has("type") && "auth".equals(json.get("type").getAsString())) {
                 String customerId = json.get("customerId").getAsString();
-                System.out.println("✅ 고객 ID 등록 완료: " + customerId + " (Session ID: " + makeSessionId(session, customerId) + ")");
+                String sessionId = makeSessionId(session, customerId);
+                // 세션 동안 유지할 gRPC 스트림 생성 (브라우저 샘플레이트를 알면 그 기준으로 리샘플링)
+                if (json.has("sampleRate")) {
+                    grpcClient.openStream(customerId, sessionId, json.get("sampleRate").getAsInt(), flowControlListener(session));
+                } else {
+                    grpcClient.openStream(customerId, sessionId, flowControlListener(session));
+                }
+                log.info("고객 ID 등록 완료: {} (Session ID: {})", customerId, sessionId);
                 return;
             }
 
             // ✅ 녹음 종료 메시지 처리 (비동기 실행)
             if (json.has("type") && "stop".equals(json.get("type").getAsString())) {
                 String sessionId = (String) session.getUserProperties().get("sessionId");
-                executorService.submit(() -> {
-                    String customerId = userSessions.get(sessionId);
-                    if (customerId != null) {
-                        System.out.println("🛑 녹음 종료 요청 수신! 고객 ID: " + customerId + " & 세션 ID: " + sessionId);
-                        topicPublisher.publishMessage("crm/stt/" + customerId + "/" + sessionId + "/stop", "녹음 종료");
-                    } else {
-                        System.out.println("⚠️ 고객 ID 없음. 녹음 종료 메시지 전송 불가.");
-                    }
-                });
+                if (sessionId == null) {
+                    log.warn("고객 ID 없음. 녹음 종료 메시지 전송 불가.");
+                    return;
+                }
+                String customerId = userSessions.get(sessionId);
+                // 남은 변환 결과를 모두 받은 뒤, 그 결과들의 전달 작업 다음 순서로 종료 메시지 발행 (레인이 가득 차도 버리지 않음)
+                // 시간 제한은 복사본에 적용 (스트림의 완료 future를 제한 시간에 정상 완료시켜 다른 대기자를 속이지 않도록)
+                grpcClient.closeStream(sessionId)
+                        .copy()
+                        .completeOnTimeout(null, STOP_WAIT_SECONDS, TimeUnit.SECONDS)
+                        .whenComplete((unused, e) -> sessionLanes.executeRequired(sessionId, () -> {
+                            if (customerId != null) {
+                                log.info("녹음 종료 요청 수신! 고객 ID: {} & 세션 ID: {}", customerId, sessionId);
+                                topicPublisher.publishMessage("crm/stt/" + customerId + "/" + sessionId + "/stop", "녹음 종료");
+                            } else {
+                                log.warn("고객 ID 없음. 녹음 종료 메시지 전송 불가.");
+                            }
+                        }));
             }
 
         } catch (Exception e) {
-            System.err.println("❌ JSON 메시지 처리 오류: " + e.getMessage());
-            e.printStackTrace();
+            log.error("JSON 메시지 처리 오류: {}", e.getMessage(), e);
         }
     }
 
     @OnMessage
     public void onMessage(byte[] data, Session session) {
         String sessionId = (String) session.getUserProperties().get("sessionId");
-        executorService.submit(() -> {
-            String customerId = userSessions.get(sessionId);
-            if (customerId == null) {
-                System.out.println("⚠️ 고객 ID 없음. 데이터를 처리할 수 없습니다. (Session ID: " + sessionId + ")");
-                return;
+        String customerId = sessionId != null ? userSessions.get(sessionId) : null;
+        if (customerId == null) {
+            long skipped = unauthenticatedLog.tryAcquire();
+            if (skipped >= 0) {
+                log.warn("고객 ID 없음. 데이터를 처리할 수 없습니다. (Session ID: {}, 직전 생략 {}건)", sessionId, skipped);
             }
+            return;
+        }
+
+        long start = System.nanoTime();
+        audioChunks.increment();
+        audioBytes.increment(data.length);
+        log.debug("WebSocket에서 받은 음성 데이터 크기: {} bytes (고객 ID: {})", data.length, customerId);
+
+        // 세션별 고정 크기 버퍼에 넣기만 하고 반환 (전송은 gRPC 전송 가능 시점에 수행)
+        grpcClient.sendAudioChunk(data, sessionId);
+        receiveLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
 
-            System.out.println("🎤 WebSocket에서 받은 음성 데이터 크기: " + data.length + " bytes (고객 ID: " + customerId + ")");
+    // 세션 전송 버퍼가 가득 차면 해당 브라우저에만 pause/resume 메시지를 보낸다
+    private FlowControlListener flowControlListener(Session session) {
+        return new FlowControlListener() {
+            @Override
+            public void onPause() {
+                sendControlMessage(session, "pause");
+            }
 
-            try {
-                grpcClient.sendSingleAudioChunk(data, customerId, sessionId);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+            @Override
+            public void onResume() {
+                sendControlMessage(session, "resume");
             }
-        });
+        };
+    }
+
+    private void sendControlMessage(Session session, String type) {
+        if (!session.isOpen()) {
+            return;
+        }
+        JsonObject json = new JsonObject();
+        json.addProperty("type", type);
+        // STT 결과와 같은 대기열로 보내 순서 유지
+        if (outbound(session).send(json.toString())) {
+            log.debug("흐름 제어 메시지 전송: {} (Session ID: {})", type, session.getUserProperties().get("sessionId"));
+        }
     }
 
     @OnClose
     public void onClose(Session session) {
         String sessionId = (String) session.getUserProperties().get("sessionId");
+        sessions.remove(session);
+        outbound(session).close();
+        if (sessionId == null) {
+            log.info("WebSocket 연결 종료 (고객 ID 등록 전)");
+            return;
+        }
+        outbounds.remove(sessionId);
         String customerId = userSessions.remove(sessionId);
-        System.out.println("❌ WebSocket 연결 종료: " + sessionId + " (고객 ID: " + customerId + ")");
+        grpcClient.closeStream(sessionId);
+        log.info("WebSocket 연결 종료: {} (고객 ID: {})", sessionId, customerId);
     }
 
     // 서버 종료 시 실행
     public static void shutdown() {
-        executorService.shutdown();
-        System.out.println("🛑 WebSocket 서버 종료됨 (스레드 풀 정리)");
+        if (sessionLanes != null) {
+            sessionLanes.shutdown();
+        }
+        log.info("WebSocket 서버 종료됨 (스레드 풀 정리)");
     }
 
-    // STT 결과를 브라우저로 전송하는 메서드
-    public static void sendToAllClients(String message) {
-        if ("STT 변환 실패".equals(message)) {
-            System.out.println("⚠️ STT 변환 실패 → 브라우저 전송 생략");
-            return; // 브라우저에 전송하지 않음 (blank 처리)
+    // STT 결과를 해당 세션의 브라우저로만 전송 (대기열에 넣고 바로 반환)
+    public static void sendToSession(String sessionId, String message) {
+        SessionOutbound outbound = outbounds.get(sessionId);
+        if (outbound == null) {
+            log.debug("연결된 브라우저 없음. STT 결과 전송 생략 (Session ID: {})", sessionId);
+            return;
         }
+        outbound.send(message);
+    }
 
-        for (Session session : sessions) {
-            if (session.isOpen()) {
-                try {
-                    session.getBasicRemote().sendText(message);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
+    private static SessionOutbound outbound(Session session) {
+        return (SessionOutbound) session.getUserProperties().get(OUTBOUND);
+    }
+
+    private static int queuedMessages(Map<String, SessionOutbound> outbounds) {
+        int queued = 0;
+        for (SessionOutbound outbound : outbounds.values()) {
+            queued += outbound.queued();
         }
+        return queued;
     }
 }
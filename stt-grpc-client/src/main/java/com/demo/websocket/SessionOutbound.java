@@ -0,0 +1,142 @@
+package com.demo.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+// 브라우저 연결 하나의 전송 대기열
+// 비동기 전송(getAsyncRemote)은 한 번에 하나만 진행하고 나머지는 대기열에 쌓는다 (동시에 두 개를 보내면 컨테이너가 거부)
+// 대기열이 가득 차거나 전송이 실패/시간 초과되면 느린 브라우저로 보고 연결을 끊는다 (다른 세션 전송에는 영향 없음)
+final class SessionOutbound implements SendHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionOutbound.class);
+
+    private final Session session;
+    private final int capacity;
+    private final Counter evictions;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<String> queue = new ArrayDeque<>();
+    private boolean sending;
+    private boolean closed;
+
+    SessionOutbound(Session session, int capacity, long sendTimeoutMs, Counter evictions) {
+        this.session = session;
+        this.capacity = capacity;
+        this.evictions = evictions;
+        session.getAsyncRemote().setSendTimeout(sendTimeoutMs);
+    }
+
+    // 대기열에 넣고 바로 반환, 연결이 끊겼거나 이번 메시지로 대기열이 넘치면 false
+    boolean send(String text) {
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            if (sending) {
+                if (queue.size() < capacity) {
+                    queue.addLast(text);
+                    return true;
+                }
+                closed = true;
+                queue.clear();
+            } else {
+                sending = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (closed) {
+            evict("전송 대기열 초과 (" + capacity + "개)");
+            return false;
+        }
+        return startSend(text);
+    }
+
+    // 이전 전송이 끝나면 컨테이너 스레드에서 호출됨: 다음 메시지 전송
+    @Override
+    public void onResult(SendResult result) {
+        String next;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            if (!result.isOK()) {
+                closed = true;
+                queue.clear();
+                next = null;
+            } else {
+                next = queue.pollFirst();
+                if (next == null) {
+                    sending = false;
+                    return;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (next == null) {
+            Throwable e = result.getException();
+            evict("전송 실패: " + (e != null ? e.getMessage() : "알 수 없음"));
+            return;
+        }
+        startSend(next);
+    }
+
+    // sendText는 연결이 이미 닫히는 중이면 예외를 던지므로, 그때는 대기열을 닫아 이후 메시지가 쌓이지 않게 한다
+    private boolean startSend(String text) {
+        try {
+            session.getAsyncRemote().sendText(text, this);
+            return true;
+        } catch (RuntimeException e) {
+            log.debug("브라우저 전송 시작 실패 (Session ID: {}): {}", session.getUserProperties().get("sessionId"), e.getMessage());
+            close();
+            return false;
+        }
+    }
+
+    int queued() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 연결이 정상 종료될 때 남은 메시지 폐기
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            queue.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evict(String reason) {
+        evictions.increment();
+        log.warn("느린 브라우저 연결 종료 (Session ID: {}): {}", session.getUserProperties().get("sessionId"), reason);
+        // close는 종료 프레임을 블로킹 전송하므로 결과 전달 스레드(세션 레인)를 막지 않도록 따로 실행
+        CompletableFuture.runAsync(() -> {
+            try {
+                session.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "slow consumer"));
+            } catch (IOException e) {
+                log.error("느린 브라우저 연결 종료 실패: {}", e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,19 @@
+-- STT 조각 (수신한 그대로, 중복/순서 뒤바뀜 포함)
+CREATE TABLE IF NOT EXISTS stt_chunk (
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    customer_id VARCHAR(100)  NOT NULL,
+    session_id  VARCHAR(200)  NOT NULL,
+    chunk_id    INT           NOT NULL,
+    text        VARCHAR(4000) NOT NULL,
+    received_at TIMESTAMP     NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_stt_chunk_session ON stt_chunk (customer_id, session_id, chunk_id);
+
+-- 녹음 종료 시 조립한 최종 대화 (세션당 한 건)
+CREATE TABLE IF NOT EXISTS stt_transcript (
+    customer_id VARCHAR(100) NOT NULL,
+    session_id  VARCHAR(200) NOT NULL,
+    text        CLOB         NOT NULL,
+    finished_at TIMESTAMP    NOT NULL,
+    PRIMARY KEY (customer_id, session_id)
+);
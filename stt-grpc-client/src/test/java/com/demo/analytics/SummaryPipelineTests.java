@@ -0,0 +1,100 @@
+package com.demo.analytics;
+
+import com.demo.config.SttGrpcClientProperties;
+import com.demo.solace.TopicPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SummaryPipelineTests {
+
+	private SummaryPipeline pipeline;
+
+	@AfterEach
+	void shutdown() {
+		pipeline.shutdown();
+	}
+
+	@Test
+	void batchesConversationsAndPublishesEachSummary() {
+		List<List<String>> calls = new CopyOnWriteArrayList<>();
+		TextAnalyticsEngine engine = conversations -> {
+			calls.add(conversations);
+			return CompletableFuture.completedFuture(conversations.stream().map(text -> "요약:" + text).toList());
+		};
+		TopicPublisher publisher = mock(TopicPublisher.class);
+		when(publisher.publishAsync(anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+		pipeline = new SummaryPipeline(engine, publisher, properties(1, 8, 300), new SimpleMeterRegistry());
+
+		pipeline.submit("c1", "s1", "첫 번째");
+		pipeline.submit("c1", "s2", "두 번째");
+		pipeline.submit("c2", "s3", "세 번째");
+
+		verify(publisher, timeout(2000)).publishAsync("crm/summary/c1/s1", "요약:첫 번째");
+		verify(publisher, timeout(2000)).publishAsync("crm/summary/c1/s2", "요약:두 번째");
+		verify(publisher, timeout(2000)).publishAsync("crm/summary/c2/s3", "요약:세 번째");
+		assertThat(calls).containsExactly(List.of("첫 번째", "두 번째", "세 번째"));
+	}
+
+	@Test
+	void rejectsWhenQueueIsFull() {
+		CompletableFuture<List<String>> never = new CompletableFuture<>();
+		TextAnalyticsEngine engine = conversations -> never; // 워커가 첫 배치에서 멈춰 있도록
+		pipeline = new SummaryPipeline(engine, mock(TopicPublisher.class), properties(1, 1, 0), new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(pipeline, "timeoutMs", 100L);
+
+		pipeline.submit("c", "in-flight", "a");
+		boolean accepted = true;
+		for (int i = 0; i < 10 && accepted; i++) {
+			accepted = pipeline.submit("c", "s" + i, "b");
+		}
+		assertThat(accepted).isFalse();
+	}
+
+	@Test
+	void keepsWorkingAfterEngineThrowsOrReturnsTooFewSummaries() {
+		TextAnalyticsEngine engine = conversations -> {
+			if (conversations.contains("throw")) {
+				throw new IllegalStateException("엔진 오류");
+			}
+			if (conversations.contains("short")) {
+				return CompletableFuture.completedFuture(List.of());
+			}
+			return CompletableFuture.completedFuture(conversations.stream().map(text -> "요약:" + text).toList());
+		};
+		TopicPublisher publisher = mock(TopicPublisher.class);
+		when(publisher.publishAsync(anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		pipeline = new SummaryPipeline(engine, publisher, properties(1, 1, 0), registry);
+
+		pipeline.submit("c", "throw", "throw");
+		pipeline.submit("c", "short", "short");
+		pipeline.submit("c", "ok", "정상");
+
+		// 워커 하나가 두 번 실패한 뒤에도 다음 요청을 처리
+		verify(publisher, timeout(2000)).publishAsync("crm/summary/c/ok", "요약:정상");
+		assertThat(registry.counter("stt.summary.failures").count()).isEqualTo(2);
+	}
+
+	private SttGrpcClientProperties properties(int workers, int batchMaxSize, long batchWindowMs) {
+		SttGrpcClientProperties properties = new SttGrpcClientProperties();
+		ReflectionTestUtils.setField(properties, "analyticsWorkers", workers);
+		ReflectionTestUtils.setField(properties, "analyticsQueueCapacity", 4);
+		ReflectionTestUtils.setField(properties, "analyticsBatchMaxSize", batchMaxSize);
+		ReflectionTestUtils.setField(properties, "analyticsBatchWindowMs", batchWindowMs);
+		ReflectionTestUtils.setField(properties, "analyticsTimeoutMs", 1000L);
+		return properties;
+	}
+}
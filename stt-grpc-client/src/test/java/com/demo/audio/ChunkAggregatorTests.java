@@ -0,0 +1,142 @@
+package com.demo.audio;
+
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChunkAggregatorTests {
+
+	private static final int SAMPLE_RATE = 16000;
+	private static final int FRAME_BYTES = 640; // 20ms
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+	private final List<ByteString> chunks = new CopyOnWriteArrayList<>();
+	private final List<ChunkAggregator.FlushReason> reasons = new CopyOnWriteArrayList<>();
+	private final List<ByteBuffer> released = new ArrayList<>();
+	private int backlog;
+
+	@AfterEach
+	void shutdown() {
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	void flushesOnceTargetLengthIsReached() {
+		ChunkAggregator aggregator = newAggregator(100, 10_000);
+
+		for (int i = 0; i < 5; i++) {
+			aggregator.append(frame(i, 3000));
+		}
+
+		assertThat(chunks).hasSize(1);
+		assertThat(reasons).containsExactly(ChunkAggregator.FlushReason.TARGET);
+		assertThat(chunks.get(0).size()).isEqualTo(5 * FRAME_BYTES);
+		// 프레임 순서 그대로 이어 붙음
+		assertThat(chunks.get(0).byteAt(4 * FRAME_BYTES + 2)).isEqualTo((byte) 4);
+	}
+
+	@Test
+	void growsTargetWhileSendIsBackedUpAndShrinksWhenDrained() {
+		ChunkAggregator aggregator = newAggregator(40, 10_000);
+
+		backlog = 3;
+		aggregator.append(frame(1, 3000));
+		aggregator.append(frame(2, 3000)); // 40ms 도달 → 전송이 밀려 있으므로 80ms로
+		assertThat(aggregator.getTargetMs()).isEqualTo(80);
+		for (int i = 0; i < 4; i++) {
+			aggregator.append(frame(3, 3000)); // 80ms 도달 → 160ms
+		}
+		assertThat(aggregator.getTargetMs()).isEqualTo(160);
+
+		backlog = 0;
+		for (int i = 0; i < 8; i++) {
+			aggregator.append(frame(4, 3000)); // 160ms 도달 → 밀리지 않으므로 120ms로
+		}
+		assertThat(aggregator.getTargetMs()).isEqualTo(120);
+		assertThat(chunks).extracting(ByteString::size).containsExactly(2 * FRAME_BYTES, 4 * FRAME_BYTES, 8 * FRAME_BYTES);
+	}
+
+	@Test
+	void flushesEachFrameAfterSpeechEnds() {
+		ChunkAggregator aggregator = newAggregator(200, 10_000);
+
+		aggregator.append(frame(1, 3000));
+		aggregator.append(frame(2, 3000));
+		aggregator.append(frame(3, 0)); // 쉼 시작: 모인 발화와 함께 바로 전송
+		aggregator.append(frame(4, 0));
+
+		assertThat(reasons).containsExactly(ChunkAggregator.FlushReason.PAUSE, ChunkAggregator.FlushReason.PAUSE);
+		assertThat(chunks.get(0).size()).isEqualTo(3 * FRAME_BYTES);
+		assertThat(chunks.get(1).size()).isEqualTo(FRAME_BYTES);
+	}
+
+	@Test
+	void flushesWhenOldestByteWaitsTooLong() throws InterruptedException {
+		ChunkAggregator aggregator = newAggregator(200, 50);
+
+		aggregator.append(frame(1, 3000));
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+		while (chunks.isEmpty() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(reasons).containsExactly(ChunkAggregator.FlushReason.LATENCY);
+		assertThat(chunks.get(0).size()).isEqualTo(FRAME_BYTES);
+	}
+
+	@Test
+	void passesOversizedFrameThroughAfterPendingAudio() {
+		ChunkAggregator aggregator = newAggregator(200, 10_000);
+
+		aggregator.append(frame(1, 3000));
+		byte[] large = new byte[SAMPLE_RATE * 2]; // 1초, 버퍼(240ms)보다 큼
+		aggregator.append(large);
+
+		assertThat(chunks).hasSize(2);
+		assertThat(chunks.get(0).size()).isEqualTo(FRAME_BYTES);
+		assertThat(chunks.get(1).size()).isEqualTo(large.length);
+	}
+
+	@Test
+	void closeFlushesRemainderAndReleasesBuffer() {
+		ChunkAggregator aggregator = newAggregator(200, 10_000);
+
+		aggregator.append(frame(1, 3000));
+		aggregator.close();
+		aggregator.append(frame(2, 3000));
+
+		assertThat(reasons).containsExactly(ChunkAggregator.FlushReason.CLOSE);
+		assertThat(released).hasSize(1);
+		assertThat(released.get(0).position()).isZero();
+	}
+
+	private ChunkAggregator newAggregator(int minMs, long maxLatencyMs) {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(240 * SAMPLE_RATE / 1000 * 2);
+		return new ChunkAggregator(buffer, SAMPLE_RATE, new ChunkAggregator.Settings(minMs, 240, maxLatencyMs, 600, 400), scheduler,
+				(chunk, reason) -> {
+					chunks.add(chunk);
+					reasons.add(reason);
+				}, () -> backlog, released::add);
+	}
+
+	// 20ms 프레임: 짝수 바이트에 marker, 홀수 바이트로 진폭 표현 (little-endian)
+	private static byte[] frame(int marker, int amplitude) {
+		byte[] pcm = new byte[FRAME_BYTES];
+		for (int i = 0; i < pcm.length; i += 2) {
+			short sample = (short) ((i / 2 % 2 == 0 ? amplitude : -amplitude) & 0xff00 | marker);
+			pcm[i] = (byte) sample;
+			pcm[i + 1] = (byte) (sample >> 8);
+		}
+		return pcm;
+	}
+}
@@ -0,0 +1,71 @@
+package com.demo.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PolyphaseResamplerTests {
+
+	@Test
+	void downsamplesToTargetLengthAndKeepsSpeechBand() {
+		PolyphaseResampler resampler = new PolyphaseResampler(48000, 16000);
+
+		byte[] output = resampler.process(tone(48000, 1000, 48000));
+
+		assertThat(output.length / 2).isEqualTo(16000);
+		// 1kHz 사인파(진폭 10000)의 RMS ≈ 7071, 필터 지연 구간을 제외하고 비교
+		assertThat(rms(output, 200)).isBetween(6900.0, 7250.0);
+	}
+
+	@Test
+	void suppressesContentAboveOutputNyquist() {
+		PolyphaseResampler resampler = new PolyphaseResampler(48000, 16000);
+
+		// 12kHz는 16kHz 출력에서 4kHz로 접힐(aliasing) 성분
+		byte[] output = resampler.process(tone(48000, 12000, 48000));
+
+		assertThat(rms(output, 200)).isLessThan(70.0); // -40dB 이하
+	}
+
+	@Test
+	void chunkBoundariesDoNotChangeOutput() {
+		byte[] input = tone(44100, 440, 44100);
+		byte[] whole = new PolyphaseResampler(44100, 16000).process(input);
+
+		PolyphaseResampler chunked = new PolyphaseResampler(44100, 16000);
+		ByteArrayOutputStream joined = new ByteArrayOutputStream();
+		int[] sizes = {2, 882, 1000, 8820, 4096};
+		int offset = 0;
+		for (int i = 0; offset < input.length; i++) {
+			int length = Math.min(sizes[i % sizes.length], input.length - offset);
+			joined.writeBytes(chunked.process(input, offset, length));
+			offset += length;
+		}
+
+		assertThat(joined.toByteArray()).isEqualTo(whole);
+		assertThat(whole.length / 2).isEqualTo(16000);
+	}
+
+	private static byte[] tone(int sampleRate, int frequency, int samples) {
+		byte[] pcm = new byte[samples * 2];
+		for (int i = 0; i < samples; i++) {
+			int sample = (int) Math.round(10000 * Math.sin(2 * Math.PI * frequency * i / sampleRate));
+			pcm[2 * i] = (byte) sample;
+			pcm[2 * i + 1] = (byte) (sample >> 8);
+		}
+		return pcm;
+	}
+
+	private static double rms(byte[] pcm, int skipSamples) {
+		double sum = 0;
+		int count = 0;
+		for (int i = skipSamples; i < pcm.length / 2; i++) {
+			int sample = (short) ((pcm[2 * i] & 0xff) | (pcm[2 * i + 1] << 8));
+			sum += (double) sample * sample;
+			count++;
+		}
+		return Math.sqrt(sum / count);
+	}
+}
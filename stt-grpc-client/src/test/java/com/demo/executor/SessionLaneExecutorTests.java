@@ -0,0 +1,136 @@
+package com.demo.executor;
+
+import com.demo.config.SttGrpcClientProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionLaneExecutorTests {
+
+	private SessionLaneExecutor executor;
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdown();
+	}
+
+	@Test
+	void runsEachSessionInSubmissionOrder() throws Exception {
+		executor = newExecutor(4, 8192);
+		int sessions = 16;
+		int tasksPerSession = 500;
+		Map<String, List<Integer>> executed = new ConcurrentHashMap<>();
+		CountDownLatch done = new CountDownLatch(sessions * tasksPerSession);
+
+		List<Thread> producers = new ArrayList<>();
+		for (int s = 0; s < sessions; s++) {
+			String sessionId = "session-" + s;
+			List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+			executed.put(sessionId, order);
+			producers.add(new Thread(() -> {
+				for (int i = 0; i < tasksPerSession; i++) {
+					int sequence = i;
+					executor.execute(sessionId, () -> {
+						order.add(sequence);
+						done.countDown();
+					});
+				}
+			}));
+		}
+		producers.forEach(Thread::start);
+
+		assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+		for (List<Integer> order : executed.values()) {
+			assertThat(order).hasSize(tasksPerSession).isSorted();
+		}
+	}
+
+	@Test
+	void failingTaskDoesNotStopLane() throws Exception {
+		executor = newExecutor(1, 16);
+		AtomicInteger ran = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(1);
+
+		executor.execute("session", () -> {
+			throw new IllegalStateException("boom");
+		});
+		executor.execute("session", () -> {
+			ran.incrementAndGet();
+			done.countDown();
+		});
+
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(ran).hasValue(1);
+	}
+
+	@Test
+	void dropsInsteadOfBlockingWhenLaneIsFull() throws Exception {
+		executor = newExecutor(1, 1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+		executor.execute("slow", () -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+		executor.execute("other", () -> { }); // 대기열 1칸
+		executor.execute("other", () -> { }); // 가득 참 → 제출 스레드를 막지 않고 버림
+
+		assertThat(executor.getRejectedTasks()).isEqualTo(1);
+		release.countDown();
+	}
+
+	@Test
+	void runsRequiredTaskAfterQueuedTasksWhenLaneIsFull() throws Exception {
+		executor = newExecutor(1, 1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+		executor.execute("slow", () -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+		List<String> executed = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch stopped = new CountDownLatch(1);
+		executor.execute("other", () -> executed.add("result")); // 대기열 1칸
+		executor.executeRequired("other", () -> { // 가득 참 → 버리지 않고 자리가 나면 실행
+			executed.add("stop");
+			stopped.countDown();
+		});
+		assertThat(stopped.getCount()).isEqualTo(1);
+
+		release.countDown();
+		assertThat(stopped.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(executed).containsExactly("result", "stop");
+		assertThat(executor.getRejectedTasks()).isZero();
+	}
+
+	private static SessionLaneExecutor newExecutor(int lanes, int queueCapacity) {
+		SttGrpcClientProperties properties = new SttGrpcClientProperties();
+		ReflectionTestUtils.setField(properties, "laneCount", lanes);
+		ReflectionTestUtils.setField(properties, "laneQueueCapacity", queueCapacity);
+		return new SessionLaneExecutor(properties, new SimpleMeterRegistry());
+	}
+}
@@ -0,0 +1,64 @@
+package com.demo.grpc;
+
+import com.demo.config.SttGrpcClientProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GrpcChannelPoolTests {
+
+	private GrpcChannelPool pool;
+
+	@AfterEach
+	void shutdown() {
+		pool.shutdown();
+	}
+
+	@Test
+	void spreadsSessionsToLeastLoadedChannelAndKeepsSessionAffinity() {
+		pool = newPool(ChannelBalancing.LEAST_LOADED, 2);
+
+		PooledChannel first = pool.acquire("s1");
+		PooledChannel second = pool.acquire("s2");
+		PooledChannel third = pool.acquire("s3");
+		assertThat(second).isNotSameAs(first);
+		assertThat(List.of(first.getActiveStreams(), second.getActiveStreams())).containsExactlyInAnyOrder(1, 2);
+
+		// 같은 세션이 스트림을 다시 열면 같은 채널
+		first.release();
+		assertThat(pool.acquire("s1")).isSameAs(first);
+
+		// 새 세션은 열린 스트림이 적은 채널로
+		PooledChannel idler = first.getActiveStreams() < second.getActiveStreams() ? first : second;
+		assertThat(pool.acquire("s4")).isSameAs(idler);
+	}
+
+	@Test
+	void roundRobinUsesEveryConnection() {
+		pool = newPool(ChannelBalancing.ROUND_ROBIN, 3);
+
+		PooledChannel a = pool.acquire("a");
+		PooledChannel b = pool.acquire("b");
+		PooledChannel c = pool.acquire("c");
+
+		assertThat(List.of(a, b, c)).doesNotHaveDuplicates();
+		assertThat(pool.acquire("d")).isSameAs(a);
+	}
+
+	private GrpcChannelPool newPool(ChannelBalancing balancing, int connections) {
+		SttGrpcClientProperties properties = new SttGrpcClientProperties();
+		ReflectionTestUtils.setField(properties, "grpcTargets", List.of("localhost:50051"));
+		ReflectionTestUtils.setField(properties, "grpcConnectionsPerTarget", connections);
+		ReflectionTestUtils.setField(properties, "grpcBalancing", balancing);
+		ReflectionTestUtils.setField(properties, "grpcLoadBalancingPolicy", "round_robin");
+		ReflectionTestUtils.setField(properties, "grpcKeepAliveTimeMs", 30_000L);
+		ReflectionTestUtils.setField(properties, "grpcKeepAliveTimeoutMs", 10_000L);
+		return new GrpcChannelPool(properties, new SimpleMeterRegistry());
+	}
+
+}
@@ -0,0 +1,170 @@
+package com.demo.grpc;
+
+import io.grpc.stub.ClientCallStreamObserver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import stt.SpeechChunk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SttStreamSessionTests {
+
+	private final Counter dropped = new SimpleMeterRegistry().counter("dropped");
+
+	@Test
+	void sendsOnlyWhileTransportIsReady() {
+		FakeRequestStream requestStream = new FakeRequestStream();
+		SttStreamSession session = newSession(4, OverloadPolicy.DROP_OLDEST, null);
+		session.attach(requestStream);
+
+		requestStream.ready = false;
+		session.send(new byte[]{1});
+		session.send(new byte[]{2});
+		assertThat(requestStream.sent).isEmpty();
+		assertThat(session.getBufferedFrames()).isEqualTo(2);
+
+		requestStream.becomeReady();
+		assertThat(requestStream.sent).extracting(chunk -> chunk.getAudioData().byteAt(0)).containsExactly((byte) 1, (byte) 2);
+		assertThat(session.getBufferedFrames()).isZero();
+	}
+
+	@Test
+	void dropOldestKeepsBufferBounded() {
+		FakeRequestStream requestStream = new FakeRequestStream();
+		requestStream.ready = false;
+		SttStreamSession session = newSession(2, OverloadPolicy.DROP_OLDEST, null);
+		session.attach(requestStream);
+
+		session.send(new byte[]{1});
+		session.send(new byte[]{2});
+		session.send(new byte[]{3});
+
+		assertThat(session.getBufferedFrames()).isEqualTo(2);
+		assertThat(dropped.count()).isEqualTo(1.0);
+		requestStream.becomeReady();
+		assertThat(requestStream.sent).extracting(chunk -> chunk.getAudioData().byteAt(0)).containsExactly((byte) 2, (byte) 3);
+	}
+
+	@Test
+	void coalesceAppendsToLastFrame() {
+		FakeRequestStream requestStream = new FakeRequestStream();
+		requestStream.ready = false;
+		SttStreamSession session = newSession(1, OverloadPolicy.COALESCE, null);
+		session.attach(requestStream);
+
+		session.send(new byte[]{1, 2});
+		session.send(new byte[]{3});
+
+		assertThat(session.getBufferedFrames()).isEqualTo(1);
+		assertThat(session.getBufferedBytes()).isEqualTo(3);
+		requestStream.becomeReady();
+		assertThat(requestStream.sent.get(0).getAudioData().toByteArray()).containsExactly(1, 2, 3);
+	}
+
+	@Test
+	void pauseAndResumeAreSignalledOnce() {
+		FakeRequestStream requestStream = new FakeRequestStream();
+		requestStream.ready = false;
+		AtomicInteger pauses = new AtomicInteger();
+		AtomicInteger resumes = new AtomicInteger();
+		SttStreamSession session = newSession(2, OverloadPolicy.PAUSE, new FlowControlListener() {
+			@Override
+			public void onPause() {
+				pauses.incrementAndGet();
+			}
+
+			@Override
+			public void onResume() {
+				resumes.incrementAndGet();
+			}
+		});
+		session.attach(requestStream);
+
+		for (int i = 0; i < 5; i++) {
+			session.send(new byte[]{(byte) i});
+		}
+		assertThat(pauses.get()).isEqualTo(1);
+
+		requestStream.becomeReady();
+		assertThat(resumes.get()).isEqualTo(1);
+	}
+
+	@Test
+	void closeFlushesBufferBeforeCompleting() {
+		FakeRequestStream requestStream = new FakeRequestStream();
+		requestStream.ready = false;
+		SttStreamSession session = newSession(4, OverloadPolicy.DROP_OLDEST, null);
+		session.attach(requestStream);
+
+		session.send(new byte[]{1});
+		session.close();
+		assertThat(requestStream.completed).isFalse();
+		assertThat(session.send(new byte[]{2})).isFalse();
+
+		requestStream.becomeReady();
+		assertThat(requestStream.sent).hasSize(1);
+		assertThat(requestStream.completed).isTrue();
+	}
+
+	private SttStreamSession newSession(int capacity, OverloadPolicy policy, FlowControlListener listener) {
+		return new SttStreamSession("customer", "session", capacity, policy, 1024, listener, dropped);
+	}
+
+	private static class FakeRequestStream extends ClientCallStreamObserver<SpeechChunk> {
+		private final List<SpeechChunk> sent = new ArrayList<>();
+		private boolean ready = true;
+		private boolean completed;
+		private Runnable onReadyHandler;
+
+		void becomeReady() {
+			ready = true;
+			onReadyHandler.run();
+		}
+
+		@Override
+		public void cancel(String message, Throwable cause) {
+		}
+
+		@Override
+		public boolean isReady() {
+			return ready;
+		}
+
+		@Override
+		public void setOnReadyHandler(Runnable onReadyHandler) {
+			this.onReadyHandler = onReadyHandler;
+		}
+
+		@Override
+		public void request(int count) {
+		}
+
+		@Override
+		public void setMessageCompression(boolean enable) {
+		}
+
+		@Override
+		public void disableAutoInboundFlowControl() {
+		}
+
+		@Override
+		public void onNext(SpeechChunk value) {
+			sent.add(value);
+		}
+
+		@Override
+		public void onError(Throwable t) {
+		}
+
+		@Override
+		public void onCompleted() {
+			completed = true;
+		}
+	}
+
+}
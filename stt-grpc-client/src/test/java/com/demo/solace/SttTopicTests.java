@@ -0,0 +1,26 @@
+package com.demo.solace;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SttTopicTests {
+
+	@Test
+	void parsesChunkAndStopTopics() {
+		assertThat(SttTopic.parse("crm/stt/cust-1/20250101_cust-1_ab12/chunks/42"))
+				.isEqualTo(new SttTopic(SttTopic.Kind.CHUNK, "cust-1", "20250101_cust-1_ab12", 42));
+		assertThat(SttTopic.parse("crm/stt/cust-1/s1/stop"))
+				.isEqualTo(new SttTopic(SttTopic.Kind.STOP, "cust-1", "s1", -1));
+	}
+
+	@Test
+	void ignoresOtherTopics() {
+		assertThat(SttTopic.parse("crm/stt/cust-1/s1/full")).isNull();
+		assertThat(SttTopic.parse("crm/stt/cust-1/s1/stopped")).isNull();
+		assertThat(SttTopic.parse("crm/stt/cust-1/s1/chunks/")).isNull();
+		assertThat(SttTopic.parse("crm/stt/cust-1/s1/chunks/1x")).isNull();
+		assertThat(SttTopic.parse("crm/stt//s1/stop")).isNull();
+		assertThat(SttTopic.parse("crm/summary/cust-1/s1")).isNull();
+	}
+}
@@ -0,0 +1,120 @@
+package com.demo.solace;
+
+import com.demo.config.SttGrpcClientProperties;
+import com.solacesystems.jcsmp.DeliveryMode;
+import com.solacesystems.jcsmp.JCSMPException;
+import com.solacesystems.jcsmp.JCSMPSendMultipleEntry;
+import com.solacesystems.jcsmp.JCSMPSession;
+import com.solacesystems.jcsmp.JCSMPStreamingPublishCorrelatingEventHandler;
+import com.solacesystems.jcsmp.SessionEvent;
+import com.solacesystems.jcsmp.SessionEventArgs;
+import com.solacesystems.jcsmp.SessionEventHandler;
+import com.solacesystems.jcsmp.SpringJCSMPFactory;
+import com.solacesystems.jcsmp.Topic;
+import com.solacesystems.jcsmp.XMLMessage;
+import com.solacesystems.jcsmp.XMLMessageProducer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TopicPublisherTests {
+
+	private static final String TOPIC = "crm/stt/c1/s1/chunks/0";
+
+	private final SpringJCSMPFactory solace = mock(SpringJCSMPFactory.class);
+	private final JCSMPSession session = mock(JCSMPSession.class);
+	private final XMLMessageProducer producer = mock(XMLMessageProducer.class);
+	private final AtomicReference<SessionEventHandler> sessionEvents = new AtomicReference<>();
+	private TopicPublisher publisher;
+
+	@AfterEach
+	void close() {
+		publisher.close();
+	}
+
+	@Test
+	void failsUnackedPersistentMessagesWhenReconnectGivesUp() throws Exception {
+		publisher = newPublisher(false);
+
+		CompletableFuture<Void> future = publisher.publishAsync(TOPIC, "안녕하세요");
+		verify(producer, timeout(2000)).send(any(XMLMessage.class), any(Topic.class));
+		assertThat(future).isNotDone(); // 브로커 ack 대기
+
+		SessionEventArgs event = mock(SessionEventArgs.class);
+		when(event.getEvent()).thenReturn(SessionEvent.DOWN_ERROR);
+		sessionEvents.get().handleEvent(event);
+
+		assertThat(future).failsWithin(2, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void failsUnackedPersistentMessagesWhenSessionIsReplaced() throws Exception {
+		publisher = newPublisher(false);
+
+		CompletableFuture<Void> first = publisher.publishAsync(TOPIC, "첫 번째");
+		verify(producer, timeout(2000)).send(any(XMLMessage.class), any(Topic.class));
+		doThrow(new JCSMPException("연결 끊김")).when(producer).send(any(XMLMessage.class), any(Topic.class));
+
+		CompletableFuture<Void> second = publisher.publishAsync(TOPIC, "두 번째");
+
+		assertThat(second).failsWithin(2, TimeUnit.SECONDS);
+		assertThat(first).failsWithin(2, TimeUnit.SECONDS); // 닫힌 세션의 ack는 오지 않음
+	}
+
+	@Test
+	void failsMessagesAlreadySentInAFailedBatch() throws Exception {
+		publisher = newPublisher(true);
+		// 첫 sendMultiple은 1개만 보내고, 이후 호출은 모두 실패
+		doAnswer(invocation -> 1)
+				.doThrow(new JCSMPException("연결 끊김"))
+				.when(producer).sendMultiple(any(JCSMPSendMultipleEntry[].class), anyInt(), anyInt(), anyInt());
+
+		CompletableFuture<Void> sent = publisher.publishAsync(TOPIC, "보냄");
+		CompletableFuture<Void> unsent = publisher.publishAsync(TOPIC, "못 보냄");
+
+		assertThat(unsent).failsWithin(2, TimeUnit.SECONDS);
+		assertThat(sent).failsWithin(2, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void failsBatchPublishAfterClose() throws Exception {
+		publisher = newPublisher(true);
+		publisher.close();
+
+		CompletableFuture<Void> future = publisher.publishAsync(TOPIC, "종료 후");
+
+		assertThat(future).failsWithin(2, TimeUnit.SECONDS);
+	}
+
+	private TopicPublisher newPublisher(boolean batch) throws Exception {
+		when(solace.createSession(any(), any(SessionEventHandler.class))).thenAnswer(invocation -> {
+			sessionEvents.set(invocation.getArgument(1));
+			return session;
+		});
+		when(session.getMessageProducer(any(JCSMPStreamingPublishCorrelatingEventHandler.class))).thenReturn(producer);
+
+		SttGrpcClientProperties properties = new SttGrpcClientProperties();
+		ReflectionTestUtils.setField(properties, "solacePublisherPoolSize", 1);
+		ReflectionTestUtils.setField(properties, "solaceDeliveryMode", DeliveryMode.PERSISTENT);
+		ReflectionTestUtils.setField(properties, "solacePublisherQueueCapacity", 100);
+		ReflectionTestUtils.setField(properties, "solaceBatchEnabled", batch);
+		ReflectionTestUtils.setField(properties, "solaceBatchWindowMs", 50L);
+		ReflectionTestUtils.setField(properties, "solaceBatchMaxMessages", 2);
+		return new TopicPublisher(solace, properties, new SimpleMeterRegistry());
+	}
+}
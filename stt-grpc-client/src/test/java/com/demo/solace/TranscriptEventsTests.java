@@ -0,0 +1,36 @@
+package com.demo.solace;
+
+import org.junit.jupiter.api.Test;
+import stt.TranscriptEvent;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TranscriptEventsTests {
+
+	private final TranscriptEvent event = TranscriptEvent.newBuilder()
+			.setVersion(TranscriptEvents.VERSION)
+			.setCustomerId("cust-1")
+			.setSessionId("s1")
+			.setChunkId(7)
+			.setUtteranceId("s1-7")
+			.setStartOffsetMs(1200)
+			.setEndOffsetMs(2900)
+			.setRecognizedAtMs(1760000000000L)
+			.setConfidence(0.92f)
+			.setText("안녕하세요 고객님")
+			.build();
+
+	@Test
+	void decodesCurrentVersion() {
+		assertThat(TranscriptEvents.decode(event.toByteArray())).isEqualTo(event);
+	}
+
+	@Test
+	void rejectsUnknownVersionAndNonProtobufBodies() {
+		assertThat(TranscriptEvents.decode(event.toBuilder().setVersion(2).build().toByteArray())).isNull();
+		assertThat(TranscriptEvents.decode(new byte[0])).isNull(); // version 0 (빈 메시지)
+		assertThat(TranscriptEvents.decode("{\"text\": \"안녕하세요\"}".getBytes(StandardCharsets.UTF_8))).isNull();
+	}
+}
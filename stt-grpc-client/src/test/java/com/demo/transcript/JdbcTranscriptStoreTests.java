@@ -0,0 +1,59 @@
+package com.demo.transcript;
+
+import com.demo.config.SttGrpcClientProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JdbcTranscriptStoreTests {
+
+	private EmbeddedDatabase database;
+	private JdbcTemplate jdbcTemplate;
+	private JdbcTranscriptStore store;
+
+	@BeforeEach
+	void setUp() {
+		database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.generateUniqueName(true)
+				.addScript("schema.sql")
+				.build();
+		jdbcTemplate = new JdbcTemplate(database);
+		SttGrpcClientProperties properties = new SttGrpcClientProperties();
+		ReflectionTestUtils.setField(properties, "storeQueueCapacity", 1000);
+		ReflectionTestUtils.setField(properties, "storeBatchSize", 50);
+		ReflectionTestUtils.setField(properties, "storeFlushIntervalMs", 20L);
+		store = new JdbcTranscriptStore(jdbcTemplate, properties, new SimpleMeterRegistry());
+	}
+
+	@AfterEach
+	void tearDown() {
+		store.shutdown();
+		database.shutdown();
+	}
+
+	@Test
+	void writesChunksAndFinalTranscriptInBatches() {
+		for (int i = 0; i < 120; i++) {
+			store.saveChunk("c1", "s1", i, "조각 " + i);
+		}
+		store.saveFinal("c1", "s1", "처음 대화");
+		store.saveFinal("c1", "s1", "최종 대화"); // 같은 세션은 덮어씀
+		store.shutdown(); // 남은 기록을 모두 저장한 뒤 종료
+
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stt_chunk", Integer.class)).isEqualTo(120);
+		List<String> finals = jdbcTemplate.queryForList(
+				"SELECT text FROM stt_transcript WHERE customer_id = 'c1' AND session_id = 's1'", String.class);
+		assertThat(finals).containsExactly("최종 대화");
+	}
+}
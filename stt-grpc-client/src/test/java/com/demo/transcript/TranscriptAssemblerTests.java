@@ -0,0 +1,75 @@
+package com.demo.transcript;
+
+import com.demo.config.SttGrpcClientProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TranscriptAssemblerTests {
+
+	private TranscriptAssembler assembler;
+
+	@AfterEach
+	void shutdown() {
+		assembler.shutdown();
+	}
+
+	@Test
+	void joinsOutOfOrderChunksInChunkIdOrder() {
+		assembler = newAssembler(4, 1_000_000, 100);
+
+		assembler.accept("c/s", 2, "셋");
+		assembler.accept("c/s", 0, "하나");
+		assembler.accept("c/s", 0, "하나"); // 중복
+		assembler.accept("c/s", 1, "둘");
+		assembler.accept("c/s", 4, "다섯"); // 3은 아직 도착 전
+
+		assertThat(assembler.finish("c/s")).isEqualTo("하나 둘 셋 다섯");
+		assertThat(assembler.finish("c/s")).isNull();
+		assertThat(assembler.bytes()).isZero();
+	}
+
+	@Test
+	void skipsMissingChunksBeyondReorderWindow() {
+		assembler = newAssembler(2, 1_000_000, 100);
+
+		assembler.accept("c/s", 0, "a");
+		assembler.accept("c/s", 2, "c");
+		assembler.accept("c/s", 5, "f"); // 창(2)을 넘어서 1, 3, 4는 유실 처리
+		assembler.accept("c/s", 1, "b"); // 너무 늦게 도착 → 버림
+
+		assertThat(assembler.finish("c/s")).isEqualTo("a c f");
+	}
+
+	@Test
+	void evictsIdleSessionsAndOldestOverMemoryCap() {
+		assembler = newAssembler(8, 100, 100); // 문자당 2바이트 추정: 약 50자
+
+		assembler.accept("c/old", 0, "x".repeat(20));
+		assembler.accept("c/new", 0, "y".repeat(20));
+		assertThat(assembler.sessionCount()).isEqualTo(2);
+		assembler.accept("c/newest", 0, "z".repeat(20)); // 상한 초과 → 가장 오래된 세션 제거
+
+		assertThat(assembler.finish("c/old")).isNull();
+		assertThat(assembler.bytes()).isLessThanOrEqualTo(100);
+
+		assembler.sweep(System.nanoTime() + TimeUnit.MINUTES.toNanos(11)); // TTL(10분) 경과
+		assertThat(assembler.sessionCount()).isZero();
+		assertThat(assembler.bytes()).isZero();
+	}
+
+	private TranscriptAssembler newAssembler(int reorderWindow, long maxBytes, int maxSessions) {
+		SttGrpcClientProperties properties = new SttGrpcClientProperties();
+		ReflectionTestUtils.setField(properties, "transcriptReorderWindow", reorderWindow);
+		ReflectionTestUtils.setField(properties, "transcriptIdleTtlMs", TimeUnit.MINUTES.toMillis(10));
+		ReflectionTestUtils.setField(properties, "transcriptMaxSessions", maxSessions);
+		ReflectionTestUtils.setField(properties, "transcriptMaxBytes", maxBytes);
+		ReflectionTestUtils.setField(properties, "transcriptSweepIntervalMs", 60_000L);
+		return new TranscriptAssembler(properties, new SimpleMeterRegistry());
+	}
+}
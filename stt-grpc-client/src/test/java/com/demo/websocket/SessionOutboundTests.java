@@ -0,0 +1,95 @@
+package com.demo.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SessionOutboundTests {
+
+	private Session session;
+	private RemoteEndpoint.Async remote;
+	private Counter evictions;
+
+	@BeforeEach
+	void setUp() {
+		session = mock(Session.class);
+		remote = mock(RemoteEndpoint.Async.class);
+		when(session.getAsyncRemote()).thenReturn(remote);
+		when(session.getUserProperties()).thenReturn(new HashMap<>());
+		evictions = new SimpleMeterRegistry().counter("evictions");
+	}
+
+	@Test
+	void sendsOneMessageAtATimeInOrder() {
+		SessionOutbound outbound = new SessionOutbound(session, 4, 1000, evictions);
+
+		assertThat(outbound.send("a")).isTrue();
+		assertThat(outbound.send("b")).isTrue();
+		assertThat(outbound.send("c")).isTrue();
+		// 첫 전송이 끝나기 전에는 하나만 진행
+		verify(remote, times(1)).sendText(anyString(), any());
+		assertThat(outbound.queued()).isEqualTo(2);
+
+		outbound.onResult(new SendResult());
+		outbound.onResult(new SendResult());
+		outbound.onResult(new SendResult());
+
+		var order = inOrder(remote);
+		order.verify(remote).sendText(eq("a"), eq(outbound));
+		order.verify(remote).sendText(eq("b"), eq(outbound));
+		order.verify(remote).sendText(eq("c"), eq(outbound));
+		assertThat(outbound.queued()).isZero();
+	}
+
+	@Test
+	void evictsWhenQueueOverflows() throws Exception {
+		SessionOutbound outbound = new SessionOutbound(session, 2, 1000, evictions);
+
+		outbound.send("in-flight");
+		outbound.send("q1");
+		outbound.send("q2");
+		assertThat(outbound.send("overflow")).isFalse();
+		assertThat(outbound.send("after")).isFalse();
+
+		verify(session, timeout(1000)).close(any(CloseReason.class));
+		assertThat(evictions.count()).isEqualTo(1);
+		assertThat(outbound.queued()).isZero();
+
+		// 끊은 뒤 완료 콜백이 와도 더 보내지 않음
+		outbound.onResult(new SendResult());
+		verify(remote, times(1)).sendText(anyString(), any());
+		verify(remote, never()).sendText(eq("q1"), any());
+	}
+
+	@Test
+	void closesWhenSendCannotStart() {
+		SessionOutbound outbound = new SessionOutbound(session, 4, 1000, evictions);
+		doThrow(new IllegalStateException("closing")).when(remote).sendText(eq("a"), any());
+
+		assertThat(outbound.send("a")).isFalse();
+		assertThat(outbound.send("b")).isFalse(); // 대기열에 쌓지 않음
+
+		assertThat(outbound.queued()).isZero();
+		verify(remote, never()).sendText(eq("b"), any());
+	}
+}
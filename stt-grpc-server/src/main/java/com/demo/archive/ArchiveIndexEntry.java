@@ -0,0 +1,7 @@
+package com.demo.archive;
+
+// 인덱스 항목 하나 = 수신한 청크 하나: 녹음 시작부터의 바이트 위치와 수신 시각 (재생 시 시각 → 위치 찾기용)
+public record ArchiveIndexEntry(long offset, int length, long receivedAtMs) {
+
+    static final int BYTES = Long.BYTES + Integer.BYTES + Long.BYTES;
+}
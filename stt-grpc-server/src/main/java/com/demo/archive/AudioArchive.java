@@ -0,0 +1,252 @@
+package com.demo.archive;
+
+import com.demo.config.SttGrpcServerProperties;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// 세션별 음성 녹음 보관소 (컴플라이언스용 원본 PCM)
+// {dir}/{sessionId}/segment-00000.pcm ... : 고정 크기로 미리 할당해 MappedByteBuffer로 이어 쓰는 세그먼트 파일
+// {dir}/{sessionId}/index                 : 헤더(magic, 버전, 샘플레이트, 세그먼트 크기) + 청크별 (위치, 길이, 수신 시각)
+// 녹음 위치 N은 세그먼트 N / segmentBytes의 N % segmentBytes 바이트이므로 인덱스로 시각 → 위치를 찾아 바로 읽을 수 있다
+@Component
+public class AudioArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(AudioArchive.class);
+
+    static final String INDEX_FILE = "index";
+    static final int INDEX_MAGIC = 0x53545441; // "STTA"
+    static final int INDEX_VERSION = 1;
+    static final int INDEX_HEADER_BYTES = 16;
+
+    private final boolean enabled;
+    private final Path baseDir;
+    private final int segmentBytes;
+    private final FsyncPolicy fsyncPolicy;
+    private final Set<SessionRecording> openRecordings = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService fsyncExecutor;
+
+    private final Counter archivedBytes;
+    private final Counter failures;
+
+    public AudioArchive(SttGrpcServerProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isArchiveEnabled();
+        this.baseDir = Paths.get(properties.getArchiveDir());
+        this.segmentBytes = properties.getArchiveSegmentBytes();
+        this.fsyncPolicy = properties.getArchiveFsyncPolicy();
+
+        Gauge.builder("stt.archive.recordings.open", openRecordings, Set::size)
+                .description("녹음 중인 세션 수")
+                .register(meterRegistry);
+        this.archivedBytes = Counter.builder("stt.archive.bytes")
+                .description("녹음 파일에 기록한 PCM 바이트")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.failures = Counter.builder("stt.archive.failures")
+                .description("파일 오류로 녹음을 중단한 세션 수")
+                .register(meterRegistry);
+
+        this.fsyncExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "audio-archive-fsync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled && fsyncPolicy == FsyncPolicy.INTERVAL) {
+            long intervalMs = Math.max(1, properties.getArchiveFsyncIntervalMs());
+            fsyncExecutor.scheduleWithFixedDelay(this::forceOpenRecordings, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // 녹음 시작, 보관을 껐거나 파일을 만들 수 없으면 null (인식은 그대로 진행)
+    public SessionRecording open(String sessionId, int sampleRate) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            Path dir = newSessionDir(sessionId);
+            SessionRecording recording = new SessionRecording(this, sessionId, dir, sampleRate, segmentBytes);
+            openRecordings.add(recording);
+            return recording;
+        } catch (IOException e) {
+            failures.increment();
+            log.error("녹음 파일 생성 실패 ({}): {}", sessionId, e.getMessage());
+            return null;
+        }
+    }
+
+    // 같은 세션 ID로 스트림을 다시 연 경우 {sessionId}-1, -2 ... 로 따로 보관
+    private Path newSessionDir(String sessionId) throws IOException {
+        String name = safeName(sessionId);
+        Path dir = baseDir.resolve(name);
+        for (int attempt = 1; Files.exists(dir); attempt++) {
+            dir = baseDir.resolve(name + "-" + attempt);
+        }
+        return Files.createDirectories(dir);
+    }
+
+    // 녹음의 청크 인덱스 (재생 위치 찾기용)
+    public List<ArchiveIndexEntry> readIndex(String sessionId) throws IOException {
+        return loadIndex(sessionId).entries();
+    }
+
+    public int readSampleRate(String sessionId) throws IOException {
+        return loadIndex(sessionId).sampleRate();
+    }
+
+    // 녹음 시작부터 offset 바이트 위치의 PCM을 최대 length 바이트 읽기 (녹음 중에도 인덱스에 기록된 범위까지 읽을 수 있음)
+    public ByteString read(String sessionId, long offset, int length) throws IOException {
+        Index index = loadIndex(sessionId);
+        Path dir = baseDir.resolve(safeName(sessionId));
+        ByteBuffer result = ByteBuffer.allocate((int) Math.max(0, Math.min(length, index.end() - offset)));
+        long position = offset;
+        while (result.hasRemaining()) {
+            int segmentNumber = (int) (position / index.segmentBytes());
+            long filePosition = position % index.segmentBytes();
+            result.limit((int) Math.min(result.capacity(), result.position() + index.segmentBytes() - filePosition));
+            try (FileChannel channel = FileChannel.open(dir.resolve(segmentFileName(segmentNumber)), StandardOpenOption.READ)) {
+                while (result.hasRemaining()) {
+                    int read = channel.read(result, filePosition);
+                    if (read < 0) {
+                        throw new IOException("녹음 세그먼트가 예상보다 짧습니다: " + segmentFileName(segmentNumber));
+                    }
+                    filePosition += read;
+                    position += read;
+                }
+            } catch (NoSuchFileException e) {
+                throw new IOException("녹음 세그먼트 없음: " + segmentFileName(segmentNumber), e);
+            }
+            result.limit(result.capacity());
+        }
+        return UnsafeByteOperations.unsafeWrap(result.array());
+    }
+
+    private Index loadIndex(String sessionId) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(baseDir.resolve(safeName(sessionId)).resolve(INDEX_FILE)));
+        if (buffer.remaining() < INDEX_HEADER_BYTES || buffer.getInt() != INDEX_MAGIC) {
+            throw new IOException("녹음 인덱스 형식이 아닙니다: " + sessionId);
+        }
+        int version = buffer.getInt();
+        if (version != INDEX_VERSION) {
+            throw new IOException("지원하지 않는 녹음 인덱스 버전: " + version);
+        }
+        int sampleRate = buffer.getInt();
+        int segmentSize = buffer.getInt();
+        List<ArchiveIndexEntry> entries = new ArrayList<>(buffer.remaining() / ArchiveIndexEntry.BYTES);
+        while (buffer.remaining() >= ArchiveIndexEntry.BYTES) {
+            entries.add(new ArchiveIndexEntry(buffer.getLong(), buffer.getInt(), buffer.getLong()));
+        }
+        return new Index(sampleRate, segmentSize, entries);
+    }
+
+    private record Index(int sampleRate, int segmentBytes, List<ArchiveIndexEntry> entries) {
+
+        // 인덱스에 기록된 마지막 바이트 다음 위치 (세그먼트의 미리 할당된 빈 공간은 제외)
+        long end() {
+            if (entries.isEmpty()) {
+                return 0;
+            }
+            ArchiveIndexEntry last = entries.get(entries.size() - 1);
+            return last.offset() + last.length();
+        }
+    }
+
+    static String segmentFileName(int segmentNumber) {
+        return String.format("segment-%05d.pcm", segmentNumber);
+    }
+
+    // 세션 ID를 디렉터리 이름으로 쓸 수 있게 정리
+    static String safeName(String sessionId) {
+        return sessionId.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    void recordAppend(int bytes) {
+        archivedBytes.increment(bytes);
+    }
+
+    void recordFailure() {
+        failures.increment();
+    }
+
+    // 가득 찬 세그먼트: 정책에 따라 기록 후 채널 닫기
+    void retireSegment(MappedByteBuffer segment, FileChannel channel, int length) {
+        fsyncExecutor.execute(() -> finishSegment(segment, channel, length));
+    }
+
+    void closeRecording(SessionRecording recording, MappedByteBuffer segment, FileChannel channel, int length, FileChannel indexChannel) {
+        openRecordings.remove(recording);
+        fsyncExecutor.execute(() -> {
+            if (segment != null) {
+                finishSegment(segment, channel, length);
+            }
+            try {
+                if (fsyncPolicy != FsyncPolicy.NONE) {
+                    indexChannel.force(false);
+                }
+                indexChannel.close();
+            } catch (IOException e) {
+                log.error("녹음 인덱스 정리 실패: {}", e.getMessage());
+            }
+        });
+    }
+
+    private void finishSegment(MappedByteBuffer segment, FileChannel channel, int length) {
+        try {
+            if (fsyncPolicy != FsyncPolicy.NONE) {
+                segment.force();
+            }
+            if (length < segmentBytes) {
+                try {
+                    channel.truncate(length); // 미리 확보한 뒤쪽 공간 반환
+                } catch (IOException e) {
+                    // 매핑이 살아 있으면 잘라낼 수 없는 OS(Windows)에서는 미리 할당한 크기 그대로 둠 (유효 길이는 인덱스 기준)
+                }
+            }
+            channel.close();
+        } catch (IOException e) {
+            log.error("녹음 세그먼트 정리 실패: {}", e.getMessage());
+        }
+    }
+
+    private void forceOpenRecordings() {
+        for (SessionRecording recording : openRecordings) {
+            recording.force();
+        }
+    }
+
+    // 열린 녹음을 모두 닫고 남은 기록 작업을 마친 뒤 종료
+    @PreDestroy
+    public void shutdown() {
+        for (SessionRecording recording : openRecordings) {
+            recording.close();
+        }
+        fsyncExecutor.shutdown();
+        try {
+            fsyncExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
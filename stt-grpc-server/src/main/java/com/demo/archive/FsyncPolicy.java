@@ -0,0 +1,8 @@
+package com.demo.archive;
+
+// 녹음 파일을 디스크에 강제로 기록(MappedByteBuffer.force)하는 시점 (모두 별도 스레드에서 실행)
+public enum FsyncPolicy {
+    NONE,      // OS에 맡김 (프로세스가 죽어도 페이지 캐시는 남지만 서버 장애 시 유실 가능)
+    INTERVAL,  // fsync-interval-ms마다 열린 녹음을 모두 기록
+    ON_CLOSE   // 세그먼트가 가득 찼을 때와 녹음을 닫을 때만 기록
+}
@@ -0,0 +1,161 @@
+package com.demo.archive;
+
+import com.google.protobuf.ByteString;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+// 세션 녹음 하나: PCM을 미리 할당한 세그먼트 파일에 MappedByteBuffer로 이어 쓰고, 청크마다 인덱스 항목을 남긴다
+// gRPC 수신 스레드에서는 메모리 복사만 하고, 디스크 기록(force)과 세그먼트 정리는 AudioArchive의 fsync 스레드가 맡는다
+public final class SessionRecording {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionRecording.class);
+
+    private final ReentrantLock lock = new ReentrantLock(); // 파일 쓰기 중 가상 스레드가 고정되지 않도록 synchronized 대신 사용
+    private final AudioArchive archive;
+    private final String sessionId;
+    private final Path dir;
+    private final int segmentBytes;
+    private final FileChannel indexChannel;
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(ArchiveIndexEntry.BYTES); // 재사용
+    private FileChannel segmentChannel;
+    private MappedByteBuffer segment;
+    private int segmentNumber = -1;
+    private long written;
+    private boolean dirty;
+    private boolean closed;
+
+    SessionRecording(AudioArchive archive, String sessionId, Path dir, int sampleRate, int segmentBytes) throws IOException {
+        this.archive = archive;
+        this.sessionId = sessionId;
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.indexChannel = FileChannel.open(dir.resolve(AudioArchive.INDEX_FILE),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(AudioArchive.INDEX_HEADER_BYTES)
+                .putInt(AudioArchive.INDEX_MAGIC)
+                .putInt(AudioArchive.INDEX_VERSION)
+                .putInt(sampleRate)
+                .putInt(segmentBytes)
+                .flip();
+        writeFully(indexChannel, header);
+    }
+
+    // 청크를 녹음 끝에 추가 (세그먼트가 차면 다음 세그먼트로 넘어감)
+    public void append(ByteString data) {
+        lock.lock();
+        try {
+            if (closed || data.isEmpty()) {
+                return;
+            }
+            int position = 0;
+            while (position < data.size()) {
+                if (segment == null || !segment.hasRemaining()) {
+                    roll();
+                }
+                int length = Math.min(segment.remaining(), data.size() - position);
+                data.substring(position, position + length).copyTo(segment); // 힙을 거치지 않고 매핑된 페이지로 바로 복사
+                position += length;
+            }
+            // 데이터를 쓴 뒤 인덱스 기록 (녹음 중 읽는 쪽은 인덱스에 있는 범위만 읽음)
+            indexEntry.clear();
+            indexEntry.putLong(written).putInt(data.size()).putLong(System.currentTimeMillis()).flip();
+            writeFully(indexChannel, indexEntry);
+            written += data.size();
+            dirty = true;
+            archive.recordAppend(data.size());
+        } catch (IOException e) {
+            fail(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void roll() throws IOException {
+        if (segment != null) {
+            archive.retireSegment(segment, segmentChannel, segmentBytes); // 가득 찬 세그먼트
+        }
+        segmentNumber++;
+        segmentChannel = FileChannel.open(dir.resolve(AudioArchive.segmentFileName(segmentNumber)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes); // 파일 크기를 세그먼트 크기로 미리 확보
+    }
+
+    // INTERVAL 정책에서 fsync 스레드가 호출: 쓰기 락을 잡은 채 디스크를 기다리지 않도록 참조만 가져와서 기록
+    void force() {
+        MappedByteBuffer current;
+        lock.lock();
+        try {
+            if (closed || !dirty) {
+                return;
+            }
+            dirty = false;
+            current = segment;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (current != null) {
+                current.force();
+            }
+            indexChannel.force(false);
+        } catch (IOException e) {
+            log.error("녹음 디스크 기록 실패 ({}): {}", sessionId, e.getMessage());
+        }
+    }
+
+    // 녹음 종료: 마지막 세그먼트는 실제 쓴 길이로 정리 (기록/정리는 fsync 스레드에서)
+    public void close() {
+        MappedByteBuffer last;
+        FileChannel lastChannel;
+        long total;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            last = segment;
+            lastChannel = segmentChannel;
+            total = written;
+            segment = null;
+            segmentChannel = null;
+        } finally {
+            lock.unlock();
+        }
+        archive.closeRecording(this, last, lastChannel, last != null ? last.position() : 0, indexChannel);
+        log.info("녹음 저장 완료: {} ({} bytes, 세그먼트 {}개)", sessionId, total, segmentNumber + 1);
+    }
+
+    private void fail(IOException e) {
+        log.error("녹음 저장 실패, 이 세션의 녹음 중단 ({}): {}", sessionId, e.getMessage());
+        archive.recordFailure();
+        closed = true; // append에서 락을 잡은 채 호출됨
+        archive.closeRecording(this, segment, segmentChannel, segment != null ? segment.position() : 0, indexChannel);
+        segment = null;
+        segmentChannel = null;
+    }
+
+    public long getWritten() {
+        lock.lock();
+        try {
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.demo.audio;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+
+// 음성 경로의 수신량/할당량 추적 (복사 제거 효과를 지표로 확인하기 위함)
+// 남아 있는 복사(FLAC 인코딩, 녹음 보관)는 따로 세지 않고 청크당 할당량과 actuator의 jvm.gc.memory.allocated 로 본다
+@Component
+public class AudioAllocationTracker {
+
+    private final com.sun.management.ThreadMXBean threadMXBean;
+    private final Counter receivedBytes;
+    private final DistributionSummary allocatedPerChunk;
+
+    public AudioAllocationTracker(MeterRegistry meterRegistry) {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()) {
+            sunBean.setThreadAllocatedMemoryEnabled(true);
+            this.threadMXBean = sunBean;
+        } else {
+            this.threadMXBean = null;
+        }
+
+        this.receivedBytes = Counter.builder("stt.audio.bytes.received")
+                .baseUnit("bytes")
+                .description("gRPC로 수신한 음성 데이터 크기")
+                .register(meterRegistry);
+        this.allocatedPerChunk = DistributionSummary.builder("stt.audio.allocated.per.chunk")
+                .baseUnit("bytes")
+                .description("청크 하나를 처리하는 동안 수신 스레드가 할당한 힙 크기")
+                .register(meterRegistry);
+    }
+
+    // 현재 스레드의 누적 할당량 (측정 불가 환경이면 -1)
+    public long mark() {
+        return threadMXBean != null ? threadMXBean.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    // mark() 이후 현재 스레드가 할당한 크기를 청크 단위로 기록
+    public void recordChunk(long mark, int audioBytes) {
+        receivedBytes.increment(audioBytes);
+        if (mark >= 0) {
+            allocatedPerChunk.record(threadMXBean.getCurrentThreadAllocatedBytes() - mark);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.demo.audio;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
+// 16비트 mono PCM 발화 구간을 FLAC 스트림 하나로 인코딩 (STT 엔진으로 보내는 HTTP 본문 크기 절감용)
+// 고정 블록 크기 + FIXED 예측기(0~4차) + Rice 부호화만 사용하는 단순 인코더 (LPC 미사용)
+public final class FlacEncoder {
+
+    private static final int BLOCK_SIZE = 4096;
+    private static final int MAX_FIXED_ORDER = 4;
+    private static final int MAX_RICE_PARAMETER = 14; // 15는 escape 코드
+
+    private FlacEncoder() {
+    }
+
+    public static ByteString encode(ByteString pcm, int sampleRate) {
+        int totalSamples = pcm.size() / 2;
+        BitWriter out = new BitWriter(pcm.size() / 2 + 64);
+
+        // "fLaC" + STREAMINFO (마지막 메타데이터 블록)
+        out.writeBits(0x664C6143, 32);
+        out.writeBits(1, 1);
+        out.writeBits(0, 7);
+        out.writeBits(34, 24);
+        out.writeBits(BLOCK_SIZE, 16); // 최소 블록 크기 (마지막 블록은 예외)
+        out.writeBits(BLOCK_SIZE, 16);
+        out.writeBits(0, 24);          // 최소/최대 프레임 크기: 모름
+        out.writeBits(0, 24);
+        out.writeBits(sampleRate, 20);
+        out.writeBits(0, 3);           // 채널 수 - 1
+        out.writeBits(15, 5);          // 샘플 비트 수 - 1
+        out.writeBits((int) ((long) totalSamples >>> 32), 4);
+        out.writeBits(totalSamples, 32);
+        for (int i = 0; i < 4; i++) {
+            out.writeBits(0, 32);      // MD5: 계산하지 않음
+        }
+
+        byte[] blockBytes = new byte[BLOCK_SIZE * 2];
+        int[] samples = new int[BLOCK_SIZE];
+        int[] residual = new int[BLOCK_SIZE];
+        int frameNumber = 0;
+        for (int offset = 0; offset < totalSamples; offset += BLOCK_SIZE) {
+            int blockSize = Math.min(BLOCK_SIZE, totalSamples - offset);
+            pcm.substring(offset * 2, (offset + blockSize) * 2).copyTo(blockBytes, 0);
+            for (int i = 0; i < blockSize; i++) {
+                samples[i] = (short) ((blockBytes[2 * i] & 0xff) | (blockBytes[2 * i + 1] << 8));
+            }
+            writeFrame(out, frameNumber++, sampleRate, samples, blockSize, residual);
+        }
+        return out.toByteString();
+    }
+
+    private static void writeFrame(BitWriter out, int frameNumber, int sampleRate, int[] samples, int blockSize, int[] residual) {
+        int frameStart = out.size();
+        int blockSizeCode = blockSize == BLOCK_SIZE ? 12 : 7; // 12: 4096, 7: 헤더 끝에 16비트(blockSize - 1)
+
+        out.writeBits(0x3FFE, 14);   // sync
+        out.writeBits(0, 1);
+        out.writeBits(0, 1);         // 고정 블록 크기
+        out.writeBits(blockSizeCode, 4);
+        out.writeBits(sampleRateCode(sampleRate), 4);
+        out.writeBits(0, 4);         // mono
+        out.writeBits(4, 3);         // 16비트
+        out.writeBits(0, 1);
+        writeUtf8(out, frameNumber);
+        if (blockSizeCode == 7) {
+            out.writeBits(blockSize - 1, 16);
+        }
+        out.writeBits(crc8(out.buffer(), frameStart, out.size()), 8);
+
+        writeSubframe(out, samples, blockSize, residual);
+
+        out.alignToByte();
+        out.writeBits(crc16(out.buffer(), frameStart, out.size()), 16);
+    }
+
+    private static void writeSubframe(BitWriter out, int[] samples, int blockSize, int[] residual) {
+        boolean constant = true;
+        for (int i = 1; i < blockSize && constant; i++) {
+            constant = samples[i] == samples[0];
+        }
+        if (constant) {
+            out.writeBits(0, 8);     // CONSTANT (디지털 무음 등)
+            out.writeBits(samples[0], 16);
+            return;
+        }
+
+        // 잔차 절댓값 합이 가장 작은 FIXED 예측 차수 선택
+        int bestOrder = 0;
+        long bestSum = Long.MAX_VALUE;
+        for (int order = 0; order <= Math.min(MAX_FIXED_ORDER, blockSize); order++) {
+            long sum = 0;
+            for (int i = order; i < blockSize; i++) {
+                sum += Math.abs(predictError(samples, i, order));
+            }
+            if (sum < bestSum) {
+                bestSum = sum;
+                bestOrder = order;
+            }
+        }
+
+        out.writeBits(0, 1);
+        out.writeBits(0x08 | bestOrder, 6); // FIXED
+        out.writeBits(0, 1);                // wasted bits 없음
+        for (int i = 0; i < bestOrder; i++) {
+            out.writeBits(samples[i], 16);  // warm-up 샘플
+        }
+
+        int count = blockSize - bestOrder;
+        long foldedSum = 0;
+        for (int i = 0; i < count; i++) {
+            int error = predictError(samples, bestOrder + i, bestOrder);
+            residual[i] = (error << 1) ^ (error >> 31); // 부호 접기 (zigzag)
+            foldedSum += residual[i];
+        }
+        int parameter = riceParameter(residual, count, foldedSum);
+
+        out.writeBits(0, 2);         // 4비트 Rice 파라미터
+        out.writeBits(0, 4);         // 파티션 차수 0 (블록 전체를 하나의 파티션으로)
+        out.writeBits(parameter, 4);
+        for (int i = 0; i < count; i++) {
+            out.writeUnary(residual[i] >>> parameter);
+            if (parameter > 0) {
+                out.writeBits(residual[i], parameter);
+            }
+        }
+    }
+
+    private static int predictError(int[] x, int i, int order) {
+        return switch (order) {
+            case 0 -> x[i];
+            case 1 -> x[i] - x[i - 1];
+            case 2 -> x[i] - 2 * x[i - 1] + x[i - 2];
+            case 3 -> x[i] - 3 * x[i - 1] + 3 * x[i - 2] - x[i - 3];
+            default -> x[i] - 4 * x[i - 1] + 6 * x[i - 2] - 4 * x[i - 3] + x[i - 4];
+        };
+    }
+
+    // 평균값으로 후보를 잡고 주변 파라미터 중 실제 비트 수가 가장 작은 것을 선택
+    private static int riceParameter(int[] folded, int count, long foldedSum) {
+        if (count == 0) {
+            return 0;
+        }
+        long mean = foldedSum / count;
+        int guess = mean > 0 ? 63 - Long.numberOfLeadingZeros(mean) : 0;
+        int best = 0;
+        long bestBits = Long.MAX_VALUE;
+        for (int k = Math.max(0, guess - 1); k <= Math.min(MAX_RICE_PARAMETER, guess + 1); k++) {
+            long bits = (long) count * (k + 1);
+            for (int i = 0; i < count; i++) {
+                bits += folded[i] >>> k;
+            }
+            if (bits < bestBits) {
+                bestBits = bits;
+                best = k;
+            }
+        }
+        return best;
+    }
+
+    private static int sampleRateCode(int sampleRate) {
+        return switch (sampleRate) {
+            case 8000 -> 4;
+            case 16000 -> 5;
+            case 22050 -> 6;
+            case 24000 -> 7;
+            case 32000 -> 8;
+            case 44100 -> 9;
+            case 48000 -> 10;
+            case 96000 -> 11;
+            default -> 0; // STREAMINFO 값 사용
+        };
+    }
+
+    // 프레임 번호는 UTF-8과 같은 가변 길이 방식으로 기록
+    private static void writeUtf8(BitWriter out, int value) {
+        if (value < 0x80) {
+            out.writeBits(value, 8);
+            return;
+        }
+        int extraBytes = value < 0x800 ? 1 : value < 0x10000 ? 2 : value < 0x200000 ? 3 : value < 0x4000000 ? 4 : 5;
+        int leadBits = 6 - extraBytes;
+        int lead = (0xFF << (7 - extraBytes)) & 0xFF;
+        out.writeBits(lead | (value >>> (6 * extraBytes)) & ((1 << leadBits) - 1), 8);
+        for (int i = extraBytes - 1; i >= 0; i--) {
+            out.writeBits(0x80 | (value >>> (6 * i)) & 0x3F, 8);
+        }
+    }
+
+    private static int crc8(byte[] data, int from, int to) {
+        int crc = 0;
+        for (int i = from; i < to; i++) {
+            crc ^= data[i] & 0xFF;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x80) != 0 ? (crc << 1) ^ 0x07 : crc << 1;
+            }
+            crc &= 0xFF;
+        }
+        return crc;
+    }
+
+    private static int crc16(byte[] data, int from, int to) {
+        int crc = 0;
+        for (int i = from; i < to; i++) {
+            crc ^= (data[i] & 0xFF) << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x8005 : crc << 1;
+            }
+            crc &= 0xFFFF;
+        }
+        return crc;
+    }
+
+    // MSB부터 채우는 비트 버퍼
+    private static final class BitWriter {
+
+        private byte[] buffer;
+        private int size;
+        private long bits;
+        private int bitCount;
+
+        BitWriter(int initialCapacity) {
+            this.buffer = new byte[Math.max(64, initialCapacity)];
+        }
+
+        void writeBits(int value, int count) {
+            bits = (bits << count) | (value & ((1L << count) - 1));
+            bitCount += count;
+            while (bitCount >= 8) {
+                bitCount -= 8;
+                put((byte) (bits >>> bitCount));
+            }
+            bits &= (1L << bitCount) - 1;
+        }
+
+        // q개의 0 다음에 1
+        void writeUnary(int q) {
+            while (q >= 31) {
+                writeBits(0, 31);
+                q -= 31;
+            }
+            writeBits(1, q + 1);
+        }
+
+        void alignToByte() {
+            if (bitCount > 0) {
+                writeBits(0, 8 - bitCount);
+            }
+        }
+
+        private void put(byte b) {
+            if (size == buffer.length) {
+                byte[] grown = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, grown, 0, size);
+                buffer = grown;
+            }
+            buffer[size++] = b;
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] buffer() {
+            return buffer;
+        }
+
+        // 버퍼는 결과 ByteString이 소유하므로 복사하지 않음
+        ByteString toByteString() {
+            return UnsafeByteOperations.unsafeWrap(buffer, 0, size);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.demo.audio;
+
+import com.google.protobuf.ByteString;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+// 스트림 하나의 PCM을 프레임 단위로 VAD에 통과시켜 완성된 발화 구간만 잘라내는 분할기
+// - pre-roll: 발화 시작 직전 무음 프레임을 앞에 붙여 첫 음절이 잘리지 않게 함
+// - hangover: 무음이 일정 시간 이어져야 발화 종료로 판단 (단어 사이 짧은 쉼에서 끊기지 않게 함)
+// 잘라낸 구간은 수신한 ByteString의 부분 문자열(rope)이라 음성 바이트를 복사하지 않는다
+// 구간마다 스트림 첫 음성 기준 시작/끝 위치(ms)를 함께 돌려준다
+// 스레드 안전하지 않음: 호출하는 쪽에서 스트림 단위로 직렬화해야 함
+public class UtteranceSegmenter {
+
+    private enum State { SILENCE, SPEECH }
+
+    // 발화 구간 하나: 음성과 스트림 안에서의 위치
+    public record Segment(ByteString audio, long startOffsetMs, long endOffsetMs) {
+    }
+
+    private final VoiceActivityDetector detector;
+    private final int sampleRate;
+    private final int frameBytes;
+    private final int preRollFrames;
+    private final int hangoverFrames;
+    private final int minSpeechFrames;
+    private final int maxSegmentFrames;
+
+    private final byte[] frameBuffer; // VAD 분석용으로 재사용하는 프레임 버퍼
+    private final ArrayDeque<ByteString> preRoll = new ArrayDeque<>();
+    private final List<ByteString> segmentParts = new ArrayList<>();
+
+    private State state = State.SILENCE;
+    private ByteString carry = ByteString.EMPTY; // 프레임 하나가 안 되는 나머지 바이트
+    private int segmentFrames;
+    private int speechFrames;
+    private int silentFrames;
+    private long consumedBytes; // 이전 accept까지 프레임으로 처리한(또는 flush로 버린) 바이트 = 이번 data의 스트림 내 위치
+    private long segmentStartBytes; // 진행 중인 발화 구간의 스트림 내 시작 위치
+
+    public UtteranceSegmenter(VoiceActivityDetector detector, int sampleRate, int frameMs, int preRollMs,
+                              int hangoverMs, int minSpeechMs, int maxSegmentMs) {
+        this.detector = detector;
+        this.sampleRate = sampleRate;
+        this.frameBytes = Math.max(2, sampleRate * frameMs / 1000 * 2);
+        this.preRollFrames = preRollMs / frameMs;
+        this.hangoverFrames = Math.max(1, hangoverMs / frameMs);
+        this.minSpeechFrames = Math.max(1, minSpeechMs / frameMs);
+        this.maxSegmentFrames = Math.max(1, maxSegmentMs / frameMs);
+        this.frameBuffer = new byte[frameBytes];
+    }
+
+    // 새 음성 청크를 넣고, 이번 청크로 완성된 발화 구간들을 돌려준다
+    public List<Segment> accept(ByteString chunk) {
+        List<Segment> completed = new ArrayList<>(1);
+        ByteString data = carry.isEmpty() ? chunk : carry.concat(chunk);
+        int frameCount = data.size() / frameBytes;
+        int runStart = 0; // SPEECH 상태에서 아직 segmentParts에 넣지 않은 구간의 시작
+
+        for (int i = 0; i < frameCount; i++) {
+            int offset = i * frameBytes;
+            data.substring(offset, offset + frameBytes).copyTo(frameBuffer, 0);
+            boolean speech = detector.isSpeech(frameBuffer, frameBytes);
+
+            if (state == State.SILENCE) {
+                if (speech) {
+                    // 발화 시작: pre-roll 프레임부터 구간에 포함
+                    segmentParts.addAll(preRoll);
+                    segmentFrames = preRoll.size();
+                    segmentStartBytes = consumedBytes + offset - (long) preRoll.size() * frameBytes;
+                    preRoll.clear();
+                    state = State.SPEECH;
+                    runStart = offset;
+                    speechFrames = 0;
+                    silentFrames = 0;
+                } else {
+                    if (preRollFrames > 0) {
+                        preRoll.addLast(data.substring(offset, offset + frameBytes));
+                        if (preRoll.size() > preRollFrames) {
+                            preRoll.pollFirst();
+                        }
+                    }
+                    continue;
+                }
+            }
+
+            segmentFrames++;
+            if (speech) {
+                speechFrames++;
+                silentFrames = 0;
+            } else {
+                silentFrames++;
+            }
+
+            int frameEnd = offset + frameBytes;
+            if (silentFrames >= hangoverFrames) {
+                // hangover 동안 무음이 이어짐 → 발화 종료
+                segmentParts.add(data.substring(runStart, frameEnd));
+                emit(completed);
+                state = State.SILENCE;
+            } else if (segmentFrames >= maxSegmentFrames) {
+                // 너무 긴 발화는 강제로 나누고 다음 프레임부터 새 구간 시작
+                segmentParts.add(data.substring(runStart, frameEnd));
+                emit(completed);
+                runStart = frameEnd;
+                segmentStartBytes = consumedBytes + frameEnd;
+                speechFrames = 0;
+                silentFrames = 0;
+            }
+        }
+
+        int framesEnd = frameCount * frameBytes;
+        if (state == State.SPEECH && runStart < framesEnd) {
+            segmentParts.add(data.substring(runStart, framesEnd));
+        }
+        carry = data.substring(framesEnd);
+        consumedBytes += framesEnd;
+        return completed;
+    }
+
+    // 스트림 종료/유휴 시 진행 중인 발화를 마무리 (충분히 길지 않으면 버림)
+    public Segment flush() {
+        List<Segment> completed = new ArrayList<>(1);
+        if (state == State.SPEECH) {
+            emit(completed);
+            state = State.SILENCE;
+        }
+        preRoll.clear();
+        consumedBytes += carry.size();
+        carry = ByteString.EMPTY;
+        return completed.isEmpty() ? null : completed.get(0);
+    }
+
+    public boolean inSpeech() {
+        return state == State.SPEECH;
+    }
+
+    // 진행 중인 발화의 지금까지 구간 (중간 인식용, 분할 상태는 바꾸지 않음), 발화 중이 아니거나 아직 짧으면 null
+    public Segment current() {
+        if (state != State.SPEECH || speechFrames < minSpeechFrames || segmentParts.isEmpty()) {
+            return null;
+        }
+        return segment(ByteString.copyFrom(segmentParts));
+    }
+
+    private void emit(List<Segment> completed) {
+        if (speechFrames >= minSpeechFrames && !segmentParts.isEmpty()) {
+            completed.add(segment(ByteString.copyFrom(segmentParts))); // 복사 없이 rope로 연결
+        }
+        segmentParts.clear();
+        segmentFrames = 0;
+        speechFrames = 0;
+        silentFrames = 0;
+    }
+
+    private Segment segment(ByteString audio) {
+        return new Segment(audio, toMillis(segmentStartBytes), toMillis(segmentStartBytes + audio.size()));
+    }
+
+    private long toMillis(long bytes) {
+        return bytes / 2 * 1000 / sampleRate;
+    }
+}
@@ -0,0 +1,47 @@
+package com.demo.audio;
+
+import com.demo.config.SttGrpcServerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+// 스트림마다 VAD 설정을 적용한 UtteranceSegmenter를 만들고, 인식으로 보낸 발화 구간을 집계
+@Component
+public class UtteranceSegmenterFactory {
+
+    private final SttGrpcServerProperties properties;
+    private final Counter segments;
+    private final Counter segmentBytes;
+
+    public UtteranceSegmenterFactory(SttGrpcServerProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.segments = Counter.builder("stt.vad.segments")
+                .description("STT 엔진으로 보낸 발화 구간 수")
+                .register(meterRegistry);
+        this.segmentBytes = Counter.builder("stt.vad.segment.bytes")
+                .description("STT 엔진으로 보낸 발화 구간 바이트 (stt.audio.bytes.received와 비교해 무음 제거 비율 확인)")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    // VAD를 끈 경우 null
+    public UtteranceSegmenter create(int sampleRate) {
+        if (!properties.isVadEnabled()) {
+            return null;
+        }
+        VoiceActivityDetector detector = new VoiceActivityDetector(
+                properties.getVadEnergyThreshold(), properties.getVadMaxZeroCrossingRate());
+        return new UtteranceSegmenter(detector, sampleRate, properties.getVadFrameMs(),
+                properties.getVadPreRollMs(), properties.getVadHangoverMs(),
+                properties.getVadMinSpeechMs(), properties.getVadMaxSegmentMs());
+    }
+
+    public long getIdleFlushMs() {
+        return properties.getVadIdleFlushMs();
+    }
+
+    public void recordSegment(int bytes) {
+        segments.increment();
+        segmentBytes.increment(bytes);
+    }
+}
@@ -0,0 +1,37 @@
+package com.demo.audio;
+
+// 16비트 little-endian PCM 프레임 하나가 음성인지 판별하는 에너지/영교차율(ZCR) 기반 VAD
+public class VoiceActivityDetector {
+
+    private final double energyThreshold;   // RMS 에너지 기준 (16비트 샘플 단위)
+    private final double maxZeroCrossingRate; // 이보다 영교차율이 높으면 잡음(치찰음/히스)으로 판단
+
+    public VoiceActivityDetector(double energyThreshold, double maxZeroCrossingRate) {
+        this.energyThreshold = energyThreshold;
+        this.maxZeroCrossingRate = maxZeroCrossingRate;
+    }
+
+    // frame[0, length) 구간을 샘플 단위로 읽어 판별 (length는 2의 배수)
+    public boolean isSpeech(byte[] frame, int length) {
+        int samples = length / 2;
+        if (samples == 0) {
+            return false;
+        }
+
+        double sumSquares = 0;
+        int zeroCrossings = 0;
+        int previous = 0;
+        for (int i = 0; i < samples; i++) {
+            int sample = (short) ((frame[2 * i] & 0xff) | (frame[2 * i + 1] << 8));
+            sumSquares += (double) sample * sample;
+            if (i > 0 && (sample >= 0) != (previous >= 0)) {
+                zeroCrossings++;
+            }
+            previous = sample;
+        }
+
+        double rms = Math.sqrt(sumSquares / samples);
+        double zeroCrossingRate = (double) zeroCrossings / samples;
+        return rms >= energyThreshold && zeroCrossingRate <= maxZeroCrossingRate;
+    }
+}
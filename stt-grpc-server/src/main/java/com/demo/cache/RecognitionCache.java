@@ -0,0 +1,85 @@
+package com.demo.cache;
+
+import com.demo.config.SttGrpcServerProperties;
+import com.demo.flask.SttFlaskClient;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.protobuf.ByteString;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// 음성 내용(xxHash64 + 길이 + 샘플레이트)을 키로 하는 인식 결과 캐시
+// 같은 음성(재전송, 여러 통화에 재생되는 IVR 안내 멘트 등)은 STT 엔진을 다시 호출하지 않는다
+// 크기 제한은 Caffeine(W-TinyLFU)에 맡기고, 성공한 결과만 저장한다
+// 같은 음성 요청이 동시에 들어오면 진행 중인 요청 하나를 함께 기다린다
+@Component
+public class RecognitionCache {
+
+    private final boolean enabled;
+    private final Cache<Key, String> cache;
+    private final ConcurrentHashMap<Key, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    public RecognitionCache(SttGrpcServerProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isCacheEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheMaxEntries())
+                .expireAfterWrite(Duration.ofMillis(properties.getCacheTtlMs()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "stt.recognition"); // cache.gets{result=hit|miss}, cache.size 등
+        this.coalesced = Counter.builder("stt.recognition.cache.coalesced")
+                .description("같은 음성의 진행 중인 인식 요청에 합류한 요청 수")
+                .register(meterRegistry);
+    }
+
+    // 캐시에 있으면 바로 완료, 없으면 loader로 인식하고 성공 결과를 저장
+    public CompletableFuture<String> get(ByteString audioData, int sampleRate, Supplier<CompletableFuture<String>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key key = new Key(XxHash64.hash(audioData), audioData.size(), sampleRate);
+        String cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, result);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+        CompletableFuture<String> loading;
+        try {
+            loading = loader.get();
+        } catch (RuntimeException e) {
+            // 동기 예외(대기열 초과 등)로 끝난 요청이 inFlight에 남으면 같은 음성의 이후 요청이 영원히 기다림
+            inFlight.remove(key, result);
+            result.completeExceptionally(e);
+            return result;
+        }
+        loading.whenComplete((text, e) -> {
+            if (e == null && !SttFlaskClient.FAILURE_TEXT.equals(text)) {
+                cache.put(key, text);
+            }
+            inFlight.remove(key, result);
+            if (e != null) {
+                result.completeExceptionally(e);
+            } else {
+                result.complete(text);
+            }
+        });
+        return result;
+    }
+
+    private record Key(long hash, int length, int sampleRate) {
+    }
+}
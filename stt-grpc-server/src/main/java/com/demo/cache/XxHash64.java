@@ -0,0 +1,110 @@
+package com.demo.cache;
+
+import com.google.protobuf.ByteString;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// xxHash64 (seed 0): 음성 내용 캐시 키용 비암호화 해시
+// ByteString이 여러 버퍼를 이어 붙인 rope여도 복사하지 않고 조각 버퍼를 차례로 읽는다
+public final class XxHash64 {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private long v1 = PRIME1 + PRIME2;
+    private long v2 = PRIME2;
+    private long v3 = 0;
+    private long v4 = -PRIME1;
+    private long totalLength;
+    private final ByteBuffer pending = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN); // 32바이트 stripe에 못 미친 나머지
+
+    private XxHash64() {
+    }
+
+    public static long hash(ByteString data) {
+        XxHash64 state = new XxHash64();
+        for (ByteBuffer buffer : data.asReadOnlyByteBufferList()) {
+            state.update(buffer);
+        }
+        return state.digest();
+    }
+
+    private void update(ByteBuffer input) {
+        ByteBuffer buffer = input.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        totalLength += buffer.remaining();
+
+        // 이전 버퍼에서 남은 바이트를 먼저 채워 stripe 하나 처리
+        if (pending.position() > 0) {
+            while (pending.hasRemaining() && buffer.hasRemaining()) {
+                pending.put(buffer.get());
+            }
+            if (pending.hasRemaining()) {
+                return;
+            }
+            pending.flip();
+            stripe(pending);
+            pending.clear();
+        }
+        while (buffer.remaining() >= 32) {
+            stripe(buffer);
+        }
+        pending.put(buffer);
+    }
+
+    private void stripe(ByteBuffer buffer) {
+        v1 = round(v1, buffer.getLong());
+        v2 = round(v2, buffer.getLong());
+        v3 = round(v3, buffer.getLong());
+        v4 = round(v4, buffer.getLong());
+    }
+
+    private long digest() {
+        long h;
+        if (totalLength >= 32) {
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = mergeRound(h, v1);
+            h = mergeRound(h, v2);
+            h = mergeRound(h, v3);
+            h = mergeRound(h, v4);
+        } else {
+            h = PRIME5;
+        }
+        h += totalLength;
+
+        ByteBuffer tail = pending.flip();
+        while (tail.remaining() >= 8) {
+            h ^= round(0, tail.getLong());
+            h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+        }
+        if (tail.remaining() >= 4) {
+            h ^= (tail.getInt() & 0xFFFFFFFFL) * PRIME1;
+            h = Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+        }
+        while (tail.hasRemaining()) {
+            h ^= (tail.get() & 0xFFL) * PRIME5;
+            h = Long.rotateLeft(h, 11) * PRIME1;
+        }
+
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME1;
+    }
+
+    private static long mergeRound(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * PRIME1 + PRIME4;
+    }
+}
@@ -1,7 +1,12 @@
 package com.demo.config;
 
+import com.demo.archive.FsyncPolicy;
 import org.springframework.stereotype.Component;
 import org.springframework.beans.factory.annotation.Value;
+import stt.AudioFormat;
+
+import java.net.http.HttpClient;
+import java.util.List;
 
 @Component
 public class SttGrpcServerProperties {
@@ -9,8 +14,267 @@ public class SttGrpcServerProperties {
     @Value("${grpc.server.port}")
     private int port;
 
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled; // JDK 21에서 gRPC 서비스 콜백과 STT 엔진 HTTP 클라이언트에 가상 스레드 사용
+
+    @Value("${grpc.server.max-pending-chunks:4}")
+    private int maxPendingChunks; // 스트림별로 세그먼터가 받기 전 대기할 수 있는 최대 청크 수 (수신 창)
+
+    @Value("${grpc.server.max-inflight-recognitions:4}")
+    private int maxInFlightRecognitions; // 스트림별 동시 STT 인식 수 상한 (초과 시 인식이 끝날 때까지 수신 중단)
+
+    @Value("${grpc.server.permit-keepalive-time-ms:20000}")
+    private long permitKeepAliveTimeMs; // 클라이언트 keepalive ping 허용 최소 간격 (클라이언트 stt.grpc.keepalive-time-ms 이하)
+
+    @Value("${stt.backend.urls:${stt.backend.url:http://localhost:5000/stt}}")
+    private List<String> sttBackendUrls; // Flask/FastAPI STT 엔진 주소 목록 (쉼표로 구분, 처리 중인 요청이 가장 적은 엔진으로 전송)
+
+    @Value("${stt.backend.max-concurrency:64}")
+    private int sttBackendMaxConcurrency; // STT 엔진으로 동시에 보낼 수 있는 최대 요청 수
+
+    @Value("${stt.backend.connect-timeout-ms:2000}")
+    private long sttBackendConnectTimeoutMs;
+
+    @Value("${stt.backend.request-timeout-ms:10000}")
+    private long sttBackendRequestTimeoutMs; // 요청별 응답 대기 시간
+
+    @Value("${stt.backend.http-version:HTTP_1_1}")
+    private HttpClient.Version sttBackendHttpVersion; // HTTP_2는 h2c를 지원하는 엔진 서버에서만 의미 있음
+
+    @Value("${stt.backend.hedge-delay-ms:0}")
+    private long sttBackendHedgeDelayMs; // 이 시간 안에 응답이 없으면 다른 엔진으로 한 번 더 전송 (0이면 사용 안 함)
+
+    @Value("${stt.backend.circuit.window-ms:10000}")
+    private long sttBackendCircuitWindowMs; // 실패율을 계산하는 최근 구간
+
+    @Value("${stt.backend.circuit.failure-rate-threshold:50}")
+    private double sttBackendCircuitFailureRateThreshold; // 실패율(%)이 이 값 이상이면 서킷 OPEN
+
+    @Value("${stt.backend.circuit.minimum-calls:20}")
+    private int sttBackendCircuitMinimumCalls; // 구간 내 호출이 이보다 적으면 판정하지 않음
+
+    @Value("${stt.backend.circuit.open-ms:5000}")
+    private long sttBackendCircuitOpenMs; // OPEN 후 probe 요청을 보내기까지 기다리는 시간
+
+    @Value("${stt.backend.circuit.half-open-probes:3}")
+    private int sttBackendCircuitHalfOpenProbes; // 모두 성공하면 CLOSED로 복구
+
+    @Value("${stt.backend.encoding:PCM_S16LE}")
+    private AudioFormat.Encoding sttBackendEncoding; // STT 엔진으로 보낼 본문 형식 (PCM_S16LE 또는 FLAC)
+
+    @Value("${stt.audio.default-sample-rate:48000}")
+    private int audioDefaultSampleRate; // 클라이언트가 AudioFormat을 보내지 않은 스트림의 샘플레이트
+
+    @Value("${stt.cache.enabled:true}")
+    private boolean cacheEnabled; // 같은 음성의 인식 결과 재사용
+
+    @Value("${stt.cache.max-entries:10000}")
+    private long cacheMaxEntries;
+
+    @Value("${stt.cache.ttl-ms:3600000}")
+    private long cacheTtlMs; // 저장 후 이 시간이 지나면 다시 인식
+
+    @Value("${stt.archive.enabled:true}")
+    private boolean archiveEnabled; // 세션별 원본 PCM 녹음 보관
+
+    @Value("${stt.archive.dir:./archive}")
+    private String archiveDir;
+
+    @Value("${stt.archive.segment-bytes:8388608}")
+    private int archiveSegmentBytes; // 미리 할당해 매핑하는 세그먼트 파일 크기 (16kHz mono 기준 8MB ≈ 4분 20초)
+
+    @Value("${stt.archive.fsync-policy:INTERVAL}")
+    private FsyncPolicy archiveFsyncPolicy; // NONE, INTERVAL, ON_CLOSE (디스크 기록은 모두 별도 스레드에서 실행)
+
+    @Value("${stt.archive.fsync-interval-ms:1000}")
+    private long archiveFsyncIntervalMs; // INTERVAL 정책의 기록 주기
+
+    @Value("${stt.vad.enabled:true}")
+    private boolean vadEnabled; // false면 수신한 청크를 그대로 STT 엔진으로 전달
+
+    @Value("${stt.vad.frame-ms:20}")
+    private int vadFrameMs;
+
+    @Value("${stt.vad.energy-threshold:600}")
+    private double vadEnergyThreshold; // 프레임 RMS가 이 값 이상이어야 음성으로 판단
+
+    @Value("${stt.vad.max-zero-crossing-rate:0.35}")
+    private double vadMaxZeroCrossingRate;
+
+    @Value("${stt.vad.pre-roll-ms:200}")
+    private int vadPreRollMs; // 발화 시작 앞에 붙일 무음 길이
+
+    @Value("${stt.vad.hangover-ms:300}")
+    private int vadHangoverMs; // 이만큼 무음이 이어지면 발화 종료
+
+    @Value("${stt.vad.min-speech-ms:200}")
+    private int vadMinSpeechMs; // 이보다 짧은 발화는 잡음으로 보고 버림
+
+    @Value("${stt.vad.max-segment-ms:15000}")
+    private int vadMaxSegmentMs;
+
+    @Value("${stt.vad.idle-flush-ms:300}")
+    private long vadIdleFlushMs; // 발화 중 청크가 끊기면 이 시간 뒤 진행 중인 발화를 마무리
+
+    @Value("${stt.interim.enabled:false}")
+    private boolean interimEnabled; // 발화 도중 지금까지의 구간을 주기적으로 다시 인식해 중간 가설을 보냄 (VAD를 켠 경우만)
+
+    @Value("${stt.interim.interval-ms:500}")
+    private long interimIntervalMs;
+
+    @Value("${stt.interim.max-window-ms:8000}")
+    private int interimMaxWindowMs; // 발화가 이보다 길어지면 중간 인식을 멈추고 최종 결과만 기다림 (엔진 호출량 제한)
+
     public int getPort() {
         return port;
     }
 
+    public boolean isVirtualThreadsEnabled() {
+        return virtualThreadsEnabled;
+    }
+
+    public int getMaxPendingChunks() {
+        return maxPendingChunks;
+    }
+
+    public int getMaxInFlightRecognitions() {
+        return maxInFlightRecognitions;
+    }
+
+    public long getPermitKeepAliveTimeMs() {
+        return permitKeepAliveTimeMs;
+    }
+
+    public List<String> getSttBackendUrls() {
+        return sttBackendUrls;
+    }
+
+    public int getSttBackendMaxConcurrency() {
+        return sttBackendMaxConcurrency;
+    }
+
+    public long getSttBackendConnectTimeoutMs() {
+        return sttBackendConnectTimeoutMs;
+    }
+
+    public long getSttBackendRequestTimeoutMs() {
+        return sttBackendRequestTimeoutMs;
+    }
+
+    public HttpClient.Version getSttBackendHttpVersion() {
+        return sttBackendHttpVersion;
+    }
+
+    public long getSttBackendHedgeDelayMs() {
+        return sttBackendHedgeDelayMs;
+    }
+
+    public long getSttBackendCircuitWindowMs() {
+        return sttBackendCircuitWindowMs;
+    }
+
+    public double getSttBackendCircuitFailureRateThreshold() {
+        return sttBackendCircuitFailureRateThreshold;
+    }
+
+    public int getSttBackendCircuitMinimumCalls() {
+        return sttBackendCircuitMinimumCalls;
+    }
+
+    public long getSttBackendCircuitOpenMs() {
+        return sttBackendCircuitOpenMs;
+    }
+
+    public int getSttBackendCircuitHalfOpenProbes() {
+        return sttBackendCircuitHalfOpenProbes;
+    }
+
+    public AudioFormat.Encoding getSttBackendEncoding() {
+        return sttBackendEncoding;
+    }
+
+    public int getAudioDefaultSampleRate() {
+        return audioDefaultSampleRate;
+    }
+
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    public long getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    public long getCacheTtlMs() {
+        return cacheTtlMs;
+    }
+
+    public boolean isArchiveEnabled() {
+        return archiveEnabled;
+    }
+
+    public String getArchiveDir() {
+        return archiveDir;
+    }
+
+    public int getArchiveSegmentBytes() {
+        return archiveSegmentBytes;
+    }
+
+    public FsyncPolicy getArchiveFsyncPolicy() {
+        return archiveFsyncPolicy;
+    }
+
+    public long getArchiveFsyncIntervalMs() {
+        return archiveFsyncIntervalMs;
+    }
+
+    public boolean isVadEnabled() {
+        return vadEnabled;
+    }
+
+    public int getVadFrameMs() {
+        return vadFrameMs;
+    }
+
+    public double getVadEnergyThreshold() {
+        return vadEnergyThreshold;
+    }
+
+    public double getVadMaxZeroCrossingRate() {
+        return vadMaxZeroCrossingRate;
+    }
+
+    public int getVadPreRollMs() {
+        return vadPreRollMs;
+    }
+
+    public int getVadHangoverMs() {
+        return vadHangoverMs;
+    }
+
+    public int getVadMinSpeechMs() {
+        return vadMinSpeechMs;
+    }
+
+    public int getVadMaxSegmentMs() {
+        return vadMaxSegmentMs;
+    }
+
+    public long getVadIdleFlushMs() {
+        return vadIdleFlushMs;
+    }
+
+    public boolean isInterimEnabled() {
+        return interimEnabled;
+    }
+
+    public long getInterimIntervalMs() {
+        return interimIntervalMs;
+    }
+
+    public int getInterimMaxWindowMs() {
+        return interimMaxWindowMs;
+    }
+
 }
@@ -0,0 +1,79 @@
+package com.demo.executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// JDK 21 가상 스레드 생성 도우미
+// 빌드 기본값이 Java 17이므로 Thread.ofVirtual() 등은 리플렉션으로 호출하고, 17에서 실행하면 플랫폼 스레드로 대체한다
+public final class VirtualThreads {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreads.class);
+
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        Method newThreadPerTaskExecutor = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            builderName = builder.getMethod("name", String.class, long.class);
+            builderFactory = builder.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (ReflectiveOperationException e) {
+            ofVirtual = null; // JDK 21 미만
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    // 설정으로 켰지만 런타임이 지원하지 않으면 경고 후 false
+    public static boolean resolve(boolean requested) {
+        if (requested && !isSupported()) {
+            log.warn("가상 스레드 모드는 JDK 21 이상에서만 동작합니다 (현재 {}) - 플랫폼 스레드 사용", Runtime.version().feature());
+            return false;
+        }
+        return requested;
+    }
+
+    // 이름이 prefix0, prefix1 ... 인 가상 스레드를 만드는 팩토리
+    public static ThreadFactory factory(String prefix) {
+        if (!isSupported()) {
+            throw new IllegalStateException("가상 스레드를 지원하지 않는 JDK입니다");
+        }
+        try {
+            Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("가상 스레드 팩토리 생성 실패", e);
+        }
+    }
+
+    // 작업마다 새 가상 스레드에서 실행하는 실행기 (풀 크기 조정이 필요 없음)
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory(prefix));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("가상 스레드 실행기 생성 실패", e);
+        }
+    }
+}
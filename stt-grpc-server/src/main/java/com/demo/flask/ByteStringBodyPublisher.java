@@ -0,0 +1,78 @@
+package com.demo.flask;
+
+import com.google.protobuf.ByteString;
+
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// gRPC로 받은 ByteString의 내부 버퍼를 복사 없이 그대로 HTTP 요청 본문으로 흘려보내는 BodyPublisher
+public class ByteStringBodyPublisher implements HttpRequest.BodyPublisher {
+
+    private final ByteString audioData;
+
+    public ByteStringBodyPublisher(ByteString audioData) {
+        this.audioData = audioData;
+    }
+
+    @Override
+    public long contentLength() {
+        return audioData.size();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        subscriber.onSubscribe(new BufferSubscription(subscriber, audioData.asReadOnlyByteBufferList().iterator()));
+    }
+
+    // 요청(request)된 개수만큼만 버퍼를 내보내는 구독 (onNext 안에서 request를 다시 호출해도 안전)
+    private static class BufferSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private final Iterator<ByteBuffer> buffers;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        BufferSubscription(Flow.Subscriber<? super ByteBuffer> subscriber, Iterator<ByteBuffer> buffers) {
+            this.subscriber = subscriber;
+            this.buffers = buffers;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                if (done.compareAndSet(false, true)) {
+                    subscriber.onError(new IllegalArgumentException("request 값은 0보다 커야 합니다: " + n));
+                }
+                return;
+            }
+            demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            done.set(true);
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                while (!done.get() && demand.get() > 0 && buffers.hasNext()) {
+                    demand.decrementAndGet();
+                    subscriber.onNext(buffers.next());
+                }
+                if (!buffers.hasNext() && done.compareAndSet(false, true)) {
+                    subscriber.onComplete();
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.demo.flask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// STT 엔진 하나의 서킷 브레이커
+// 최근 window 동안의 호출을 시간 버킷으로 나눠 세고, 호출 수가 minimumCalls 이상이면서 실패율이 기준 이상이면 OPEN
+// OPEN에서 openDuration이 지나면 HALF_OPEN으로 바뀌어 probe 요청 몇 개만 보내 보고, 모두 성공하면 CLOSED / 하나라도 실패하면 다시 OPEN
+final class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    enum State { CLOSED, HALF_OPEN, OPEN }
+
+    // 호출 허가 종류: PROBE 결과만 HALF_OPEN 판정에 쓰인다
+    enum Permit { REJECTED, NORMAL, PROBE }
+
+    private static final int BUCKETS = 10;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final String name;
+    private final long bucketNanos;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier clock;
+
+    private final long[] bucketIds = new long[BUCKETS];
+    private final int[] calls = new int[BUCKETS];
+    private final int[] failures = new int[BUCKETS];
+
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    CircuitBreaker(String name, long windowMs, double failureRatePercent, int minimumCalls,
+                   long openMs, int halfOpenProbes, LongSupplier clock) {
+        this.name = name;
+        this.bucketNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(windowMs) / BUCKETS);
+        this.failureRateThreshold = failureRatePercent / 100.0;
+        this.minimumCalls = Math.max(1, minimumCalls);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        this.clock = clock;
+    }
+
+    // 요청을 보내도 되는지 확인 (허가를 받지는 않음, 엔진 선택용)
+    boolean isCallPermitted() {
+        lock.lock();
+        try {
+            return switch (state) {
+                case CLOSED -> true;
+                case OPEN -> clock.getAsLong() - openedAt >= openNanos;
+                case HALF_OPEN -> probesInFlight < halfOpenProbes;
+            };
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Permit tryAcquire() {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (clock.getAsLong() - openedAt < openNanos) {
+                    return Permit.REJECTED;
+                }
+                transition(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesInFlight >= halfOpenProbes) {
+                    return Permit.REJECTED;
+                }
+                probesInFlight++;
+                return Permit.PROBE;
+            }
+            return Permit.NORMAL;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onSuccess(Permit permit) {
+        lock.lock();
+        try {
+            if (permit == Permit.PROBE) {
+                if (state == State.HALF_OPEN) {
+                    probesInFlight--;
+                    if (++probeSuccesses >= halfOpenProbes) {
+                        transition(State.CLOSED);
+                    }
+                }
+            } else if (state == State.CLOSED) {
+                record(false);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onFailure(Permit permit) {
+        lock.lock();
+        try {
+            if (permit == Permit.PROBE) {
+                if (state == State.HALF_OPEN) {
+                    transition(State.OPEN);
+                }
+            } else if (state == State.CLOSED) {
+                record(true);
+                if (shouldTrip()) {
+                    transition(State.OPEN);
+                }
+            }
+            // CLOSED 때 보낸 요청이 OPEN/HALF_OPEN 이후에 끝난 경우는 판정에 쓰지 않음
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    State getState() {
+        return state;
+    }
+
+    // 현재 시각의 버킷에 기록 (한 바퀴 지난 버킷은 비우고 재사용)
+    private void record(boolean failure) {
+        long bucketId = clock.getAsLong() / bucketNanos;
+        int index = (int) Math.floorMod(bucketId, (long) BUCKETS);
+        if (bucketIds[index] != bucketId) {
+            bucketIds[index] = bucketId;
+            calls[index] = 0;
+            failures[index] = 0;
+        }
+        calls[index]++;
+        if (failure) {
+            failures[index]++;
+        }
+    }
+
+    private boolean shouldTrip() {
+        long current = clock.getAsLong() / bucketNanos;
+        int totalCalls = 0;
+        int totalFailures = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (current - bucketIds[i] < BUCKETS) {
+                totalCalls += calls[i];
+                totalFailures += failures[i];
+            }
+        }
+        return totalCalls >= minimumCalls && totalFailures >= totalCalls * failureRateThreshold;
+    }
+
+    private void transition(State next) {
+        state = next;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+        if (next == State.OPEN) {
+            openedAt = clock.getAsLong();
+            log.warn("STT 엔진 서킷 OPEN → 요청 차단: {}", name);
+        } else if (next == State.CLOSED) {
+            for (int i = 0; i < BUCKETS; i++) {
+                calls[i] = 0;
+                failures[i] = 0;
+            }
+            log.info("STT 엔진 서킷 CLOSED → 정상 복구: {}", name);
+        }
+    }
+}
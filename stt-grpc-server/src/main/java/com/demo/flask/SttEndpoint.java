@@ -0,0 +1,67 @@
+package com.demo.flask;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// STT 엔진 인스턴스 하나: 주소, 서킷 브레이커, 처리 중인 요청 수(least-outstanding 선택 기준)
+final class SttEndpoint {
+
+    private final URI uri;
+    private final CircuitBreaker circuitBreaker;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final Timer latency;
+    private final Counter failures;
+
+    SttEndpoint(URI uri, CircuitBreaker circuitBreaker, MeterRegistry meterRegistry) {
+        this.uri = uri;
+        this.circuitBreaker = circuitBreaker;
+        String name = uri.getAuthority();
+        Gauge.builder("stt.backend.endpoint.outstanding", outstanding, AtomicInteger::get)
+                .tag("endpoint", name)
+                .description("엔진 인스턴스별 처리 중인 요청 수")
+                .register(meterRegistry);
+        Gauge.builder("stt.backend.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .tag("endpoint", name)
+                .description("0=CLOSED, 1=HALF_OPEN, 2=OPEN")
+                .register(meterRegistry);
+        this.latency = Timer.builder("stt.backend.latency")
+                .tag("endpoint", name)
+                .description("엔진 인스턴스별 응답 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.failures = Counter.builder("stt.backend.failures")
+                .tag("endpoint", name)
+                .description("엔진 인스턴스별 실패 응답/연결 오류 수")
+                .register(meterRegistry);
+    }
+
+    URI getUri() {
+        return uri;
+    }
+
+    CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    int getOutstanding() {
+        return outstanding.get();
+    }
+
+    void onStart() {
+        outstanding.incrementAndGet();
+    }
+
+    void onComplete(long startNanos, boolean success) {
+        outstanding.decrementAndGet();
+        latency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (!success) {
+            failures.increment();
+        }
+    }
+}
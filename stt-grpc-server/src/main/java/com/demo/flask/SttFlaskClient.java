@@ -1,56 +1,313 @@
 package com.demo.flask;
 
-import com.demo.grpc.GrpcServer;
-import io.grpc.Server;
+import com.demo.audio.FlacEncoder;
+import com.demo.cache.RecognitionCache;
+import com.demo.config.SttGrpcServerProperties;
+import com.demo.executor.VirtualThreads;
+import com.demo.logging.LogSampler;
+import com.google.protobuf.ByteString;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import stt.AudioFormat;
 
-import java.io.*;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+// Flask/FastAPI STT 엔진 HTTP 클라이언트
+// 하나의 HttpClient를 공유해 연결을 재사용(keep-alive, HTTP/2)하고, 동시 요청 수를 제한하며, 스레드를 블로킹하지 않는다
+// 엔진이 여러 대면 처리 중인 요청이 가장 적은 인스턴스로 보내고(least-outstanding), 인스턴스별 서킷 브레이커로 장애 인스턴스를 잠시 제외한다
+// hedge-delay-ms가 지나도 응답이 없으면 다른 인스턴스로 같은 요청을 한 번 더 보내 먼저 온 응답을 쓴다 (느린 인스턴스 하나가 꼬리 지연을 끌어올리지 않도록)
+@Component
 public class SttFlaskClient {
 
-    private static final String FLASK_SERVER_URL = "http://localhost:5000/stt"; // Flask STT 서버 주소
-    private static int failCount;
-    private static GrpcServer grpcServer;
-
-    public static void setGrpcServer(GrpcServer server) {
-        grpcServer = server;
-    }
-    
-    public static String sendToFlask(byte[] audioData) {
-        try {
-            URL url = new URL(FLASK_SERVER_URL);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/octet-stream");
-            conn.setDoOutput(true);
-
-            // 음성 데이터를 Flask 서버로 전송
-            try (OutputStream outputStream = conn.getOutputStream()) {
-                outputStream.write(audioData);
-                outputStream.flush();
-            }
-
-            // Flask 서버의 응답을 읽기
-            int responseCode = conn.getResponseCode();
-            if (responseCode == 200) {
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
-                    return reader.readLine(); // 변환된 텍스트 반환
+    private static final Logger log = LoggerFactory.getLogger(SttFlaskClient.class);
+
+    public static final String FAILURE_TEXT = "STT 변환 실패";
+
+    private final HttpClient httpClient;
+    private final List<SttEndpoint> endpoints = new ArrayList<>();
+    private final Duration requestTimeout;
+    private final int maxConcurrency;
+    private final boolean flacEncoding;
+    private final int defaultSampleRate;
+    private final long hedgeDelayMs;
+    private final RecognitionCache recognitionCache;
+    private final ScheduledExecutorService hedgeScheduler;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger waitingCount = new AtomicInteger();
+    private final AtomicInteger drainRequests = new AtomicInteger(); // 0이 아니면 어떤 스레드가 대기열을 꺼내는 중
+    private final ConcurrentLinkedQueue<Runnable> waiting = new ConcurrentLinkedQueue<>(); // 동시 요청 한도를 넘은 요청 대기열
+
+    private final LogSampler failureLog = new LogSampler(1, TimeUnit.SECONDS); // 엔진 장애 중에는 요청마다 실패하므로 초당 한 번만 기록
+    private final LogSampler circuitOpenLog = new LogSampler(1, TimeUnit.SECONDS);
+
+    private final Counter circuitRejected;
+    private final Counter hedges;
+    private final Counter hedgeWins;
+
+    public SttFlaskClient(SttGrpcServerProperties properties, RecognitionCache recognitionCache, MeterRegistry meterRegistry) {
+        this.recognitionCache = recognitionCache;
+        this.requestTimeout = Duration.ofMillis(properties.getSttBackendRequestTimeoutMs());
+        this.maxConcurrency = Math.max(1, properties.getSttBackendMaxConcurrency());
+        this.flacEncoding = properties.getSttBackendEncoding() == AudioFormat.Encoding.FLAC;
+        this.defaultSampleRate = properties.getAudioDefaultSampleRate();
+        this.hedgeDelayMs = properties.getSttBackendHedgeDelayMs();
+        HttpClient.Builder httpClientBuilder = HttpClient.newBuilder()
+                .version(properties.getSttBackendHttpVersion())
+                .connectTimeout(Duration.ofMillis(properties.getSttBackendConnectTimeoutMs()));
+        if (VirtualThreads.resolve(properties.isVirtualThreadsEnabled())) {
+            httpClientBuilder.executor(VirtualThreads.newThreadPerTaskExecutor("stt-http-")); // 응답 처리/콜백을 가상 스레드에서 실행
+        }
+        this.httpClient = httpClientBuilder.build();
+
+        for (String url : properties.getSttBackendUrls()) {
+            URI uri = URI.create(url.trim());
+            CircuitBreaker circuitBreaker = new CircuitBreaker(uri.getAuthority(),
+                    properties.getSttBackendCircuitWindowMs(), properties.getSttBackendCircuitFailureRateThreshold(),
+                    properties.getSttBackendCircuitMinimumCalls(), properties.getSttBackendCircuitOpenMs(),
+                    properties.getSttBackendCircuitHalfOpenProbes(), System::nanoTime);
+            endpoints.add(new SttEndpoint(uri, circuitBreaker, meterRegistry));
+        }
+        if (endpoints.isEmpty()) {
+            throw new IllegalStateException("stt.backend.urls가 비어 있습니다");
+        }
+
+        this.hedgeScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stt-hedge");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("stt.pipeline.queue.depth", waitingCount, AtomicInteger::get)
+                .tag("stage", "stt-backend")
+                .description("동시 요청 한도로 대기 중인 STT 요청 수")
+                .register(meterRegistry);
+        Gauge.builder("stt.backend.requests.inflight", inFlight, AtomicInteger::get)
+                .register(meterRegistry);
+        this.circuitRejected = Counter.builder("stt.backend.rejected")
+                .description("모든 엔진의 서킷이 열려 있어 보내지 않고 실패 처리한 요청 수")
+                .register(meterRegistry);
+        this.hedges = Counter.builder("stt.backend.hedges")
+                .description("응답이 늦어 다른 엔진으로 한 번 더 보낸 요청 수")
+                .register(meterRegistry);
+        this.hedgeWins = Counter.builder("stt.backend.hedge.wins")
+                .description("두 번째로 보낸 요청의 응답이 먼저 도착한 수")
+                .register(meterRegistry);
+    }
+
+    // 음성 데이터(16비트 mono PCM)를 STT 엔진으로 보내고 변환된 텍스트(엔진 응답 본문)를 비동기로 돌려준다
+    // 실패 시에는 FAILURE_TEXT로 완료된다
+    public CompletableFuture<String> recognize(ByteString audioData) {
+        return recognize(audioData, defaultSampleRate);
+    }
+
+    // 같은 음성을 이미 인식했으면 엔진을 호출하지 않고 캐시된 결과로 완료
+    public CompletableFuture<String> recognize(ByteString audioData, int sampleRate) {
+        return recognitionCache.get(audioData, sampleRate, () -> recognizeUncached(audioData, sampleRate));
+    }
+
+    // 중간 인식용: 진행 중인 발화의 앞부분이라 같은 음성이 다시 올 일이 없으므로 캐시를 거치지 않음
+    public CompletableFuture<String> recognizeInterim(ByteString audioData, int sampleRate) {
+        return recognizeUncached(audioData, sampleRate);
+    }
+
+    // 동시 요청 한도에 여유가 있고 대기 중인 요청이 없는지 (중간 인식처럼 건너뛰어도 되는 요청이 최종 인식을 밀어내지 않도록)
+    public boolean hasSpareCapacity() {
+        return waiting.isEmpty() && inFlight.get() < maxConcurrency;
+    }
+
+    private CompletableFuture<String> recognizeUncached(ByteString audioData, int sampleRate) {
+        // 샘플레이트는 Content-Type으로 엔진에 전달 (엔진이 WAV 헤더를 만들 때 사용)
+        ByteString body = flacEncoding ? FlacEncoder.encode(audioData, sampleRate) : audioData;
+        String contentType = flacEncoding ? "audio/flac" : "audio/L16; rate=" + sampleRate + "; channels=1";
+        CompletableFuture<String> result = new CompletableFuture<>();
+        waiting.add(() -> send(body, contentType, result));
+        waitingCount.incrementAndGet();
+        drainWaiting();
+        return result;
+    }
+
+    // 동시 요청 슬롯을 하나 받은 상태에서 호출됨
+    private void send(ByteString audioData, String contentType, CompletableFuture<String> result) {
+        Attempt primary = acquireEndpoint(null);
+        if (primary == null) {
+            circuitRejected.increment();
+            long skipped = circuitOpenLog.tryAcquire();
+            if (skipped >= 0) {
+                log.error("사용 가능한 STT 엔진 없음 (모든 서킷 OPEN, 직전 생략 {}건)", skipped);
+            }
+            result.complete(FAILURE_TEXT);
+            release();
+            return;
+        }
+        AtomicInteger pendingAttempts = new AtomicInteger(1);
+        execute(primary, audioData, contentType, result, pendingAttempts, false);
+        if (hedgeDelayMs > 0 && endpoints.size() > 1) {
+            hedgeScheduler.schedule(() -> hedge(primary.endpoint(), audioData, contentType, result, pendingAttempts),
+                    hedgeDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // 아직 응답이 없으면 다른 엔진으로 한 번 더 전송
+    // 동시 요청 한도에 여유가 있고 대기 중인 요청이 없을 때만 보낸다 (과부하 때 요청을 부풀리지 않도록)
+    private void hedge(SttEndpoint primaryEndpoint, ByteString audioData, String contentType,
+                       CompletableFuture<String> result, AtomicInteger pendingAttempts) {
+        if (result.isDone() || !waiting.isEmpty() || !tryAcquireSlot()) {
+            return;
+        }
+        Attempt attempt = acquireEndpoint(primaryEndpoint);
+        if (attempt == null) {
+            release();
+            return;
+        }
+        hedges.increment();
+        pendingAttempts.incrementAndGet();
+        execute(attempt, audioData, contentType, result, pendingAttempts, true);
+    }
+
+    // 먼저 성공한 응답으로 완료, 모든 시도가 실패해야 FAILURE_TEXT
+    private void execute(Attempt attempt, ByteString audioData, String contentType,
+                         CompletableFuture<String> result, AtomicInteger pendingAttempts, boolean hedged) {
+        SttEndpoint endpoint = attempt.endpoint();
+        CircuitBreaker.Permit permit = attempt.permit();
+        HttpRequest request = HttpRequest.newBuilder(endpoint.getUri())
+                .timeout(requestTimeout)
+                .header("Content-Type", contentType)
+                .POST(new ByteStringBodyPublisher(audioData)) // gRPC 버퍼를 그대로 요청 본문으로 전송
+                .build();
+
+        long start = System.nanoTime();
+        endpoint.onStart();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .whenComplete((response, e) -> {
+                    try {
+                        onResponse(endpoint, permit, start, response, e, result, pendingAttempts, hedged);
+                    } finally {
+                        release(); // 결과를 완료한 뒤 슬롯 반환
+                    }
+                });
+    }
+
+    private void onResponse(SttEndpoint endpoint, CircuitBreaker.Permit permit, long start, HttpResponse<String> response, Throwable e,
+                            CompletableFuture<String> result, AtomicInteger pendingAttempts, boolean hedged) {
+        boolean success = e == null && response.statusCode() == 200;
+        endpoint.onComplete(start, success);
+        // 연결 오류/시간 초과/5xx만 엔진 장애로 본다 (4xx는 요청 문제)
+        if (e != null || response.statusCode() >= 500) {
+            endpoint.getCircuitBreaker().onFailure(permit);
+        } else {
+            endpoint.getCircuitBreaker().onSuccess(permit);
+        }
+
+        if (success) {
+            if (result.complete(response.body()) && hedged) { // 변환된 텍스트 반환 (응답 전체)
+                hedgeWins.increment();
+            }
+            return;
+        }
+        long skipped = failureLog.tryAcquire();
+        if (skipped >= 0 && e != null) {
+            log.error("STT 서버 요청 실패 ({}): {} (직전 생략 {}건)", endpoint.getUri().getAuthority(), e.getMessage(), skipped);
+        } else if (skipped >= 0) {
+            log.error("STT 서버 오류 ({}): 응답 코드 {} (직전 생략 {}건)", endpoint.getUri().getAuthority(), response.statusCode(), skipped);
+        }
+        if (pendingAttempts.decrementAndGet() == 0) {
+            result.complete(FAILURE_TEXT);
+        }
+    }
+
+    // 서킷이 요청을 허용하는 엔진 중 처리 중인 요청이 가장 적은 엔진 선택 (동률이면 무작위 시작점으로 분산)
+    private Attempt acquireEndpoint(SttEndpoint exclude) {
+        int size = endpoints.size();
+        boolean[] rejected = new boolean[size];
+        for (int round = 0; round < size; round++) {
+            int start = ThreadLocalRandom.current().nextInt(size);
+            int best = -1;
+            for (int i = 0; i < size; i++) {
+                int index = (start + i) % size;
+                SttEndpoint endpoint = endpoints.get(index);
+                if (rejected[index] || endpoint == exclude || !endpoint.getCircuitBreaker().isCallPermitted()) {
+                    continue;
+                }
+                if (best < 0 || endpoint.getOutstanding() < endpoints.get(best).getOutstanding()) {
+                    best = index;
                 }
-            } else {
-                System.err.println("[ERROR] STT 서버 오류: 응답 코드 " + responseCode);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            if (best < 0) {
+                return null;
+            }
+            CircuitBreaker.Permit permit = endpoints.get(best).getCircuitBreaker().tryAcquire();
+            if (permit != CircuitBreaker.Permit.REJECTED) {
+                return new Attempt(endpoints.get(best), permit);
+            }
+            rejected[best] = true; // 확인 직후 다른 요청이 probe 자리를 가져감
         }
+        return null;
+    }
 
-        failCount++;
-        if (failCount > 1000 && grpcServer != null) {
-            System.out.println("[ERROR] 1000번 초과 실패 - gRPC 서버 종료");
-            grpcServer.stop(); // gRPC 서버 종료
+    // 동시 요청 수가 한도 미만이면 대기 중인 요청을 꺼내 실행
+    // 꺼내는 루프는 한 번에 하나만 돈다: 실행한 요청이 바로 실패해 release가 다시 불려도(모든 서킷 OPEN 등) 재귀하지 않고,
+    // 요청 횟수만 남겨 두면 돌고 있는 루프가 이어서 처리한다 (장애 중 대기열이 길어도 스택이 깊어지지 않음)
+    private void drainWaiting() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
         }
+        int requests = 1;
+        do {
+            while (tryAcquireSlot()) {
+                Runnable task = waiting.poll();
+                if (task == null) {
+                    inFlight.decrementAndGet();
+                    break;
+                }
+                waitingCount.decrementAndGet();
+                task.run();
+            }
+            requests = drainRequests.addAndGet(-requests);
+        } while (requests != 0);
+    }
 
-        return "STT 변환 실패";
+    private boolean tryAcquireSlot() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= maxConcurrency) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drainWaiting();
     }
-}
 
+    @PreDestroy
+    public void shutdown() {
+        hedgeScheduler.shutdownNow();
+    }
+
+    private record Attempt(SttEndpoint endpoint, CircuitBreaker.Permit permit) {
+    }
+}
@@ -1,14 +1,31 @@
 package com.demo.grpc;
 
+import com.demo.archive.AudioArchive;
+import com.demo.archive.SessionRecording;
+import com.demo.audio.AudioAllocationTracker;
+import com.demo.audio.UtteranceSegmenter;
+import com.demo.audio.UtteranceSegmenterFactory;
 import com.demo.config.SttGrpcServerProperties;
+import com.demo.executor.VirtualThreads;
 import com.demo.flask.SttFlaskClient;
+import com.google.protobuf.ByteString;
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 
+import stt.AudioFormat;
 import stt.SpeechToTextServiceGrpc;
 import stt.SpeechResponse;
 import stt.SpeechChunk;
@@ -16,92 +33,564 @@ import stt.SpeechChunk;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class GrpcServer {
+
+    private static final Logger log = LoggerFactory.getLogger(GrpcServer.class);
+
     @Autowired
     private SttGrpcServerProperties properties;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SttFlaskClient sttFlaskClient;
+
+    @Autowired
+    private AudioAllocationTracker allocationTracker;
+
+    @Autowired
+    private UtteranceSegmenterFactory segmenterFactory;
+
+    @Autowired
+    private AudioArchive audioArchive;
+
     private Server server;
+    private ScheduledExecutorService vadScheduler;
 
     public void start() throws IOException, InterruptedException {
 
-        server = ServerBuilder.forPort(properties.getPort())
-                .addService(new SpeechToTextServiceImpl())
-                .build()
-                .start();
+        // 수신 창을 잡고 있는 청크 수는 스트림별 수신 창(max-pending-chunks) x 활성 스트림 수로 제한됨
+        AtomicInteger pendingChunks = new AtomicInteger();
+        Gauge.builder("stt.pipeline.queue.depth", pendingChunks, AtomicInteger::get)
+                .tag("stage", "grpc-receive")
+                .description("수신했지만 아직 다음 청크 수신을 허용하지 않은 음성 청크 수 (동시 인식 한도로 보류 중 포함)")
+                .register(meterRegistry);
+
+        // 발화 중 입력이 끊긴 스트림의 마지막 발화를 마무리하고, 진행 중인 발화의 중간 인식을 시작하는 타이머
+        vadScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "vad-idle-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
 
-        // gRPC 서버 인스턴스를 SttFlaskClient에 설정
-        SttFlaskClient.setGrpcServer(this);
+        // 클라이언트 keepalive ping을 허용하는 최소 간격 (기본 5분보다 자주 보내면 연결이 끊기므로 클라이언트 설정에 맞춤)
+        ServerBuilder<?> serverBuilder = NettyServerBuilder.forPort(properties.getPort())
+                .permitKeepAliveTime(properties.getPermitKeepAliveTimeMs(), TimeUnit.MILLISECONDS)
+                .addService(new SpeechToTextServiceImpl(sttFlaskClient, allocationTracker, segmenterFactory, audioArchive,
+                        vadScheduler, properties.getMaxPendingChunks(), properties.getMaxInFlightRecognitions(), pendingChunks,
+                        properties.getAudioDefaultSampleRate(),
+                        properties.isInterimEnabled() ? properties.getInterimIntervalMs() : 0, properties.getInterimMaxWindowMs(),
+                        meterRegistry));
+        if (VirtualThreads.resolve(properties.isVirtualThreadsEnabled())) {
+            // 스트림 콜백을 호출마다 가상 스레드에서 실행 (기본 캐시 스레드 풀 대신)
+            serverBuilder.executor(VirtualThreads.newThreadPerTaskExecutor("grpc-server-"));
+        }
+        server = serverBuilder.build().start();
 
-        System.out.println("▷ gRPC 서버 시작됨 (포트 " + properties.getPort() + ")");
+        log.info("gRPC 서버 시작됨 (포트 {})", properties.getPort());
         server.awaitTermination();
 
     }
 
     public void stop() {
         if (server != null) {
-            System.out.println("▷ gRPC 서버 종료 중...");
+            log.info("gRPC 서버 종료 중...");
             server.shutdown();
-            System.out.println("▷ gRPC 서버 종료 완료");
+            vadScheduler.shutdownNow();
+            log.info("gRPC 서버 종료 완료");
         }
     }
 
     static class SpeechToTextServiceImpl extends SpeechToTextServiceGrpc.SpeechToTextServiceImplBase {
 
+        private final SttFlaskClient sttFlaskClient;
+        private final AudioAllocationTracker allocationTracker;
+        private final UtteranceSegmenterFactory segmenterFactory;
+        private final AudioArchive audioArchive;
+        private final ScheduledExecutorService vadScheduler;
+        private final int maxPendingChunks;
+        private final int maxInFlightRecognitions;
+        private final AtomicInteger pendingChunks;
+        private final int defaultSampleRate;
+        private final long interimIntervalMs; // 0이면 중간 인식 끔
+        private final int interimMaxWindowMs;
+        private final AtomicInteger activeStreams = new AtomicInteger();
+        private final AtomicInteger inFlightRecognitions = new AtomicInteger();
+        private final Counter chunks;
+        private final Counter audioBytes;
+        private final Counter recognitionFailures;
+        private final Timer utteranceLatency;
+        private final Counter interimRequests;
+        private final Counter interimSkipped;
+
+        SpeechToTextServiceImpl(SttFlaskClient sttFlaskClient, AudioAllocationTracker allocationTracker,
+                                UtteranceSegmenterFactory segmenterFactory, AudioArchive audioArchive,
+                                ScheduledExecutorService vadScheduler, int maxPendingChunks, int maxInFlightRecognitions,
+                                AtomicInteger pendingChunks, int defaultSampleRate, long interimIntervalMs, int interimMaxWindowMs,
+                                MeterRegistry meterRegistry) {
+            this.sttFlaskClient = sttFlaskClient;
+            this.allocationTracker = allocationTracker;
+            this.segmenterFactory = segmenterFactory;
+            this.audioArchive = audioArchive;
+            this.vadScheduler = vadScheduler;
+            this.maxPendingChunks = maxPendingChunks;
+            this.maxInFlightRecognitions = Math.max(1, maxInFlightRecognitions);
+            this.pendingChunks = pendingChunks;
+            this.defaultSampleRate = defaultSampleRate;
+            this.interimIntervalMs = interimIntervalMs;
+            this.interimMaxWindowMs = interimMaxWindowMs;
+
+            Gauge.builder("stt.grpc.server.streams.active", activeStreams, AtomicInteger::get)
+                    .description("열려 있는 세션 스트림 수")
+                    .register(meterRegistry);
+            Gauge.builder("stt.grpc.server.recognitions.inflight", inFlightRecognitions, AtomicInteger::get)
+                    .description("STT 엔진 응답을 기다리는 최종 인식 수 (전체 스트림 합계)")
+                    .register(meterRegistry);
+            this.chunks = Counter.builder("stt.grpc.server.chunks")
+                    .description("수신한 음성 청크 수")
+                    .register(meterRegistry);
+            this.audioBytes = Counter.builder("stt.grpc.server.audio.bytes")
+                    .description("수신한 음성 바이트")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+            this.recognitionFailures = Counter.builder("stt.grpc.server.recognition.failures")
+                    .description("STT 변환 실패로 응답한 발화 수")
+                    .register(meterRegistry);
+            this.utteranceLatency = Timer.builder("stt.grpc.server.utterance.latency")
+                    .description("발화 구간 완성부터 응답 전송까지 (엔진 호출 + 앞선 발화 순서 대기)")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.interimRequests = Counter.builder("stt.interim.requests")
+                    .description("진행 중인 발화를 다시 인식하도록 보낸 중간 인식 요청 수")
+                    .register(meterRegistry);
+            this.interimSkipped = Counter.builder("stt.interim.skipped")
+                    .description("STT 엔진 대기열이 있어 건너뛴 중간 인식 수")
+                    .register(meterRegistry);
+        }
+
+        // 스트림 첫 청크의 AudioFormat 확인: VAD와 엔진 전송 모두 16비트 mono PCM을 전제로 함
+        static String unsupportedFormat(SpeechChunk firstChunk) {
+            if (!firstChunk.hasFormat()) {
+                return null;
+            }
+            AudioFormat format = firstChunk.getFormat();
+            if (format.getEncoding() != AudioFormat.Encoding.PCM_S16LE) {
+                return "지원하지 않는 음성 인코딩: " + format.getEncoding() + " (PCM_S16LE만 지원)";
+            }
+            if (format.getChannels() > 1) {
+                return "mono 음성만 지원합니다 (채널 수: " + format.getChannels() + ")";
+            }
+            return null;
+        }
+
+        int sampleRateOf(SpeechChunk firstChunk) {
+            int sampleRate = firstChunk.hasFormat() ? firstChunk.getFormat().getSampleRateHz() : 0;
+            return sampleRate > 0 ? sampleRate : defaultSampleRate;
+        }
+
+        // 중간 가설의 안정도: 바로 앞 가설과 앞부분이 일치하는 비율 (엔진 응답 본문 기준)
+        static float stability(String previous, String current) {
+            if (previous == null || current.isEmpty()) {
+                return 0f;
+            }
+            int common = 0;
+            int limit = Math.min(previous.length(), current.length());
+            while (common < limit && previous.charAt(common) == current.charAt(common)) {
+                common++;
+            }
+            return (float) common / Math.max(previous.length(), current.length());
+        }
+
+        // 세션 단위 양방향 스트림: auth ~ stop 동안 유지되며, 수신한 청크마다 변환 결과를 바로 돌려준다
+        @Override
+        public StreamObserver<SpeechChunk> streamingRecognize(StreamObserver<SpeechResponse> responseObserver) {
+            // 수동 흐름 제어: 세그먼터가 청크를 받으면 바로 다음 청크를 허용하고,
+            // 이 스트림의 동시 인식이 max-inflight-recognitions에 닿으면 인식이 끝날 때까지 허용을 보류해
+            // 클라이언트 isReady()가 false가 되도록 한다 (STT 백엔드 지연 → 클라이언트 버퍼로 역압 전달)
+            ServerCallStreamObserver<SpeechResponse> serverObserver = (ServerCallStreamObserver<SpeechResponse>) responseObserver;
+            serverObserver.disableAutoRequest();
+            serverObserver.request(maxPendingChunks);
+            activeStreams.incrementAndGet();
+
+            return new StreamObserver<>() {
+                // STT 요청은 발화가 완성되는 즉시 동시에 보내되, 응답은 발화 순서대로 내보내도록 이전 응답 뒤에 연결
+                // (onNext/onCompleted와 유휴 flush/중간 인식 타이머가 함께 접근하므로 this로 동기화)
+                private UtteranceSegmenter segmenter; // 첫 청크의 샘플레이트로 생성, VAD를 끄면 null (청크를 그대로 인식)
+                private int sampleRate;
+                private CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+                private ScheduledFuture<?> idleFlush;
+                private long lastChunkNanos;
+                private long receivedBytes; // VAD를 끈 경우 청크 위치(ms) 계산용
+                private int nextChunkId; // 수신 순서대로 매기는 발화 번호 (클라이언트 Solace 토픽의 chunkId)
+                private int recognizing;  // 이 스트림에서 엔진 응답을 기다리는 최종 인식 수
+                private int heldCredits;  // 동시 인식 한도 때문에 보류한 수신 허용 수
+
+                // 중간 인식: 스트림마다 한 번에 하나만 보내고, 결과는 아직 최종 결과가 나가지 않은 발화에만 보낸다
+                private ScheduledFuture<?> interimTicker;
+                private boolean interimInFlight;
+                private int interimChunkId = -1; // 마지막으로 중간 인식한 발화 번호
+                private long interimEndMs;       // 그 발화에서 마지막으로 인식한 범위의 끝
+                private String lastInterimText;  // 안정도 계산용 직전 가설
+
+                // 최종 결과(발화 순서 체인)와 중간 가설(엔진 응답 스레드)이 responseObserver를 동시에 호출하지 않도록 직렬화
+                private final Object responseLock = new Object();
+                private int lastFinalChunkId = -1; // responseLock
+                private boolean responsesClosed;   // responseLock
+                private volatile boolean cancelled;
+                private final AtomicBoolean released = new AtomicBoolean(); // activeStreams를 한 번만 줄이도록
+                private String sessionId;
+                private SessionRecording recording; // 보관을 끄거나 파일을 만들 수 없으면 null
+
+                @Override
+                public void onNext(SpeechChunk speechChunk) {
+                    long allocationMark = allocationTracker.mark();
+                    if (sessionId == null) {
+                        sessionId = speechChunk.getSessionId();
+                        String unsupported = unsupportedFormat(speechChunk);
+                        if (unsupported != null) {
+                            cancelled = true;
+                            log.error("{} ({})", unsupported, sessionId);
+                            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(unsupported).asRuntimeException());
+                            releaseStream();
+                            return;
+                        }
+                        sampleRate = sampleRateOf(speechChunk);
+                        segmenter = segmenterFactory.create(sampleRate);
+                        recording = audioArchive.open(sessionId, sampleRate);
+                        if (segmenter != null && interimIntervalMs > 0) {
+                            synchronized (this) {
+                                interimTicker = vadScheduler.scheduleWithFixedDelay(this::recognizeInterim,
+                                        interimIntervalMs, interimIntervalMs, TimeUnit.MILLISECONDS);
+                            }
+                        }
+                        log.info("gRPC 세션 스트림 시작: {} (고객 ID: {}, {}Hz)", sessionId, speechChunk.getCustomerId(), sampleRate);
+                    }
+                    if (cancelled) {
+                        return;
+                    }
+                    log.debug("gRPC 서버에서 받은 음성 데이터 크기: {} bytes", speechChunk.getAudioData().size());
+                    chunks.increment();
+                    audioBytes.increment(speechChunk.getAudioData().size());
+                    pendingChunks.incrementAndGet();
+
+                    // ByteString을 복사하지 않고 그대로 VAD 분할 → STT 요청 본문으로 전달
+                    ByteString audioData = speechChunk.getAudioData();
+                    if (recording != null) {
+                        recording.append(audioData); // 무음 포함 원본 그대로 녹음 (매핑된 파일로 복사만 함)
+                    }
+                    boolean release;
+                    synchronized (this) {
+                        if (segmenter == null) {
+                            long startOffsetMs = toMillis(receivedBytes);
+                            receivedBytes += audioData.size();
+                            recognizeInOrder(audioData, startOffsetMs, toMillis(receivedBytes));
+                        } else {
+                            lastChunkNanos = System.nanoTime();
+                            for (UtteranceSegmenter.Segment segment : segmenter.accept(audioData)) {
+                                recognizeInOrder(segment.audio(), segment.startOffsetMs(), segment.endOffsetMs());
+                            }
+                            scheduleIdleFlush();
+                        }
+                        // 세그먼터가 청크를 받았으므로 바로 다음 청크 허용 (앞선 발화의 인식을 기다리지 않음)
+                        // 동시 인식이 한도에 닿았으면 인식 하나가 끝날 때까지 보류
+                        release = recognizing < maxInFlightRecognitions;
+                        if (!release) {
+                            heldCredits++;
+                        }
+                    }
+                    if (release) {
+                        releaseCredit();
+                    }
+                    allocationTracker.recordChunk(allocationMark, audioData.size());
+                }
+
+                private void recognizeInOrder(ByteString audioData, long startOffsetMs, long endOffsetMs) {
+                    if (segmenter != null) {
+                        segmenterFactory.recordSegment(audioData.size());
+                    }
+                    int chunkId = nextChunkId++;
+                    long start = System.nanoTime();
+                    recognizing++;
+                    inFlightRecognitions.incrementAndGet();
+                    CompletableFuture<String> recognition = sttFlaskClient.recognize(audioData, sampleRate);
+                    recognition.whenComplete((text, e) -> onRecognitionDone());
+                    pending = pending.thenAcceptBoth(recognition, (unused, text) -> {
+                        if (cancelled) {
+                            return;
+                        }
+                        SpeechResponse response = SpeechResponse.newBuilder()
+                                .setText(text)
+                                .setSuccess(true)
+                                .setChunkId(chunkId)
+                                .setStability(1f)
+                                .setStartOffsetMs(startOffsetMs)
+                                .setEndOffsetMs(endOffsetMs)
+                                .setUtteranceId(sessionId + "-" + chunkId)
+                                .build();
+                        synchronized (responseLock) {
+                            responseObserver.onNext(response);
+                            lastFinalChunkId = chunkId;
+                        }
+                        utteranceLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        if (SttFlaskClient.FAILURE_TEXT.equals(text)) {
+                            recognitionFailures.increment();
+                        }
+                        log.debug("변환된 텍스트 응답 전송 완료: {}", text);
+                    }).exceptionally(e -> {
+                        log.error("STT 변환 응답 전송 실패: {}", e.getMessage());
+                        return null;
+                    });
+                }
+
+                // 최종 인식 하나가 끝나면 (응답 순서와 무관하게) 보류한 수신 허용을 한도 안에서 돌려줌
+                private void onRecognitionDone() {
+                    inFlightRecognitions.decrementAndGet();
+                    int release;
+                    synchronized (this) {
+                        recognizing--;
+                        release = Math.min(heldCredits, maxInFlightRecognitions - recognizing);
+                        if (release > 0) {
+                            heldCredits -= release;
+                        }
+                    }
+                    for (int i = 0; i < release; i++) {
+                        releaseCredit();
+                    }
+                }
+
+                private void releaseStream() {
+                    if (released.compareAndSet(false, true)) {
+                        activeStreams.decrementAndGet();
+                    }
+                }
+
+                private void releaseCredit() {
+                    pendingChunks.decrementAndGet();
+                    if (!cancelled) {
+                        serverObserver.request(1);
+                    }
+                }
+
+                // 진행 중인 발화를 처음부터 지금까지 다시 인식 (interval마다, 새 음성이 들어온 경우만)
+                // 발화가 완성되면 같은 chunkId의 최종 결과가 이 가설을 대체한다
+                private synchronized void recognizeInterim() {
+                    if (cancelled || interimInFlight || !segmenter.inSpeech()) {
+                        return;
+                    }
+                    UtteranceSegmenter.Segment window = segmenter.current();
+                    if (window == null || window.endOffsetMs() - window.startOffsetMs() > interimMaxWindowMs) {
+                        return;
+                    }
+                    int chunkId = nextChunkId; // 진행 중인 발화가 완성되면 받을 번호
+                    if (chunkId == interimChunkId && window.endOffsetMs() <= interimEndMs) {
+                        return; // 그 사이 새 음성 없음 (pause 등)
+                    }
+                    if (!sttFlaskClient.hasSpareCapacity()) {
+                        interimSkipped.increment(); // 최종 인식이 밀리지 않도록 엔진이 바쁘면 건너뜀
+                        return;
+                    }
+                    if (chunkId != interimChunkId) {
+                        interimChunkId = chunkId;
+                        lastInterimText = null;
+                    }
+                    interimEndMs = window.endOffsetMs();
+                    interimInFlight = true;
+                    interimRequests.increment();
+                    sttFlaskClient.recognizeInterim(window.audio(), sampleRate)
+                            .whenComplete((text, e) -> sendInterim(chunkId, window, text, e));
+                }
+
+                private void sendInterim(int chunkId, UtteranceSegmenter.Segment window, String text, Throwable e) {
+                    float stability;
+                    synchronized (this) {
+                        interimInFlight = false;
+                        if (e != null || SttFlaskClient.FAILURE_TEXT.equals(text) || chunkId != interimChunkId) {
+                            return; // 실패한 중간 인식은 보내지 않음 (다음 주기나 최종 결과를 기다림)
+                        }
+                        stability = stability(lastInterimText, text);
+                        lastInterimText = text;
+                    }
+                    SpeechResponse response = SpeechResponse.newBuilder()
+                            .setText(text)
+                            .setSuccess(true)
+                            .setChunkId(chunkId)
+                            .setInterim(true)
+                            .setStability(stability)
+                            .setStartOffsetMs(window.startOffsetMs())
+                            .setEndOffsetMs(window.endOffsetMs())
+                            .setUtteranceId(sessionId + "-" + chunkId)
+                            .build();
+                    synchronized (responseLock) {
+                        // 이 발화의 최종 결과가 이미 나갔거나 앞 발화의 최종 결과가 아직이면 버림 (중간 가설이 최종 결과를 앞지르거나 덮지 않도록)
+                        if (cancelled || responsesClosed || chunkId != lastFinalChunkId + 1) {
+                            return;
+                        }
+                        responseObserver.onNext(response);
+                    }
+                    log.debug("중간 인식 결과 전송: {} ({}~{}ms)", text, window.startOffsetMs(), window.endOffsetMs());
+                }
+
+                private long toMillis(long bytes) {
+                    return bytes / 2 * 1000 / sampleRate;
+                }
+
+                // 발화 도중 청크가 끊기면(브라우저가 발화 단위로 보내는 경우) hangover를 기다리지 않고 마무리
+                private void scheduleIdleFlush() {
+                    if (idleFlush != null) {
+                        idleFlush.cancel(false);
+                        idleFlush = null;
+                    }
+                    if (segmenter.inSpeech()) {
+                        idleFlush = vadScheduler.schedule(this::flushIfIdle, segmenterFactory.getIdleFlushMs(), TimeUnit.MILLISECONDS);
+                    }
+                }
+
+                private synchronized void flushIfIdle() {
+                    long idleMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastChunkNanos);
+                    if (cancelled || idleMs < segmenterFactory.getIdleFlushMs()) {
+                        return; // 그 사이 새 청크가 도착함
+                    }
+                    flushSegment();
+                }
+
+                private void flushSegment() {
+                    UtteranceSegmenter.Segment segment = segmenter.flush();
+                    if (segment != null) {
+                        recognizeInOrder(segment.audio(), segment.startOffsetMs(), segment.endOffsetMs());
+                    }
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    cancelled = true;
+                    synchronized (this) {
+                        if (idleFlush != null) {
+                            idleFlush.cancel(false);
+                        }
+                        if (interimTicker != null) {
+                            interimTicker.cancel(false);
+                        }
+                    }
+                    if (recording != null) {
+                        recording.close();
+                    }
+                    releaseStream();
+                    log.warn("세션 스트림 오류 발생 ({}): {}", sessionId, t.getMessage());
+                }
+
+                @Override
+                public void onCompleted() {
+                    CompletableFuture<Void> last;
+                    synchronized (this) {
+                        if (interimTicker != null) {
+                            interimTicker.cancel(false);
+                        }
+                        if (segmenter != null) {
+                            if (idleFlush != null) {
+                                idleFlush.cancel(false);
+                            }
+                            flushSegment(); // 진행 중이던 마지막 발화
+                        }
+                        last = pending;
+                    }
+                    if (recording != null) {
+                        recording.close();
+                    }
+                    // 남은 변환이 모두 끝난 뒤 스트림 종료
+                    last.whenComplete((unused, e) -> {
+                        synchronized (responseLock) {
+                            responsesClosed = true; // 이후 도착한 중간 가설은 버림
+                            if (!cancelled) {
+                                responseObserver.onCompleted();
+                            }
+                        }
+                        releaseStream();
+                        log.info("gRPC 세션 스트림 종료: {}", sessionId);
+                    });
+                }
+            };
+        }
+
         @Override
         public StreamObserver<SpeechChunk> streamSpeechToText(StreamObserver<SpeechResponse> responseObserver) {
             return new StreamObserver<>() {
-                private final List<byte[]> audioChunks = new ArrayList<>();
+                private final List<ByteString> audioChunks = new ArrayList<>();
                 private String customerId;
+                private int sampleRate;
+                private SessionRecording recording;
 
                 @Override
                 public void onNext(SpeechChunk speechChunk) {
                     if (customerId == null) {
                         customerId = speechChunk.getCustomerId();
+                        sampleRate = sampleRateOf(speechChunk);
+                        recording = audioArchive.open(speechChunk.getSessionId(), sampleRate);
+                    }
+                    long allocationMark = allocationTracker.mark();
+                    audioChunks.add(speechChunk.getAudioData());
+                    if (recording != null) {
+                        recording.append(speechChunk.getAudioData());
                     }
-                    audioChunks.add(speechChunk.getAudioData().toByteArray());
-                    System.out.println("gRPC 서버에서 받은 음성 데이터 크기: " + speechChunk.getAudioData().size() + " bytes");
+                    log.debug("gRPC 서버에서 받은 음성 데이터 크기: {} bytes", speechChunk.getAudioData().size());
+                    chunks.increment();
+                    audioBytes.increment(speechChunk.getAudioData().size());
+                    allocationTracker.recordChunk(allocationMark, speechChunk.getAudioData().size());
                 }
 
                 @Override
                 public void onError(Throwable t) {
-                    System.err.println("[ERROR] 오류 발생: " + t.getMessage());
+                    if (recording != null) {
+                        recording.close();
+                    }
+                    log.error("오류 발생: {}", t.getMessage());
                 }
 
                 @Override
                 public void onCompleted() {
-                    System.out.println("모든 음성 데이터 수신 완료. STT 변환 시작...");
+                    if (recording != null) {
+                        recording.close();
+                    }
+                    log.info("모든 음성 데이터 수신 완료. STT 변환 시작...");
 
                     // 음성 데이터를 하나로 합치기
-                    byte[] fullAudio = mergeAudioChunks(audioChunks);
+                    ByteString fullAudio = mergeAudioChunks(audioChunks);
 
-                    // 🔥 Flask 서버에 HTTP 요청을 보내 STT 변환
-                    String text = SttFlaskClient.sendToFlask(fullAudio);
+                    // 🔥 Flask 서버에 HTTP 요청을 보내 STT 변환 (응답은 비동기로 전달)
+                    sttFlaskClient.recognize(fullAudio, sampleRate > 0 ? sampleRate : defaultSampleRate).whenComplete((text, e) -> {
+                        // 인식 캐시의 로더가 예외를 던지면 실패로 완료되므로, 호출자가 deadline까지 기다리지 않도록 오류로 종료
+                        if (e != null) {
+                            log.error("STT 변환 실패: {}", e.getMessage());
+                            responseObserver.onError(Status.INTERNAL.withDescription("STT 변환 실패").withCause(e).asRuntimeException());
+                            return;
+                        }
+                        // 변환된 텍스트 응답
+                        SpeechResponse response = SpeechResponse.newBuilder()
+                                .setText(text)
+                                .setSuccess(true)
+                                .build();
 
-                    // 변환된 텍스트 응답
-                    SpeechResponse response = SpeechResponse.newBuilder()
-                            .setText(text)
-                            .setSuccess(true)
-                            .build();
-
-                    responseObserver.onNext(response);
-                    responseObserver.onCompleted();
-                    System.out.println("변환된 텍스트 응답 전송 완료: " + text);
+                        responseObserver.onNext(response);
+                        responseObserver.onCompleted();
+                        log.debug("변환된 텍스트 응답 전송 완료: {}", text);
+                    });
                 }
             };
         }
 
-        private byte[] mergeAudioChunks(List<byte[]> audioChunks) {
-            int totalSize = audioChunks.stream().mapToInt(chunk -> chunk.length).sum();
-            byte[] mergedAudio = new byte[totalSize];
-
-            int index = 0;
-             for (byte[] chunk : audioChunks) {
-                System.arraycopy(chunk, 0, mergedAudio, index, chunk.length);
-                index += chunk.length;
-            }
-            return mergedAudio;
+        // 청크를 복사하지 않고 rope(ByteString 연결)로 합친다
+        // (HTTP 전송 시 각 조각의 버퍼가 그대로 gathering write 됨)
+        static ByteString mergeAudioChunks(List<ByteString> audioChunks) {
+            return ByteString.copyFrom(audioChunks);
         }
     }
 }
@@ -0,0 +1,29 @@
+package com.demo.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 초당 수천 번 날 수 있는 경고(대기열 초과, 엔진 장애 중 요청 실패 등)를 interval마다 한 번만 남기기 위한 샘플러
+// 생략한 건수는 다음에 남기는 로그에 붙이고, 정확한 건수는 각 단계의 카운터 지표로 본다
+public final class LogSampler {
+
+    private final long intervalNanos;
+    private final AtomicLong nextAllowedNanos;
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public LogSampler(long interval, TimeUnit unit) {
+        this.intervalNanos = unit.toNanos(interval);
+        this.nextAllowedNanos = new AtomicLong(System.nanoTime());
+    }
+
+    // 지금 로그를 남길 차례면 직전까지 생략한 건수(0 이상), 아니면 -1
+    public long tryAcquire() {
+        long now = System.nanoTime();
+        long next = nextAllowedNanos.get();
+        if (now - next >= 0 && nextAllowedNanos.compareAndSet(next, now + intervalNanos)) {
+            return suppressed.getAndSet(0);
+        }
+        suppressed.incrementAndGet();
+        return -1;
+    }
+}
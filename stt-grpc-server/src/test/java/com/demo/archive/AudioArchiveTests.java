@@ -0,0 +1,81 @@
+package com.demo.archive;
+
+import com.demo.config.SttGrpcServerProperties;
+import com.google.protobuf.ByteString;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AudioArchiveTests {
+
+	@TempDir
+	Path dir;
+
+	private AudioArchive archive;
+
+	@AfterEach
+	void shutdown() {
+		archive.shutdown();
+	}
+
+	@Test
+	void appendsAcrossSegmentsAndReadsBackAnyRange() throws Exception {
+		archive = newArchive(1000, FsyncPolicy.ON_CLOSE);
+		byte[] pcm = new byte[3500];
+		for (int i = 0; i < pcm.length; i++) {
+			pcm[i] = (byte) (i * 31);
+		}
+
+		SessionRecording recording = archive.open("20250101_cust/1", 16000);
+		for (int offset = 0; offset < pcm.length; offset += 700) {
+			recording.append(ByteString.copyFrom(pcm, offset, 700));
+		}
+		recording.close();
+		archive.shutdown(); // 세그먼트 정리까지 완료
+
+		Path sessionDir = dir.resolve("20250101_cust_1");
+		assertThat(Files.size(sessionDir.resolve("segment-00000.pcm"))).isEqualTo(1000);
+		assertThat(Files.size(sessionDir.resolve("segment-00003.pcm"))).isEqualTo(500); // 마지막 세그먼트는 쓴 만큼만 남김
+
+		List<ArchiveIndexEntry> index = archive.readIndex("20250101_cust/1");
+		assertThat(index).extracting(ArchiveIndexEntry::offset).containsExactly(0L, 700L, 1400L, 2100L, 2800L);
+		assertThat(archive.readSampleRate("20250101_cust/1")).isEqualTo(16000);
+
+		// 세그먼트 경계를 걸치는 구간
+		assertThat(archive.read("20250101_cust/1", 950, 1200).toByteArray())
+				.isEqualTo(ByteString.copyFrom(pcm, 950, 1200).toByteArray());
+		// 끝을 넘는 요청은 녹음된 길이까지만
+		assertThat(archive.read("20250101_cust/1", 3400, 1000).size()).isEqualTo(100);
+	}
+
+	@Test
+	void keepsReopenedSessionSeparately() throws Exception {
+		archive = newArchive(1000, FsyncPolicy.NONE);
+
+		archive.open("s1", 16000).close();
+		SessionRecording second = archive.open("s1", 16000);
+		second.append(ByteString.copyFrom(new byte[10]));
+		second.close();
+
+		assertThat(dir.resolve("s1-1")).isDirectory();
+		assertThat(archive.readIndex("s1")).isEmpty();
+	}
+
+	private AudioArchive newArchive(int segmentBytes, FsyncPolicy fsyncPolicy) {
+		SttGrpcServerProperties properties = new SttGrpcServerProperties();
+		ReflectionTestUtils.setField(properties, "archiveEnabled", true);
+		ReflectionTestUtils.setField(properties, "archiveDir", dir.toString());
+		ReflectionTestUtils.setField(properties, "archiveSegmentBytes", segmentBytes);
+		ReflectionTestUtils.setField(properties, "archiveFsyncPolicy", fsyncPolicy);
+		ReflectionTestUtils.setField(properties, "archiveFsyncIntervalMs", 50L);
+		return new AudioArchive(properties, new SimpleMeterRegistry());
+	}
+}
@@ -0,0 +1,74 @@
+package com.demo.audio;
+
+import com.google.protobuf.ByteString;
+import org.jflac.FLACDecoder;
+import org.jflac.PCMProcessor;
+import org.jflac.metadata.StreamInfo;
+import org.jflac.util.ByteData;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlacEncoderTests {
+
+	@Test
+	void roundTripsThroughReferenceDecoder() throws Exception {
+		// 4096 샘플 블록 3개 + 마지막 짧은 블록, 무음/음성/잡음 구간 포함
+		byte[] pcm = new byte[(3 * 4096 + 1234) * 2];
+		Random random = new Random(7);
+		for (int i = 0; i < pcm.length / 2; i++) {
+			int sample;
+			if (i < 4096) {
+				sample = 0;
+			} else if (i < 3 * 4096) {
+				sample = (int) (12000 * Math.sin(2 * Math.PI * 220 * i / 16000.0)) + random.nextInt(200) - 100;
+			} else {
+				sample = random.nextInt(65536) - 32768;
+			}
+			pcm[2 * i] = (byte) sample;
+			pcm[2 * i + 1] = (byte) (sample >> 8);
+		}
+
+		ByteString flac = FlacEncoder.encode(ByteString.copyFrom(pcm), 16000);
+
+		FLACDecoder decoder = new FLACDecoder(flac.newInput());
+		ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+		StreamInfo[] streamInfo = new StreamInfo[1];
+		decoder.addPCMProcessor(new PCMProcessor() {
+			@Override
+			public void processStreamInfo(StreamInfo info) {
+				streamInfo[0] = info;
+			}
+
+			@Override
+			public void processPCM(ByteData data) {
+				decoded.write(data.getData(), 0, data.getLen());
+			}
+		});
+		decoder.decode();
+
+		assertThat(decoder.getBadFrames()).isZero();
+		assertThat(streamInfo[0].getSampleRate()).isEqualTo(16000);
+		assertThat(streamInfo[0].getTotalSamples()).isEqualTo(pcm.length / 2);
+		assertThat(decoded.toByteArray()).isEqualTo(pcm);
+		assertThat(flac.size()).isLessThan(pcm.length);
+	}
+
+	@Test
+	void compressesTonalAudio() {
+		byte[] pcm = new byte[16000 * 2];
+		for (int i = 0; i < pcm.length / 2; i++) {
+			int sample = (int) (8000 * Math.sin(2 * Math.PI * 300 * i / 16000.0) + 3000 * Math.sin(2 * Math.PI * 1100 * i / 16000.0));
+			pcm[2 * i] = (byte) sample;
+			pcm[2 * i + 1] = (byte) (sample >> 8);
+		}
+
+		ByteString flac = FlacEncoder.encode(ByteString.copyFrom(pcm), 16000);
+
+		// FIXED 예측기만 사용하므로 LPC 인코더보다는 압축률이 낮음
+		assertThat(flac.size()).isLessThan(pcm.length * 6 / 10);
+	}
+}
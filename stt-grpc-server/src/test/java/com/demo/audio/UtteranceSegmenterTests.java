@@ -0,0 +1,113 @@
+package com.demo.audio;
+
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UtteranceSegmenterTests {
+
+	private static final int SAMPLE_RATE = 16000;
+	private static final int BYTES_PER_MS = SAMPLE_RATE / 1000 * 2;
+
+	// 16kHz, 20ms 프레임, pre-roll 200ms, hangover 300ms, 최소 발화 200ms, 최대 발화 2초
+	private final UtteranceSegmenter segmenter = new UtteranceSegmenter(
+			new VoiceActivityDetector(600, 0.35), SAMPLE_RATE, 20, 200, 300, 200, 2000);
+
+	@Test
+	void emitsSpeechWithPreRollAndHangover() {
+		ByteString audio = silence(400).concat(tone(500)).concat(silence(600));
+
+		List<UtteranceSegmenter.Segment> segments = feed(audio, 1000); // 프레임 경계와 맞지 않는 청크 크기
+
+		assertThat(segments).hasSize(1);
+		// pre-roll 200ms + 발화 500ms + hangover 300ms
+		assertThat(segments.get(0).audio().size()).isEqualTo(1000 * BYTES_PER_MS);
+		assertThat(segments.get(0).audio()).isEqualTo(audio.substring(200 * BYTES_PER_MS, 1200 * BYTES_PER_MS));
+		assertThat(segments.get(0).startOffsetMs()).isEqualTo(200);
+		assertThat(segments.get(0).endOffsetMs()).isEqualTo(1200);
+	}
+
+	@Test
+	void dropsSilenceNoiseAndShortClicks() {
+		ByteString audio = silence(300).concat(hiss(500)).concat(tone(100)).concat(silence(500));
+
+		assertThat(feed(audio, 3200)).isEmpty();
+		assertThat(segmenter.flush()).isNull();
+	}
+
+	@Test
+	void flushCompletesOpenUtterance() {
+		assertThat(feed(silence(100).concat(tone(400)), 640)).isEmpty();
+		assertThat(segmenter.inSpeech()).isTrue();
+
+		UtteranceSegmenter.Segment segment = segmenter.flush();
+
+		assertThat(segment).isNotNull();
+		assertThat(segment.audio().size()).isEqualTo(500 * BYTES_PER_MS);
+		assertThat(segmenter.inSpeech()).isFalse();
+	}
+
+	@Test
+	void splitsOverlongUtterances() {
+		List<UtteranceSegmenter.Segment> segments = feed(tone(4500), 6400);
+
+		assertThat(segments).hasSize(2);
+		assertThat(segments).allMatch(segment -> segment.audio().size() == 2000 * BYTES_PER_MS);
+		assertThat(segments.get(1).startOffsetMs()).isEqualTo(2000);
+		UtteranceSegmenter.Segment last = segmenter.flush();
+		assertThat(last.audio().size()).isEqualTo(500 * BYTES_PER_MS);
+		assertThat(last.startOffsetMs()).isEqualTo(4000);
+		assertThat(last.endOffsetMs()).isEqualTo(4500);
+	}
+
+	@Test
+	void currentReturnsGrowingUtteranceWithoutEndingIt() {
+		assertThat(feed(silence(100).concat(tone(100)), 640)).isEmpty();
+		assertThat(segmenter.current()).isNull(); // 최소 발화 길이 전
+
+		feed(tone(300), 640);
+		UtteranceSegmenter.Segment partial = segmenter.current();
+
+		assertThat(partial.startOffsetMs()).isZero();
+		assertThat(partial.endOffsetMs()).isEqualTo(500);
+		assertThat(segmenter.inSpeech()).isTrue();
+		assertThat(segmenter.flush().audio()).isEqualTo(partial.audio());
+	}
+
+	private List<UtteranceSegmenter.Segment> feed(ByteString audio, int chunkSize) {
+		List<UtteranceSegmenter.Segment> segments = new ArrayList<>();
+		for (int offset = 0; offset < audio.size(); offset += chunkSize) {
+			segments.addAll(segmenter.accept(audio.substring(offset, Math.min(audio.size(), offset + chunkSize))));
+		}
+		return segments;
+	}
+
+	private static ByteString silence(int ms) {
+		return ByteString.copyFrom(new byte[ms * BYTES_PER_MS]);
+	}
+
+	// 300Hz 사인파 (큰 에너지, 낮은 영교차율)
+	private static ByteString tone(int ms) {
+		return samples(ms, i -> (int) (8000 * Math.sin(2 * Math.PI * 300 * i / SAMPLE_RATE)));
+	}
+
+	// 샘플마다 부호가 바뀌는 잡음 (에너지는 높지만 영교차율이 높음)
+	private static ByteString hiss(int ms) {
+		return samples(ms, i -> i % 2 == 0 ? 2000 : -2000);
+	}
+
+	private static ByteString samples(int ms, IntUnaryOperator generator) {
+		byte[] pcm = new byte[ms * BYTES_PER_MS];
+		for (int i = 0; i < pcm.length / 2; i++) {
+			int sample = generator.applyAsInt(i);
+			pcm[2 * i] = (byte) sample;
+			pcm[2 * i + 1] = (byte) (sample >> 8);
+		}
+		return ByteString.copyFrom(pcm);
+	}
+}
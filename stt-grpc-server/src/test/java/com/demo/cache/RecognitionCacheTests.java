@@ -0,0 +1,74 @@
+package com.demo.cache;
+
+import com.demo.config.SttGrpcServerProperties;
+import com.demo.flask.SttFlaskClient;
+import com.google.protobuf.ByteString;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecognitionCacheTests {
+
+	private final ByteString audio = ByteString.copyFrom(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+	private final AtomicInteger calls = new AtomicInteger();
+	private RecognitionCache cache;
+
+	@BeforeEach
+	void setUp() {
+		SttGrpcServerProperties properties = new SttGrpcServerProperties();
+		ReflectionTestUtils.setField(properties, "cacheEnabled", true);
+		ReflectionTestUtils.setField(properties, "cacheMaxEntries", 100L);
+		ReflectionTestUtils.setField(properties, "cacheTtlMs", 60_000L);
+		cache = new RecognitionCache(properties, new SimpleMeterRegistry());
+	}
+
+	@Test
+	void reusesSuccessfulResultButNotFailures() {
+		assertThat(cache.get(audio, 16000, () -> load(SttFlaskClient.FAILURE_TEXT)).join()).isEqualTo(SttFlaskClient.FAILURE_TEXT);
+		assertThat(cache.get(audio, 16000, () -> load("안녕하세요")).join()).isEqualTo("안녕하세요");
+		assertThat(cache.get(audio, 16000, () -> load("다시 인식")).join()).isEqualTo("안녕하세요");
+		assertThat(calls).hasValue(2);
+
+		// 샘플레이트가 다르면 다른 음성
+		assertThat(cache.get(audio, 8000, () -> load("8k")).join()).isEqualTo("8k");
+		assertThat(calls).hasValue(3);
+	}
+
+	@Test
+	void coalescesConcurrentRequestsForSameAudio() {
+		CompletableFuture<String> engine = new CompletableFuture<>();
+		CompletableFuture<String> first = cache.get(audio, 16000, () -> {
+			calls.incrementAndGet();
+			return engine;
+		});
+		CompletableFuture<String> second = cache.get(ByteString.copyFrom(audio.toByteArray()), 16000, () -> load("중복 호출"));
+
+		engine.complete("한 번만 인식");
+		assertThat(first.join()).isEqualTo("한 번만 인식");
+		assertThat(second.join()).isEqualTo("한 번만 인식");
+		assertThat(calls).hasValue(1);
+	}
+
+	@Test
+	void synchronousLoaderFailureDoesNotBlockLaterRequests() {
+		CompletableFuture<String> rejected = cache.get(audio, 16000, () -> {
+			throw new RejectedExecutionException("대기열 가득 참");
+		});
+		assertThat(rejected).isCompletedExceptionally();
+
+		assertThat(cache.get(audio, 16000, () -> load("다시 시도")).join()).isEqualTo("다시 시도");
+	}
+
+	private CompletableFuture<String> load(String text) {
+		calls.incrementAndGet();
+		return CompletableFuture.completedFuture(text);
+	}
+
+}
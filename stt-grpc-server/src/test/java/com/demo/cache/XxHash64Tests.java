@@ -0,0 +1,33 @@
+package com.demo.cache;
+
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class XxHash64Tests {
+
+	@Test
+	void matchesReferenceVectors() {
+		assertThat(XxHash64.hash(ByteString.EMPTY)).isEqualTo(0xEF46DB3751D8E999L);
+		assertThat(XxHash64.hash(ByteString.copyFromUtf8("a"))).isEqualTo(0xD24EC4F1A98C6E5BL);
+		assertThat(XxHash64.hash(ByteString.copyFromUtf8("abc"))).isEqualTo(0x44BC2CF5AD770999L);
+	}
+
+	@Test
+	void hashesConcatenatedChunksLikeFlatBytes() {
+		byte[] pcm = new byte[3210];
+		new Random(7).nextBytes(pcm);
+		ByteString flat = ByteString.copyFrom(pcm);
+		// 32바이트 경계에 걸치는 조각들로 나눈 rope
+		ByteString rope = flat.substring(0, 5)
+				.concat(ByteString.copyFrom(pcm, 5, 40))
+				.concat(ByteString.copyFrom(pcm, 45, 1000))
+				.concat(ByteString.copyFrom(pcm, 1045, 3210 - 1045));
+
+		assertThat(XxHash64.hash(rope)).isEqualTo(XxHash64.hash(flat));
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.demo.flask;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTests {
+
+	private final AtomicLong now = new AtomicLong();
+	private final CircuitBreaker breaker = new CircuitBreaker("test", 10_000, 50, 4, 5_000, 2, now::get);
+
+	@Test
+	void opensOnFailureRateAndRecoversAfterProbes() {
+		breaker.onSuccess(breaker.tryAcquire());
+		breaker.onFailure(breaker.tryAcquire());
+		breaker.onSuccess(breaker.tryAcquire());
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+		breaker.onFailure(breaker.tryAcquire()); // 4번 중 2번 실패 = 50%
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThat(breaker.tryAcquire()).isEqualTo(CircuitBreaker.Permit.REJECTED);
+
+		now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+		CircuitBreaker.Permit first = breaker.tryAcquire();
+		CircuitBreaker.Permit second = breaker.tryAcquire();
+		assertThat(first).isEqualTo(CircuitBreaker.Permit.PROBE);
+		assertThat(second).isEqualTo(CircuitBreaker.Permit.PROBE);
+		assertThat(breaker.tryAcquire()).isEqualTo(CircuitBreaker.Permit.REJECTED);
+
+		breaker.onSuccess(first);
+		breaker.onSuccess(second);
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void reopensWhenProbeFailsAndForgetsOldFailures() {
+		for (int i = 0; i < 4; i++) {
+			breaker.onFailure(breaker.tryAcquire());
+		}
+		now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+		breaker.onFailure(breaker.tryAcquire());
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+		now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+		breaker.onSuccess(breaker.tryAcquire());
+		breaker.onSuccess(breaker.tryAcquire());
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+		// 구간(10초)이 지난 실패는 판정에 쓰지 않음
+		breaker.onFailure(breaker.tryAcquire());
+		breaker.onFailure(breaker.tryAcquire());
+		breaker.onFailure(breaker.tryAcquire());
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		now.addAndGet(TimeUnit.SECONDS.toNanos(11));
+		breaker.onSuccess(breaker.tryAcquire());
+		breaker.onFailure(breaker.tryAcquire());
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+}
@@ -0,0 +1,192 @@
+package com.demo.flask;
+
+import com.demo.cache.RecognitionCache;
+import com.demo.config.SttGrpcServerProperties;
+import com.google.protobuf.ByteString;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SttFlaskClientTests {
+
+	private HttpServer engine;
+	private final AtomicInteger concurrent = new AtomicInteger();
+	private final AtomicInteger maxConcurrent = new AtomicInteger();
+	private volatile int status = 200;
+	private final List<HttpServer> replicas = new ArrayList<>();
+
+	@BeforeEach
+	void startEngine() throws Exception {
+		// 받은 본문 길이를 응답하는 STT 엔진 대역
+		engine = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		engine.setExecutor(Executors.newCachedThreadPool());
+		engine.createContext("/stt", exchange -> {
+			maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+			byte[] body = exchange.getRequestBody().readAllBytes();
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] response = ("{\"text\": \"" + body.length + "\"}\n{\"line\": 2}").getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(status, response.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(response);
+			}
+			concurrent.decrementAndGet();
+		});
+		engine.start();
+	}
+
+	@AfterEach
+	void stopEngine() {
+		engine.stop(0);
+		for (HttpServer replica : replicas) {
+			replica.stop(0);
+		}
+	}
+
+	@Test
+	void streamsSegmentedAudioAndReturnsWholeBody() throws Exception {
+		SttFlaskClient client = newClient(4);
+		ByteString audio = ByteString.copyFrom(new byte[1000]).concat(ByteString.copyFrom(new byte[500]));
+
+		String text = client.recognize(audio).get(5, TimeUnit.SECONDS);
+
+		assertThat(text).isEqualTo("{\"text\": \"1500\"}\n{\"line\": 2}");
+	}
+
+	@Test
+	void limitsConcurrentRequests() throws Exception {
+		SttFlaskClient client = newClient(2);
+		List<CompletableFuture<String>> results = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			results.add(client.recognize(ByteString.copyFrom(new byte[10])));
+		}
+
+		CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+		assertThat(maxConcurrent.get()).isLessThanOrEqualTo(2);
+		assertThat(results).allSatisfy(result -> assertThat(result.join()).contains("10"));
+	}
+
+	@Test
+	void completesWithFailureTextOnErrorStatus() throws Exception {
+		status = 500;
+		SttFlaskClient client = newClient(1);
+
+		assertThat(client.recognize(ByteString.copyFrom(new byte[10])).get(5, TimeUnit.SECONDS))
+				.isEqualTo(SttFlaskClient.FAILURE_TEXT);
+	}
+
+	@Test
+	void stopsSendingToFailingReplicaOnceCircuitOpens() throws Exception {
+		AtomicInteger badHits = new AtomicInteger();
+		HttpServer bad = startReplica(503, 0, badHits);
+		SttFlaskClient client = newClient(1, 0, engine, bad);
+
+		int failures = 0;
+		for (int i = 0; i < 30; i++) {
+			if (SttFlaskClient.FAILURE_TEXT.equals(client.recognize(ByteString.copyFrom(new byte[10])).get(5, TimeUnit.SECONDS))) {
+				failures++;
+			}
+		}
+
+		// minimum-calls(4)번 실패하면 OPEN → 이후 요청은 모두 정상 엔진으로
+		assertThat(badHits).hasValue(4);
+		assertThat(failures).isEqualTo(4);
+	}
+
+	@Test
+	void failsLongQueueWithoutRecursionWhenCircuitOpens() throws Exception {
+		HttpServer bad = startReplica(503, 20, new AtomicInteger());
+		SttFlaskClient client = newClient(1, 0, bad);
+		List<CompletableFuture<String>> results = new ArrayList<>();
+		for (int i = 0; i < 20_000; i++) {
+			results.add(client.recognize(ByteString.copyFrom(new byte[10])));
+		}
+
+		// 4번째 실패로 서킷이 열리면 남은 대기 요청은 응답 콜백 스레드에서 연달아 바로 실패 (재귀하면 스택 초과로 완료되지 않음)
+		CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+		assertThat(results).allSatisfy(result -> assertThat(result.join()).isEqualTo(SttFlaskClient.FAILURE_TEXT));
+	}
+
+	@Test
+	void hedgesSlowReplicaToFasterOne() throws Exception {
+		HttpServer slow = startReplica(200, 3000, new AtomicInteger());
+		SttFlaskClient client = newClient(4, 200, engine, slow);
+
+		for (int i = 0; i < 4; i++) {
+			long start = System.nanoTime();
+			String text = client.recognize(ByteString.copyFrom(new byte[10])).get(5, TimeUnit.SECONDS);
+
+			assertThat(text).contains("10");
+			assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1500);
+		}
+	}
+
+	private HttpServer startReplica(int replicaStatus, long delayMs, AtomicInteger hits) throws Exception {
+		HttpServer replica = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		replica.setExecutor(Executors.newCachedThreadPool());
+		replica.createContext("/stt", exchange -> {
+			hits.incrementAndGet();
+			byte[] body = exchange.getRequestBody().readAllBytes();
+			try {
+				Thread.sleep(delayMs);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] response = ("{\"text\": \"" + body.length + "\"}").getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(replicaStatus, response.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(response);
+			}
+		});
+		replica.start();
+		replicas.add(replica);
+		return replica;
+	}
+
+	private SttFlaskClient newClient(int maxConcurrency) {
+		return newClient(maxConcurrency, 0, engine);
+	}
+
+	private SttFlaskClient newClient(int maxConcurrency, long hedgeDelayMs, HttpServer... servers) {
+		SttGrpcServerProperties properties = new SttGrpcServerProperties();
+		List<String> urls = new ArrayList<>();
+		for (HttpServer server : servers) {
+			urls.add("http://127.0.0.1:" + server.getAddress().getPort() + "/stt");
+		}
+		ReflectionTestUtils.setField(properties, "sttBackendUrls", urls);
+		ReflectionTestUtils.setField(properties, "sttBackendHedgeDelayMs", hedgeDelayMs);
+		ReflectionTestUtils.setField(properties, "sttBackendCircuitWindowMs", 60_000L);
+		ReflectionTestUtils.setField(properties, "sttBackendCircuitFailureRateThreshold", 50.0);
+		ReflectionTestUtils.setField(properties, "sttBackendCircuitMinimumCalls", 4);
+		ReflectionTestUtils.setField(properties, "sttBackendCircuitOpenMs", 60_000L);
+		ReflectionTestUtils.setField(properties, "sttBackendCircuitHalfOpenProbes", 1);
+		ReflectionTestUtils.setField(properties, "sttBackendMaxConcurrency", maxConcurrency);
+		ReflectionTestUtils.setField(properties, "sttBackendConnectTimeoutMs", 1000L);
+		ReflectionTestUtils.setField(properties, "sttBackendRequestTimeoutMs", 5000L);
+		ReflectionTestUtils.setField(properties, "sttBackendHttpVersion", HttpClient.Version.HTTP_1_1);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		return new SttFlaskClient(properties, new RecognitionCache(properties, meterRegistry), meterRegistry); // 캐시 꺼짐 (같은 음성을 반복 전송하는 테스트)
+	}
+
+}
@@ -0,0 +1,245 @@
+package com.demo.loadtest.broker;
+
+import com.solacesystems.jcsmp.BytesMessage;
+import com.solacesystems.jcsmp.BytesXMLMessage;
+import com.solacesystems.jcsmp.Context;
+import com.solacesystems.jcsmp.Destination;
+import com.solacesystems.jcsmp.JCSMPFactory;
+import com.solacesystems.jcsmp.JCSMPProperties;
+import com.solacesystems.jcsmp.JCSMPSendMultipleEntry;
+import com.solacesystems.jcsmp.JCSMPSession;
+import com.solacesystems.jcsmp.JCSMPStreamingPublishCorrelatingEventHandler;
+import com.solacesystems.jcsmp.SessionEventHandler;
+import com.solacesystems.jcsmp.SpringJCSMPFactory;
+import com.solacesystems.jcsmp.TextMessage;
+import com.solacesystems.jcsmp.Topic;
+import com.solacesystems.jcsmp.XMLMessage;
+import com.solacesystems.jcsmp.XMLMessageConsumer;
+import com.solacesystems.jcsmp.XMLMessageListener;
+import com.solacesystems.jcsmp.XMLMessageProducer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+// stt-grpc-client 안에서 Solace 브로커를 대신하는 JCSMP 대역 (부하 테스트 전용)
+// 발행된 메시지를 토픽 구독(* / > 와일드카드)에 맞춰 같은 프로세스의 consumer로 전달하고, PERSISTENT 메시지는 전달 뒤 ack를 돌려준다
+// 실제 브로커처럼 전달은 전용 스레드 하나에서 발행 순서대로 실행 (JCSMP 컨텍스트 스레드와 같은 모양)
+public final class InMemorySolace extends SpringJCSMPFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemorySolace.class);
+
+    private final List<Route> routes = new CopyOnWriteArrayList<>();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "solace-standin-dispatch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+
+    public InMemorySolace() {
+        super(new JCSMPProperties(), null);
+    }
+
+    public long publishedCount() {
+        return published.sum();
+    }
+
+    public long deliveredCount() {
+        return delivered.sum();
+    }
+
+    @Override
+    public JCSMPSession createSession(Context context, SessionEventHandler handler) {
+        return new StandInSession().proxy;
+    }
+
+    @Override
+    public JCSMPSession createSession(Context context) {
+        return createSession(context, null);
+    }
+
+    @Override
+    public JCSMPSession createSession() {
+        return createSession(null, null);
+    }
+
+    private record Route(StandInSession session, String pattern) {
+    }
+
+    private final class StandInSession {
+
+        private final JCSMPSession proxy = proxy(JCSMPSession.class, this::invoke);
+        private volatile XMLMessageListener listener;
+        private volatile boolean started;
+        private volatile boolean closed;
+
+        private Object invoke(String method, Object[] args) {
+            switch (method) {
+                case "getMessageProducer" -> {
+                    return producer((JCSMPStreamingPublishCorrelatingEventHandler) args[0]);
+                }
+                case "getMessageConsumer" -> {
+                    listener = (XMLMessageListener) args[0];
+                    return proxy(XMLMessageConsumer.class, (consumerMethod, consumerArgs) -> {
+                        switch (consumerMethod) {
+                            case "start" -> started = true;
+                            case "stop", "close" -> started = false;
+                            case "isClosed" -> {
+                                return closed;
+                            }
+                            default -> {
+                            }
+                        }
+                        return null;
+                    });
+                }
+                case "addSubscription" -> {
+                    String pattern = ((Topic) args[0]).getName(); // STTCollector는 토픽 구독만 사용
+                    routes.removeIf(route -> route.session() == this && route.pattern().equals(pattern)); // 재구독은 한 번만 등록
+                    routes.add(new Route(this, pattern));
+                }
+                case "removeSubscription" -> {
+                    String pattern = ((Topic) args[0]).getName();
+                    routes.removeIf(route -> route.session() == this && route.pattern().equals(pattern));
+                }
+                case "closeSession" -> {
+                    closed = true;
+                    routes.removeIf(route -> route.session() == this);
+                }
+                case "isClosed" -> {
+                    return closed;
+                }
+                default -> {
+                }
+            }
+            return null;
+        }
+
+        private XMLMessageProducer producer(JCSMPStreamingPublishCorrelatingEventHandler handler) {
+            return proxy(XMLMessageProducer.class, (method, args) -> switch (method) {
+                case "send" -> {
+                    publish((XMLMessage) args[0], (Destination) args[1], handler);
+                    yield null;
+                }
+                case "sendMultiple" -> {
+                    JCSMPSendMultipleEntry[] entries = (JCSMPSendMultipleEntry[]) args[0];
+                    int offset = (int) args[1];
+                    int length = (int) args[2];
+                    for (int i = offset; i < offset + length; i++) {
+                        publish(entries[i].getMessage(), entries[i].getDestination(), handler);
+                    }
+                    yield length;
+                }
+                case "isClosed" -> closed;
+                default -> null;
+            });
+        }
+    }
+
+    private void publish(XMLMessage message, Destination destination, JCSMPStreamingPublishCorrelatingEventHandler handler) {
+        published.increment();
+        String topic = destination.getName();
+        // 발행 쪽이 메시지 객체를 재사용해도 되도록 내용은 지금 꺼내 둔다
+        String text = message instanceof TextMessage textMessage ? textMessage.getText() : null;
+        byte[] data = message instanceof BytesMessage bytesMessage ? bytesMessage.getData() : null;
+        Object correlationKey = message.getCorrelationKey();
+        dispatcher.execute(() -> {
+            for (Route route : routes) {
+                StandInSession session = route.session();
+                if (session.started && session.listener != null && matches(route.pattern(), topic)) {
+                    try {
+                        session.listener.onReceive(data != null ? received(topic, data) : received(topic, text));
+                        delivered.increment();
+                    } catch (RuntimeException e) {
+                        log.error("구독자 처리 오류 ({}): {}", topic, e.getMessage());
+                    }
+                }
+            }
+            if (correlationKey != null) {
+                handler.responseReceivedEx(correlationKey);
+            }
+        });
+    }
+
+    // 수신 쪽 메시지: STTCollector가 쓰는 getDestination/getData만 채운 BytesMessage (STT 조각 이벤트)
+    private static BytesXMLMessage received(String topicName, byte[] data) {
+        Topic topic = JCSMPFactory.onlyInstance().createTopic(topicName);
+        return proxy(BytesMessage.class, (method, args) -> switch (method) {
+            case "getDestination" -> topic;
+            case "getData" -> data;
+            case "toString", "dump" -> topicName + ": " + data.length + " bytes";
+            default -> null;
+        });
+    }
+
+    // 수신 쪽 메시지: STTCollector가 쓰는 getDestination/getText만 채운 TextMessage
+    private static BytesXMLMessage received(String topicName, String text) {
+        Topic topic = JCSMPFactory.onlyInstance().createTopic(topicName);
+        return proxy(TextMessage.class, (method, args) -> switch (method) {
+            case "getDestination" -> topic;
+            case "getText" -> text;
+            case "toString", "dump" -> topicName + ": " + text;
+            default -> null;
+        });
+    }
+
+    // Solace 토픽 구독 규칙: 레벨은 '/', '*'는 한 레벨, 마지막 '>'는 한 레벨 이상
+    static boolean matches(String pattern, String topic) {
+        String[] patternLevels = pattern.split("/");
+        String[] topicLevels = topic.split("/");
+        for (int i = 0; i < patternLevels.length; i++) {
+            if (patternLevels[i].equals(">") && i == patternLevels.length - 1) {
+                return topicLevels.length > i;
+            }
+            if (i >= topicLevels.length) {
+                return false;
+            }
+            if (!patternLevels[i].equals("*") && !patternLevels[i].equals(topicLevels[i])) {
+                return false;
+            }
+        }
+        return patternLevels.length == topicLevels.length;
+    }
+
+    private interface Handler {
+        Object invoke(String method, Object[] args);
+    }
+
+    // 쓰지 않는 메서드는 반환형의 기본값을 돌려준다
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(InMemorySolace.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+                        return proxy == args[0];
+                    }
+                    Object result = handler.invoke(method.getName(), args);
+                    if (result != null || !method.getReturnType().isPrimitive()) {
+                        return result;
+                    }
+                    Class<?> returnType = method.getReturnType();
+                    if (returnType == boolean.class) {
+                        return false;
+                    }
+                    if (returnType == void.class) {
+                        return null;
+                    }
+                    if (returnType == long.class) {
+                        return 0L;
+                    }
+                    if (returnType == char.class) {
+                        return (char) 0;
+                    }
+                    return returnType == double.class ? 0.0 : returnType == float.class ? 0.0f : (Object) 0;
+                }));
+    }
+}
@@ -0,0 +1,18 @@
+package com.demo.loadtest.broker;
+
+import com.demo.SttGrpcClientApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// 부하 테스트용 stt-grpc-client 실행 진입점
+// 설정/빈은 그대로 쓰고 Solace 연결(SpringJCSMPFactory)만 InMemorySolace로 바꾼다 (자동 설정은 @ConditionalOnMissingBean이라 만들지 않음)
+public class LoadTestClientApplication {
+
+    public static void main(String[] args) {
+        InMemorySolace solace = new InMemorySolace();
+        new SpringApplicationBuilder(SttGrpcClientApplication.class)
+                .initializers((ConfigurableApplicationContext context) ->
+                        context.getBeanFactory().registerSingleton("springJCSMPFactory", solace))
+                .run(args);
+    }
+}
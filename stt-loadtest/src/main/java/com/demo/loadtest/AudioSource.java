@@ -0,0 +1,174 @@
+package com.demo.loadtest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+// 세션들이 함께 쓰는 16비트 little-endian mono PCM과 그 안의 발화 끝 위치
+// 발화 끝은 서버 VAD와 같은 기준(20ms 프레임 RMS, 무음 hangover, 최소 발화 길이)으로 미리 계산해 두고
+// 세션은 그 위치가 담긴 프레임을 보낸 시각을 발화 끝 시각으로 삼아 인식 결과 도착까지의 지연을 잰다
+final class AudioSource {
+
+    private static final int VAD_FRAME_MS = 20;
+    private static final double ENERGY_THRESHOLD = 600; // 서버 stt.vad.energy-threshold 기본값
+    private static final int HANGOVER_MS = 300;
+    private static final int MIN_SPEECH_MS = 200;
+
+    private final byte[] pcm;
+    private final int sampleRate;
+    private final int[] speechStarts; // 발화 시작/끝 바이트 위치 (오름차순, 같은 인덱스가 한 발화)
+    private final int[] speechEnds;
+
+    private AudioSource(byte[] pcm, int sampleRate) {
+        this.pcm = pcm;
+        this.sampleRate = sampleRate;
+        int[][] speech = detectSpeech(pcm, sampleRate);
+        this.speechStarts = speech[0];
+        this.speechEnds = speech[1];
+    }
+
+    // WAV(16비트 mono PCM)면 헤더에서 샘플레이트를 읽고, 그 밖에는 헤더 없는 PCM으로 본다
+    static AudioSource load(Path path, int defaultSampleRate) throws IOException {
+        byte[] file = Files.readAllBytes(path);
+        ByteBuffer buffer = ByteBuffer.wrap(file).order(ByteOrder.LITTLE_ENDIAN);
+        if (file.length < 12 || buffer.getInt(0) != 0x46464952 || buffer.getInt(8) != 0x45564157) { // "RIFF", "WAVE"
+            return new AudioSource(Arrays.copyOf(file, file.length & ~1), defaultSampleRate);
+        }
+        int sampleRate = defaultSampleRate;
+        int position = 12;
+        while (position + 8 <= file.length) {
+            int id = buffer.getInt(position);
+            int size = buffer.getInt(position + 4);
+            int body = position + 8;
+            if (id == 0x20746d66) { // "fmt "
+                int channels = buffer.getShort(body + 2);
+                int bits = buffer.getShort(body + 14);
+                if (buffer.getShort(body) != 1 || channels != 1 || bits != 16) {
+                    throw new IOException("16비트 mono PCM WAV만 지원합니다: " + path);
+                }
+                sampleRate = buffer.getInt(body + 4);
+            } else if (id == 0x61746164) { // "data"
+                int length = Math.min(size, file.length - body) & ~1;
+                return new AudioSource(Arrays.copyOfRange(file, body, body + length), sampleRate);
+            }
+            position = body + size + (size & 1);
+        }
+        throw new IOException("WAV data 청크가 없습니다: " + path);
+    }
+
+    // 발화(1~4초, 기본 주파수가 다른 모음 비슷한 소리)와 무음(0.6~1.2초)이 번갈아 나오는 60초 음성
+    static AudioSource synthetic(int sampleRate) {
+        Random random = new Random(42);
+        short[] samples = new short[sampleRate * 60];
+        int position = 0;
+        while (position < samples.length) {
+            int speech = Math.min(samples.length - position, sampleRate * (1000 + random.nextInt(3000)) / 1000);
+            double f0 = 110 + random.nextInt(120);
+            int fade = sampleRate / 50;
+            for (int i = 0; i < speech; i++) {
+                double t = (double) i / sampleRate;
+                double envelope = Math.min(1.0, Math.min(i, speech - i) / (double) fade);
+                double value = Math.sin(2 * Math.PI * f0 * t) + 0.5 * Math.sin(4 * Math.PI * f0 * t) + 0.25 * Math.sin(6 * Math.PI * f0 * t);
+                samples[position + i] = (short) (envelope * 5000 * value);
+            }
+            position += speech;
+            int silence = Math.min(samples.length - position, sampleRate * (600 + random.nextInt(600)) / 1000);
+            for (int i = 0; i < silence; i++) {
+                samples[position + i] = (short) (random.nextInt(41) - 20);
+            }
+            position += silence;
+        }
+        ByteBuffer pcm = ByteBuffer.allocate(samples.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        pcm.asShortBuffer().put(samples);
+        return new AudioSource(pcm.array(), sampleRate);
+    }
+
+    int sampleRate() {
+        return sampleRate;
+    }
+
+    int length() {
+        return pcm.length;
+    }
+
+    int frameBytes(int frameMs) {
+        return sampleRate * frameMs / 1000 * 2;
+    }
+
+    long bytesToNanos(long bytes) {
+        return bytes / 2 * 1_000_000_000L / sampleRate;
+    }
+
+    int utterances() {
+        return speechEnds.length;
+    }
+
+    // from부터 frame.length 바이트를 복사 (끝에 닿으면 처음부터 이어서)
+    void copy(int from, byte[] frame) {
+        int first = Math.min(frame.length, pcm.length - from);
+        System.arraycopy(pcm, from, frame, 0, first);
+        if (first < frame.length) {
+            System.arraycopy(pcm, 0, frame, first, frame.length - first);
+        }
+    }
+
+    // from에서 시작하는 length 바이트 프레임 안에서 after보다 뒤에 있는 첫 발화 끝의 프레임 내 위치 (after < 위치 <= length), 없으면 -1
+    int nextSpeechEnd(int from, int length, int after) {
+        int next = -1;
+        for (int end : speechEnds) {
+            int offset = Math.floorMod(end - from, pcm.length);
+            if (offset > after && offset <= length && (next < 0 || offset < next)) {
+                next = offset;
+            }
+        }
+        return next;
+    }
+
+    // 발화 도중인 위치인지 (통화를 중간에 끊으면 서버가 이 발화를 마무리해서 결과를 보냄)
+    boolean inSpeech(int position) {
+        for (int i = 0; i < speechStarts.length; i++) {
+            if (position > speechStarts[i] && position < speechEnds[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[][] detectSpeech(byte[] pcm, int sampleRate) {
+        ByteBuffer buffer = ByteBuffer.wrap(pcm).order(ByteOrder.LITTLE_ENDIAN);
+        int frameSamples = sampleRate * VAD_FRAME_MS / 1000;
+        int frames = pcm.length / 2 / frameSamples;
+        int[] starts = new int[frames];
+        int[] ends = new int[frames];
+        int count = 0;
+        int speechFrames = 0;
+        int silentFrames = 0;
+        int speechStart = 0;
+        int lastSpeechEnd = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            double sum = 0;
+            for (int i = 0; i < frameSamples; i++) {
+                double sample = buffer.getShort((frame * frameSamples + i) * 2);
+                sum += sample * sample;
+            }
+            if (Math.sqrt(sum / frameSamples) >= ENERGY_THRESHOLD) {
+                if (speechFrames++ == 0) {
+                    speechStart = frame * frameSamples * 2;
+                }
+                silentFrames = 0;
+                lastSpeechEnd = (frame + 1) * frameSamples * 2;
+            } else if (speechFrames > 0 && ++silentFrames * VAD_FRAME_MS >= HANGOVER_MS) {
+                if (speechFrames * VAD_FRAME_MS >= MIN_SPEECH_MS) {
+                    starts[count] = speechStart;
+                    ends[count++] = lastSpeechEnd;
+                }
+                speechFrames = 0;
+            }
+        }
+        return new int[][]{Arrays.copyOf(starts, count), Arrays.copyOf(ends, count)};
+    }
+}
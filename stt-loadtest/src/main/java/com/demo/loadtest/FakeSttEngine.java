@@ -0,0 +1,124 @@
+package com.demo.loadtest;
+
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// stt-engine(Flask)을 대신하는 HTTP 엔진
+// POST /stt       : 음성을 끝까지 읽은 뒤 설정한 지연 후 {"text": ...} 응답 (응답 대기는 스케줄러로 처리해 스레드를 잡아 두지 않음)
+// POST /summarize : 요청 대화 수만큼 고정 요약 반환
+final class FakeSttEngine implements AutoCloseable {
+
+    private static final String[] SENTENCES = {
+            "안녕하세요 무엇을 도와드릴까요",
+            "차량 점검 예약을 변경하고 싶어요",
+            "고객님 확인을 위해 성함과 연락처를 말씀해 주세요",
+            "이번 주 금요일 오전 열 시로 예약해 드렸습니다",
+    };
+
+    private final HttpServer server;
+    private final ScheduledExecutorService responder;
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double failureRate;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder audioBytes = new LongAdder();
+    private final LongAdder summaries = new LongAdder(); // 통화 종료 → Solace 대역 → STTCollector → 요약까지 이어졌는지 확인용
+
+    FakeSttEngine(long latencyMs, long jitterMs, double failureRate) throws IOException {
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.failureRate = failureRate;
+        this.responder = Executors.newScheduledThreadPool(2, r -> {
+            Thread thread = new Thread(r, "fake-stt-responder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(Executors.newFixedThreadPool(8, r -> {
+            Thread thread = new Thread(r, "fake-stt-http");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.createContext("/stt", this::recognize);
+        server.createContext("/summarize", this::summarize);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    long requests() {
+        return requests.sum();
+    }
+
+    long audioBytes() {
+        return audioBytes.sum();
+    }
+
+    long summaries() {
+        return summaries.sum();
+    }
+
+    private void recognize(HttpExchange exchange) throws IOException {
+        long bytes = drain(exchange.getRequestBody());
+        requests.increment();
+        audioBytes.add(bytes);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latencyMs + (jitterMs > 0 ? random.nextLong(jitterMs + 1) : 0);
+        boolean fail = random.nextDouble() < failureRate;
+        String body = fail
+                ? "{\"error\": \"fake engine failure\"}"
+                : "{\"text\": \"" + SENTENCES[random.nextInt(SENTENCES.length)] + "\"}";
+        responder.schedule(() -> respond(exchange, fail ? 500 : 200, body), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void summarize(HttpExchange exchange) throws IOException {
+        String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        int conversations = JsonParser.parseString(request).getAsJsonObject().getAsJsonArray("texts").size();
+        summaries.add(conversations);
+        StringBuilder body = new StringBuilder("{\"summaries\": [");
+        for (int i = 0; i < conversations; i++) {
+            body.append(i == 0 ? "" : ", ").append("\"요약\"");
+        }
+        respond(exchange, 200, body.append("]}").toString());
+    }
+
+    private static long drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[16384];
+        long total = 0;
+        for (int n; (n = in.read(buffer)) > 0; ) {
+            total += n;
+        }
+        return total;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            out.write(bytes);
+        } catch (IOException e) {
+            // 서버가 요청을 취소(헤징/타임아웃)한 경우
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        responder.shutdownNow();
+    }
+}
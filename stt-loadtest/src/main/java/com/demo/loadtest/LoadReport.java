@@ -0,0 +1,118 @@
+package com.demo.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+// 부하 결과 집계: 발화 끝 → 인식 결과 도착 지연(HdrHistogram), 처리량, 서비스 힙 사용량
+// 주기마다 구간 값을 콘솔과 report.csv에 한 줄씩 남기고, 끝나면 전체 구간 백분위를 출력
+final class LoadReport {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Recorder latency = new Recorder(MAX_LATENCY_MICROS, 3);
+    private final Histogram total = new Histogram(MAX_LATENCY_MICROS, 3);
+    private Histogram interval;
+
+    final AtomicInteger connected = new AtomicInteger();
+    final AtomicInteger sendBacklog = new AtomicInteger(); // 아직 전송이 끝나지 않은 음성 메시지 수 (부하 발생기 쪽 밀림)
+    final LongAdder transcripts = new LongAdder();
+    final LongAdder interims = new LongAdder(); // 중간 결과 (지연 측정에는 최종 결과만 사용)
+    final LongAdder unmatched = new LongAdder(); // 기다리던 발화 없이 도착한 결과 (서버 VAD가 더 잘게 나눈 경우)
+    final LongAdder missing = new LongAdder();   // 통화가 끝날 때까지 결과가 오지 않은 발화 (인식 실패, 합쳐진 발화 포함)
+    final LongAdder audioBytes = new LongAdder();
+    final LongAdder pausedFrames = new LongAdder(); // pause 상태라서 보내지 않은 음성 메시지 수
+    final LongAdder calls = new LongAdder();
+    final LongAdder errors = new LongAdder();
+
+    private final long warmupNanos;
+    private final List<HeapProbe> heapProbes;
+    private final PrintWriter csv;
+    private final long startNanos = System.nanoTime();
+    private long lastNanos = startNanos;
+    private long lastTranscripts;
+    private long lastAudioBytes;
+    private final int bytesPerSecond;
+
+    record HeapProbe(String name, DoubleSupplier usedMb) {
+    }
+
+    LoadReport(Path csvFile, int sampleRate, long warmupNanos, List<HeapProbe> heapProbes) throws IOException {
+        this.bytesPerSecond = sampleRate * 2;
+        this.warmupNanos = warmupNanos;
+        this.heapProbes = heapProbes;
+        this.csv = new PrintWriter(Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8), true);
+        StringBuilder header = new StringBuilder("elapsed_s,connected,transcripts_per_s,audio_realtime_streams,p50_ms,p99_ms,p999_ms,max_ms,unmatched,missing,paused_frames,send_backlog,errors");
+        for (HeapProbe probe : heapProbes) {
+            header.append(',').append(probe.name()).append("_heap_mb");
+        }
+        csv.println(header);
+    }
+
+    void recordLatency(long nanos) {
+        latency.recordValue(Math.min(MAX_LATENCY_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos))));
+    }
+
+    // 구간 보고 (보고 스레드 하나에서만 호출)
+    synchronized void report() {
+        long now = System.nanoTime();
+        double seconds = (now - lastNanos) / 1e9;
+        interval = latency.getIntervalHistogram(interval);
+        boolean warmup = now - startNanos < warmupNanos;
+        if (!warmup) {
+            total.add(interval);
+        }
+        long transcriptCount = transcripts.sum();
+        long audio = audioBytes.sum();
+        double transcriptRate = (transcriptCount - lastTranscripts) / seconds;
+        double realtimeStreams = (audio - lastAudioBytes) / seconds / bytesPerSecond; // 실시간 속도로 흐르는 음성 스트림 수
+        lastNanos = now;
+        lastTranscripts = transcriptCount;
+        lastAudioBytes = audio;
+
+        long elapsed = TimeUnit.NANOSECONDS.toSeconds(now - startNanos);
+        StringBuilder line = new StringBuilder(String.format(
+                "[%4ds] 연결 %d | 결과 %.1f/s | 음성 %.1f 스트림 | 지연 p50 %s p99 %s p999 %s max %s ms | 미매칭 %d 누락 %d | pause %d | 밀림 %d | 오류 %d",
+                elapsed, connected.get(), transcriptRate, realtimeStreams,
+                ms(interval, 50), ms(interval, 99), ms(interval, 99.9), maxMs(interval),
+                unmatched.sum(), missing.sum(), pausedFrames.sum(), sendBacklog.get(), errors.sum()));
+        StringBuilder row = new StringBuilder(String.format("%d,%d,%.2f,%.2f,%s,%s,%s,%s,%d,%d,%d,%d,%d",
+                elapsed, connected.get(), transcriptRate, realtimeStreams,
+                ms(interval, 50), ms(interval, 99), ms(interval, 99.9), maxMs(interval),
+                unmatched.sum(), missing.sum(), pausedFrames.sum(), sendBacklog.get(), errors.sum()));
+        for (HeapProbe probe : heapProbes) {
+            double used = probe.usedMb().getAsDouble();
+            line.append(String.format(" | %s 힙 %s", probe.name(), used < 0 ? "-" : String.format("%.0fMB", used)));
+            row.append(',').append(used < 0 ? "" : String.format("%.1f", used));
+        }
+        System.out.println(warmup ? line.append(" (워밍업)") : line);
+        csv.println(row);
+    }
+
+    synchronized void summary() {
+        report();
+        System.out.println();
+        System.out.printf("워밍업 이후 %d건 | 지연 p50 %s p90 %s p99 %s p999 %s max %s ms | 통화 %d | 중간 결과 %d | 미매칭 %d | 누락 %d | 오류 %d%n",
+                total.getTotalCount(), ms(total, 50), ms(total, 90), ms(total, 99), ms(total, 99.9), maxMs(total),
+                calls.sum(), interims.sum(), unmatched.sum(), missing.sum(), errors.sum());
+        csv.close();
+    }
+
+    private static String ms(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? "-" : String.format("%.1f", histogram.getValueAtPercentile(percentile) / 1000.0);
+    }
+
+    private static String maxMs(Histogram histogram) {
+        return histogram.getTotalCount() == 0 ? "-" : String.format("%.1f", histogram.getMaxValue() / 1000.0);
+    }
+}
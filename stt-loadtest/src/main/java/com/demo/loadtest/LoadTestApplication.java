@@ -0,0 +1,154 @@
+package com.demo.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// 동시 상담 통화 N개로 stt-grpc-client + stt-grpc-server 한 쌍의 처리 한계를 재는 부하/soak 테스트
+// 기본은 가짜 STT 엔진(이 프로세스)과 Solace 대역(클라이언트 프로세스 안)을 붙여 두 서비스를 각자 프로세스로 띄우고,
+// --target을 주면 이미 떠 있는 클라이언트에 세션만 붙인다
+public class LoadTestApplication {
+
+    private static final String CLIENT_MAIN = "com.demo.loadtest.broker.LoadTestClientApplication";
+    private static final String SERVER_MAIN = "com.demo.SttGrpcServerApplication";
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        Path out = options.out().resolve(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        Files.createDirectories(out);
+
+        AudioSource audio = options.audio() != null
+                ? AudioSource.load(options.audio(), options.sampleRate())
+                : AudioSource.synthetic(options.sampleRate());
+        System.out.printf("음성: %s, %dHz, %.1f초, 발화 %d개%n", options.audio() != null ? options.audio() : "합성",
+                audio.sampleRate(), audio.length() / 2.0 / audio.sampleRate(), audio.utterances());
+
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        List<AutoCloseable> resources = new ArrayList<>();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> closeAll(resources)));
+        try {
+            List<LoadReport.HeapProbe> heapProbes = new ArrayList<>();
+            FakeSttEngine engine = null;
+            URI target;
+            if (options.target() != null) {
+                target = URI.create(options.target());
+                if (options.clientActuator() != null) {
+                    heapProbes.add(new LoadReport.HeapProbe("client", () -> ServiceProcess.heapUsedMb(http, options.clientActuator())));
+                }
+                if (options.serverActuator() != null) {
+                    heapProbes.add(new LoadReport.HeapProbe("server", () -> ServiceProcess.heapUsedMb(http, options.serverActuator())));
+                }
+            } else {
+                engine = new FakeSttEngine(options.engineLatencyMs(), options.engineJitterMs(), options.engineFailureRate());
+                resources.add(engine);
+                target = startServices(options, engine, out, http, resources, heapProbes);
+            }
+
+            LoadReport report = new LoadReport(out.resolve("report.csv"), audio.sampleRate(),
+                    TimeUnit.SECONDS.toNanos(options.warmupSeconds()), heapProbes);
+            run(options, target, http, audio, report);
+            report.summary();
+            if (engine != null) {
+                System.out.printf("가짜 STT 엔진: 인식 요청 %d건 (음성 %.1fMB), 요약한 대화 %d건%n",
+                        engine.requests(), engine.audioBytes() / 1048576.0, engine.summaries());
+            }
+            System.out.println("결과: " + out.resolve("report.csv"));
+        } finally {
+            closeAll(resources);
+        }
+    }
+
+    private static URI startServices(LoadTestOptions options, FakeSttEngine engine, Path out, HttpClient http,
+                                     List<AutoCloseable> resources, List<LoadReport.HeapProbe> heapProbes) throws Exception {
+        int grpcPort = ServiceProcess.freePort();
+        int serverHttpPort = ServiceProcess.freePort();
+        int clientHttpPort = ServiceProcess.freePort();
+
+        List<String> serverArgs = new ArrayList<>(List.of(
+                "--grpc.server.port=" + grpcPort,
+                "--server.port=" + serverHttpPort,
+                "--stt.backend.urls=" + engine.baseUrl() + "/stt",
+                "--stt.archive.enabled=false",
+                "--logging.level.com.demo=WARN"));
+        serverArgs.addAll(options.serverArgs());
+        ServiceProcess server = ServiceProcess.start("server", "loadtest.server.classpath", SERVER_MAIN,
+                options.serviceJvmArgs(), serverArgs, serverHttpPort, out.resolve("server.log"));
+        resources.add(0, server);
+
+        List<String> clientArgs = new ArrayList<>(List.of(
+                "--server.port=" + clientHttpPort,
+                "--stt.grpc.targets=127.0.0.1:" + grpcPort,
+                "--stt.analytics.url=" + engine.baseUrl() + "/summarize",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--logging.level.com.demo=WARN"));
+        clientArgs.addAll(options.clientArgs());
+        ServiceProcess client = ServiceProcess.start("client", "loadtest.client.classpath", CLIENT_MAIN,
+                options.serviceJvmArgs(), clientArgs, clientHttpPort, out.resolve("client.log"));
+        resources.add(0, client);
+
+        server.awaitHealthy(http, Duration.ofSeconds(90));
+        client.awaitHealthy(http, Duration.ofSeconds(90));
+        System.out.printf("서비스 기동 완료 (client :%d, server gRPC :%d, 가짜 엔진 %s, 로그 %s)%n",
+                clientHttpPort, grpcPort, engine.baseUrl(), out);
+
+        heapProbes.add(new LoadReport.HeapProbe("client", () -> ServiceProcess.heapUsedMb(http, client.actuator())));
+        heapProbes.add(new LoadReport.HeapProbe("server", () -> ServiceProcess.heapUsedMb(http, server.actuator())));
+        return URI.create("ws://127.0.0.1:" + clientHttpPort + "/audio-stream");
+    }
+
+    private static void run(LoadTestOptions options, URI target, HttpClient http, AudioSource audio, LoadReport report)
+            throws InterruptedException {
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+                    Thread thread = new Thread(r, "loadtest-agent");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "loadtest-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(report::report, options.reportIntervalSeconds(), options.reportIntervalSeconds(), TimeUnit.SECONDS);
+
+        List<VirtualAgent> agents = new ArrayList<>(options.sessions());
+        long rampStepNanos = TimeUnit.SECONDS.toNanos(options.rampUpSeconds()) / options.sessions();
+        for (int i = 0; i < options.sessions(); i++) {
+            VirtualAgent agent = new VirtualAgent(i, target, http, audio, options, report, scheduler);
+            agents.add(agent);
+            scheduler.schedule(agent::start, rampStepNanos * i, TimeUnit.NANOSECONDS);
+        }
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(options.durationSeconds()));
+        System.out.println("실행 시간 종료, 진행 중인 통화 마무리...");
+        CompletableFuture<?>[] stopped = agents.stream().map(VirtualAgent::stop).toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(stopped).get(60, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.out.println("일부 통화가 제때 끝나지 않음: " + e);
+        }
+        reporter.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    private static synchronized void closeAll(List<AutoCloseable> resources) {
+        for (AutoCloseable resource : resources) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                System.err.println("정리 실패: " + e);
+            }
+        }
+        resources.clear();
+    }
+}
@@ -0,0 +1,97 @@
+package com.demo.loadtest;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// 명령행 옵션 (--이름=값), 지정하지 않은 항목은 기본값
+// --client-arg / --server-arg 는 여러 번 줄 수 있고 서비스 실행 인자로 그대로 전달 (예: --client-arg=--stt.stream.overload-policy=PAUSE)
+record LoadTestOptions(
+        int sessions,             // 동시에 통화하는 상담원 수
+        int rampUpSeconds,        // 이 시간 동안 세션을 고르게 늘림
+        int durationSeconds,      // 전체 실행 시간 (soak), 끝나면 진행 중인 통화를 stop으로 마무리
+        int warmupSeconds,        // 처음 이 시간의 지연은 구간 보고에만 쓰고 전체 백분위에서는 뺀다 (JIT/연결 수립)
+        int callSeconds,          // 통화 하나의 길이, 끝나면 stop 후 새 통화로 다시 연결
+        Path audio,               // 16비트 mono WAV/PCM 녹음 (없으면 합성 음성)
+        int sampleRate,           // --audio가 헤더 없는 PCM일 때 또는 합성 음성의 샘플레이트
+        int frameMs,              // WebSocket 음성 메시지 하나의 길이 (브라우저 녹음 청크)
+        long engineLatencyMs,     // 가짜 STT 엔진 응답 시간 (평균)
+        long engineJitterMs,      // 응답 시간 편차 (0 ~ jitter 균등 분포를 더함)
+        double engineFailureRate, // 엔진이 500으로 응답하는 비율 (0~1)
+        int reportIntervalSeconds,
+        Path out,                 // 결과 CSV와 서비스 로그를 남길 디렉터리
+        String target,            // 이미 떠 있는 클라이언트에 붙을 때 ws://host:port/audio-stream (지정하면 서비스/가짜 엔진을 띄우지 않음)
+        String clientActuator,    // --target 사용 시 힙 사용량을 읽을 actuator 주소 (선택)
+        String serverActuator,
+        String serviceJvmArgs,    // 서비스 프로세스 JVM 옵션
+        List<String> clientArgs,
+        List<String> serverArgs) {
+
+    static LoadTestOptions parse(String[] args) {
+        Builder builder = new Builder();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("옵션은 --이름=값 형식이어야 합니다: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            builder.set(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return builder.build();
+    }
+
+    private static final class Builder {
+        private int sessions = 50;
+        private int rampUpSeconds = 10;
+        private int durationSeconds = 120;
+        private int warmupSeconds = 15;
+        private int callSeconds = 60;
+        private Path audio;
+        private int sampleRate = 48000;
+        private int frameMs = 100;
+        private long engineLatencyMs = 300;
+        private long engineJitterMs = 100;
+        private double engineFailureRate;
+        private int reportIntervalSeconds = 10;
+        private Path out = Path.of("build", "loadtest");
+        private String target;
+        private String clientActuator;
+        private String serverActuator;
+        private String serviceJvmArgs = "-Xms512m -Xmx512m";
+        private final List<String> clientArgs = new ArrayList<>();
+        private final List<String> serverArgs = new ArrayList<>();
+
+        void set(String name, String value) {
+            switch (name) {
+                case "sessions" -> sessions = Integer.parseInt(value);
+                case "ramp-up-seconds" -> rampUpSeconds = Integer.parseInt(value);
+                case "duration-seconds" -> durationSeconds = Integer.parseInt(value);
+                case "warmup-seconds" -> warmupSeconds = Integer.parseInt(value);
+                case "call-seconds" -> callSeconds = Integer.parseInt(value);
+                case "audio" -> audio = Path.of(value);
+                case "sample-rate" -> sampleRate = Integer.parseInt(value);
+                case "frame-ms" -> frameMs = Integer.parseInt(value);
+                case "engine-latency-ms" -> engineLatencyMs = Long.parseLong(value);
+                case "engine-jitter-ms" -> engineJitterMs = Long.parseLong(value);
+                case "engine-failure-rate" -> engineFailureRate = Double.parseDouble(value);
+                case "report-interval-seconds" -> reportIntervalSeconds = Integer.parseInt(value);
+                case "out" -> out = Path.of(value);
+                case "target" -> target = value;
+                case "client-actuator" -> clientActuator = value;
+                case "server-actuator" -> serverActuator = value;
+                case "service-jvm-args" -> serviceJvmArgs = value;
+                case "client-arg" -> clientArgs.add(value);
+                case "server-arg" -> serverArgs.add(value);
+                default -> throw new IllegalArgumentException("알 수 없는 옵션: --" + name);
+            }
+        }
+
+        LoadTestOptions build() {
+            if (sessions < 1 || frameMs < 10 || callSeconds < 1 || durationSeconds < 1 || reportIntervalSeconds < 1) {
+                throw new IllegalArgumentException("sessions, call-seconds, duration-seconds, report-interval-seconds는 1 이상, frame-ms는 10 이상이어야 합니다");
+            }
+            return new LoadTestOptions(sessions, rampUpSeconds, durationSeconds, warmupSeconds, callSeconds, audio, sampleRate, frameMs,
+                    engineLatencyMs, engineJitterMs, engineFailureRate, reportIntervalSeconds, out, target,
+                    clientActuator, serverActuator, serviceJvmArgs, List.copyOf(clientArgs), List.copyOf(serverArgs));
+        }
+    }
+}
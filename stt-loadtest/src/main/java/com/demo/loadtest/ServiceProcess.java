@@ -0,0 +1,115 @@
+package com.demo.loadtest;
+
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 서비스 하나를 별도 JVM 프로세스로 실행 (출력은 로그 파일로), actuator로 기동 확인과 힙 사용량 조회
+final class ServiceProcess implements AutoCloseable {
+
+    private final String name;
+    private final Process process;
+    private final Path log;
+    private final String actuator;
+
+    private ServiceProcess(String name, Process process, Path log, String actuator) {
+        this.name = name;
+        this.process = process;
+        this.log = log;
+        this.actuator = actuator;
+    }
+
+    // classpathProperty: gradle run이 넘겨주는 서비스 런타임 클래스패스 시스템 속성
+    static ServiceProcess start(String name, String classpathProperty, String mainClass, String jvmArgs,
+                                List<String> args, int httpPort, Path log) throws IOException {
+        String classpath = System.getProperty(classpathProperty);
+        if (classpath == null || classpath.isBlank()) {
+            throw new IllegalStateException(classpathProperty + " 시스템 속성이 없습니다. ./gradlew run 으로 실행하거나 --target을 지정하세요.");
+        }
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
+        command.add("-cp");
+        command.add(classpath);
+        command.add(mainClass);
+        command.addAll(args);
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        return new ServiceProcess(name, process, log, "http://127.0.0.1:" + httpPort);
+    }
+
+    String actuator() {
+        return actuator;
+    }
+
+    // /actuator/health가 UP이 될 때까지 대기 (프로세스가 먼저 끝나면 로그 위치와 함께 실패)
+    void awaitHealthy(HttpClient http, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(actuator + "/actuator/health"))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " 프로세스가 종료됨 (exit " + process.exitValue() + "), 로그: " + log);
+            }
+            try {
+                if (http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // 아직 포트가 열리지 않음
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException(name + " 기동 대기 시간 초과, 로그: " + log);
+    }
+
+    // 힙 사용량(MB), 읽지 못하면 -1
+    static double heapUsedMb(HttpClient http, String actuator) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(actuator + "/actuator/metrics/jvm.memory.used?tag=area:heap"))
+                    .timeout(Duration.ofSeconds(2))
+                    .build();
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return -1;
+            }
+            return JsonParser.parseString(response.body()).getAsJsonObject()
+                    .getAsJsonArray("measurements").get(0).getAsJsonObject()
+                    .get("value").getAsDouble() / (1024 * 1024);
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    // SIGTERM으로 정상 종료(@PreDestroy 정리)를 기다리고, 안 끝나면 강제 종료
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(15, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.demo.loadtest;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// 상담원 한 명: 브라우저처럼 /audio-stream에 연결해 auth → 실시간 속도의 음성 → stop을 보내고, 통화가 끝나면 새 통화로 다시 연결
+// 보낸 음성 안의 발화 끝 시각을 대기열에 넣고, 인식 결과가 올 때마다 가장 오래된 발화 끝과 짝지어 지연을 기록한다
+final class VirtualAgent {
+
+    private final String customerId;
+    private final URI target;
+    private final HttpClient http;
+    private final AudioSource audio;
+    private final LoadReport report;
+    private final ScheduledExecutorService scheduler;
+    private final int frameMs;
+    private final int frameBytes;
+    private final int framesPerCall;
+    private final long stopGraceMs; // stop 후 남은 결과를 기다리는 최대 시간
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+    private volatile boolean running = true;
+
+    VirtualAgent(int index, URI target, HttpClient http, AudioSource audio, LoadTestOptions options,
+                 LoadReport report, ScheduledExecutorService scheduler) {
+        this.customerId = String.format("load-%05d", index);
+        this.target = target;
+        this.http = http;
+        this.audio = audio;
+        this.report = report;
+        this.scheduler = scheduler;
+        this.frameMs = options.frameMs();
+        this.frameBytes = audio.frameBytes(options.frameMs());
+        this.framesPerCall = options.callSeconds() * 1000 / options.frameMs();
+        this.stopGraceMs = 5000 + 3 * (options.engineLatencyMs() + options.engineJitterMs());
+    }
+
+    void start() {
+        connect();
+    }
+
+    // 진행 중인 통화는 다음 프레임에서 stop으로 마무리하고 더 이상 새 통화를 열지 않음
+    CompletableFuture<Void> stop() {
+        running = false;
+        return finished;
+    }
+
+    private void connect() {
+        if (!running) {
+            finished.complete(null);
+            return;
+        }
+        Call call = new Call();
+        http.newWebSocketBuilder().buildAsync(target, call).whenComplete((webSocket, e) -> {
+            if (e != null) {
+                report.errors.increment();
+                scheduler.schedule(this::connect, 1, TimeUnit.SECONDS);
+            }
+        });
+    }
+
+    private final class Call implements WebSocket.Listener {
+
+        private final ConcurrentLinkedQueue<Long> speechEnds = new ConcurrentLinkedQueue<>(); // 결과를 기다리는 발화 끝 시각 (nanoTime)
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final StringBuilder text = new StringBuilder();
+        private WebSocket webSocket;
+        private ScheduledFuture<?> ticker;
+        private CompletableFuture<?> sending;
+        private int position;
+        private int framesSent;
+        private boolean stopping;
+        private volatile boolean paused;
+
+        @Override
+        public synchronized void onOpen(WebSocket webSocket) {
+            this.webSocket = webSocket;
+            report.connected.incrementAndGet();
+            webSocket.request(1);
+            JsonObject auth = new JsonObject();
+            auth.addProperty("type", "auth");
+            auth.addProperty("customerId", customerId);
+            auth.addProperty("sampleRate", audio.sampleRate());
+            sending = webSocket.sendText(auth.toString(), true);
+            position = ThreadLocalRandom.current().nextInt(audio.length() / 2) * 2; // 통화마다 녹음의 다른 위치에서 시작
+            ticker = scheduler.scheduleAtFixedRate(this::tick, frameMs, frameMs, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void tick() {
+            if (stopping) {
+                return;
+            }
+            if (framesSent >= framesPerCall || !running) {
+                finishCall();
+                return;
+            }
+            if (paused) {
+                report.pausedFrames.increment(); // 서버 역압: 브라우저처럼 resume까지 보내지 않음
+                return;
+            }
+            byte[] frame = new byte[frameBytes];
+            audio.copy(position, frame);
+            // 세션마다 음성이 달라지도록 샘플 몇 개만 ±1 (서버 인식 결과 캐시가 같은 발화로 보지 않게, VAD에는 영향 없음)
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = random.nextInt(64) * 2; i < frame.length; i += 128) {
+                frame[i] ^= 1;
+            }
+            // 이 프레임 안의 발화 끝: 프레임 끝에서 얼마나 앞인지(나노초)를 기억해 두었다가 실제 전송 시각에서 뺀다
+            long[] endsBeforeFrameEnd = new long[2];
+            int ends = 0;
+            for (int after = 0, offset; (offset = audio.nextSpeechEnd(position, frameBytes, after)) >= 0; after = offset) {
+                if (ends == endsBeforeFrameEnd.length) {
+                    endsBeforeFrameEnd = Arrays.copyOf(endsBeforeFrameEnd, ends * 2);
+                }
+                endsBeforeFrameEnd[ends++] = audio.bytesToNanos(frameBytes - offset);
+            }
+            position = (position + frameBytes) % audio.length();
+            framesSent++;
+
+            long[] tails = endsBeforeFrameEnd;
+            int count = ends;
+            report.sendBacklog.incrementAndGet();
+            sending = sending.thenCompose(unused -> {
+                long now = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    speechEnds.add(now - tails[i]);
+                }
+                return webSocket.sendBinary(ByteBuffer.wrap(frame), true);
+            }).handle((unused, e) -> {
+                report.sendBacklog.decrementAndGet();
+                if (e == null) {
+                    report.audioBytes.add(frame.length);
+                }
+                return null;
+            });
+        }
+
+        // stop을 보내고, 남은 결과가 모두 오거나 유예 시간이 지나면 연결 종료
+        private void finishCall() {
+            stopping = true;
+            ticker.cancel(false);
+            boolean midUtterance = audio.inSpeech(position); // 말하는 도중에 끊으면 서버가 남은 발화를 마무리해서 보냄
+            sending = sending.thenCompose(unused -> {
+                if (midUtterance) {
+                    speechEnds.add(System.nanoTime());
+                }
+                return webSocket.sendText("{\"type\":\"stop\"}", true);
+            });
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(stopGraceMs);
+            awaitResults(deadline);
+        }
+
+        private void awaitResults(long deadline) {
+            if (closed.get()) {
+                return;
+            }
+            if (speechEnds.isEmpty() || System.nanoTime() > deadline) {
+                report.calls.increment();
+                webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "call finished");
+                return;
+            }
+            scheduler.schedule(() -> awaitResults(deadline), 100, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            text.append(data);
+            if (last) {
+                handle(text.toString());
+                text.setLength(0);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        private void handle(String message) {
+            JsonObject json = JsonParser.parseString(message).getAsJsonObject();
+            if (json.has("type")) {
+                String type = json.get("type").getAsString();
+                if ("pause".equals(type)) {
+                    paused = true;
+                } else if ("resume".equals(type)) {
+                    paused = false;
+                }
+                return;
+            }
+            if (json.has("final") && !json.get("final").getAsBoolean()) {
+                report.interims.increment(); // 같은 발화의 최종 결과가 뒤따름
+                return;
+            }
+            report.transcripts.increment();
+            Long speechEnd = speechEnds.poll();
+            if (speechEnd == null) {
+                report.unmatched.increment();
+            } else {
+                report.recordLatency(System.nanoTime() - speechEnd);
+            }
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            webSocket.sendClose(WebSocket.NORMAL_CLOSURE, ""); // 서버가 먼저 끊은 경우의 응답 (이미 보냈으면 무시됨)
+            end();
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            report.errors.increment();
+            end();
+        }
+
+        // 연결이 끝나면 결과가 오지 않은 발화를 누락으로 세고 다음 통화 시작
+        private void end() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            synchronized (this) {
+                stopping = true;
+                if (ticker != null) {
+                    ticker.cancel(false);
+                }
+                if (webSocket != null) {
+                    report.connected.decrementAndGet();
+                }
+            }
+            for (Long ignored; (ignored = speechEnds.poll()) != null; ) {
+                report.missing.increment();
+            }
+            connect();
+        }
+    }
+}